@@ -0,0 +1,603 @@
+package backend;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import layers.Activation;
+import layers.MatrixOperations;
+
+/**
+ * The Backend computing with double using the Vector API (jdk.incubator.vector),
+ * so that gemm, gemv, the bias and gradient kernels and the common activation
+ * functions run on SIMD registers of the widest size the CPU supports instead
+ * of relying on the JIT to auto-vectorize the scalar loops. Works on the same
+ * TensorD as DoubleBackend, to which it falls back for the kernels that gain
+ * nothing from vectorization (copying, packing and the derivatives), and for
+ * the tails of rows shorter than a vector.
+ * <p>
+ * This class needs JDK 17 or later and is compiled separately from the rest of
+ * the library (see the vector profile of the pom). It is only loaded through
+ * Backend.preferred, and only if the JVM was started with --add-modules
+ * jdk.incubator.vector. Sums are accumulated in a different order than by
+ * DoubleBackend, so results may differ in the last bits.
+ * 
+ * @author OdinhengeT
+ * @see Backend#preferred(char)
+ * @see DoubleBackend
+ * @see VectorFloatBackend
+ */
+public final class VectorDoubleBackend implements Backend {
+
+	/**
+	 * The only instance, a VectorDoubleBackend has no state.
+	 */
+	public static final VectorDoubleBackend INSTANCE = new VectorDoubleBackend();
+
+	/**
+	 * The widest vector shape supported by the CPU.
+	 */
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	/**
+	 * Number of doubles in a vector of SPECIES.
+	 */
+	private static final int LENGTH = SPECIES.length();
+
+	private static final DoubleBackend SCALAR = DoubleBackend.INSTANCE;
+
+	private VectorDoubleBackend() {
+	}
+
+	/**
+	 * Returns the double[] behind tensor.
+	 * 
+	 * @param tensor a TensorD
+	 * @return tensor.array()
+	 * @throws IllegalArgumentException if tensor isn't a TensorD
+	 */
+	private static double[] array(Tensor tensor) {
+		if (!(tensor instanceof TensorD)) {
+			throw new IllegalArgumentException("Expected a TensorD, got " + tensor.getClass().getSimpleName());
+		}
+		return ((TensorD) tensor).array();
+	}
+
+	public char getBasicCalculationUnit() {
+		return 'd';
+	}
+
+	public TensorD allocate(int size) {
+		return new TensorD(size);
+	}
+
+	public void gemm(Tensor m1, Tensor m2, Tensor result, int rows, int inner, int cols) {
+		gemm(m1, m2, result, rows, inner, cols, null);
+	}
+
+	public void gemm(Tensor m1, Tensor m2, Tensor result, int rows, int inner, int cols, ForkJoinPool pool) {
+		double[] a = array(m1), b = array(m2), c = array(result);
+		MatrixOperations.checkGemmDimensions(a.length, b.length, c.length, rows, inner, cols);
+		if (!MatrixOperations.isParallel(pool, rows, inner, cols)) {
+			gemm(a, 0, inner, 1, b, c, 0, rows, 0, cols, inner, cols, null, 0, null);
+			return;
+		}
+		MatrixOperations.forEachBlock(pool, rows, inner, cols, (fromRow, toRow, fromCol, toCol) -> gemm(a, 0, inner, 1,
+				b, c, fromRow, toRow, fromCol, toCol, inner, cols, null, 0, null));
+	}
+
+	/**
+	 * Computes transpose(m1) * m2 with the gemm kernel reading m1 with a stride,
+	 * except for a single column (the error of a single set of data sent back
+	 * through the weights), which is accumulated one row of m1 at a time so that
+	 * m1 is read with unit stride.
+	 */
+	public void gemmTransposeM1(Tensor m1, Tensor m2, Tensor result, int rows, int inner, int cols) {
+		double[] a = array(m1), b = array(m2), c = array(result);
+		MatrixOperations.checkGemmDimensions(a.length, b.length, c.length, rows, inner, cols);
+		if (cols == 1) {
+			Arrays.fill(c, 0, rows, 0.0);
+			for (int i = 0; i < inner; i++) {
+				addScaled(b[i], a, i * rows, c, 0, rows);
+			}
+			return;
+		}
+		gemm(a, 0, 1, rows, b, c, 0, rows, 0, cols, inner, cols, null, 0, null);
+	}
+
+	/**
+	 * Computes the rows fromRow to toRow - 1 and columns fromCol to toCol - 1 of
+	 * result = A * m2 for the matrix A, whose element (row, i) is m1[m1Offset +
+	 * row * rowStride + i * innerStride], so that the same kernel multiplies with
+	 * m1 as it is (rowStride = inner, innerStride = 1) or with its transpose
+	 * (rowStride = 1, innerStride = rows).
+	 * <p>
+	 * result is computed in strips of four vectors of columns, which are kept in
+	 * registers while the whole inner dimension is accumulated into them, each
+	 * element of A being broadcast and fused-multiply-added with four vectors of
+	 * a row of m2. A strip of m2 stays in cache while it is used by every row.
+	 * Columns left over after the last full vector are computed by scalar code.
+	 * If bias is not null, bias[biasOffset + row] is added to the registers before they are
+	 * stored, and if function is not null (it must be elementwise) it is applied
+	 * to the strip right after.
+	 */
+	private static void gemm(double[] m1, int m1Offset, int rowStride, int innerStride, double[] m2, double[] result,
+			int fromRow, int toRow, int fromCol, int toCol, int inner, int cols, double[] bias, int biasOffset,
+			Activation function) {
+		int col = fromCol;
+		for (; col + 4 * LENGTH <= toCol; col += 4 * LENGTH) {
+			for (int row = fromRow; row < toRow; row++) {
+				DoubleVector sum0 = DoubleVector.zero(SPECIES);
+				DoubleVector sum1 = DoubleVector.zero(SPECIES);
+				DoubleVector sum2 = DoubleVector.zero(SPECIES);
+				DoubleVector sum3 = DoubleVector.zero(SPECIES);
+				int m1Index = m1Offset + row * rowStride;
+				for (int i = 0; i < inner; i++, m1Index += innerStride) {
+					DoubleVector a = DoubleVector.broadcast(SPECIES, m1[m1Index]);
+					int m2Index = i * cols + col;
+					sum0 = DoubleVector.fromArray(SPECIES, m2, m2Index).fma(a, sum0);
+					sum1 = DoubleVector.fromArray(SPECIES, m2, m2Index + LENGTH).fma(a, sum1);
+					sum2 = DoubleVector.fromArray(SPECIES, m2, m2Index + 2 * LENGTH).fma(a, sum2);
+					sum3 = DoubleVector.fromArray(SPECIES, m2, m2Index + 3 * LENGTH).fma(a, sum3);
+				}
+				if (bias != null) {
+					sum0 = sum0.add(bias[biasOffset + row]);
+					sum1 = sum1.add(bias[biasOffset + row]);
+					sum2 = sum2.add(bias[biasOffset + row]);
+					sum3 = sum3.add(bias[biasOffset + row]);
+				}
+				int resultIndex = row * cols + col;
+				sum0.intoArray(result, resultIndex);
+				sum1.intoArray(result, resultIndex + LENGTH);
+				sum2.intoArray(result, resultIndex + 2 * LENGTH);
+				sum3.intoArray(result, resultIndex + 3 * LENGTH);
+				if (function != null) {
+					activate(function, result, result, resultIndex, resultIndex + 4 * LENGTH);
+				}
+			}
+		}
+		for (; col + LENGTH <= toCol; col += LENGTH) {
+			for (int row = fromRow; row < toRow; row++) {
+				DoubleVector sum = DoubleVector.zero(SPECIES);
+				int m1Index = m1Offset + row * rowStride;
+				for (int i = 0; i < inner; i++, m1Index += innerStride) {
+					DoubleVector a = DoubleVector.broadcast(SPECIES, m1[m1Index]);
+					sum = DoubleVector.fromArray(SPECIES, m2, i * cols + col).fma(a, sum);
+				}
+				if (bias != null) {
+					sum = sum.add(bias[biasOffset + row]);
+				}
+				int resultIndex = row * cols + col;
+				sum.intoArray(result, resultIndex);
+				if (function != null) {
+					activate(function, result, result, resultIndex, resultIndex + LENGTH);
+				}
+			}
+		}
+		for (; col < toCol; col++) {
+			for (int row = fromRow; row < toRow; row++) {
+				double sum = 0.0;
+				int m1Index = m1Offset + row * rowStride;
+				for (int i = 0; i < inner; i++, m1Index += innerStride) {
+					sum += m1[m1Index] * m2[i * cols + col];
+				}
+				if (bias != null) {
+					sum += bias[biasOffset + row];
+				}
+				result[row * cols + col] = function == null ? sum : function.apply(sum);
+			}
+		}
+	}
+
+	/**
+	 * Computes m1 * transpose(m2), the gradient of the weights summed over a
+	 * batch (the sum of the outer products of each error and activation). Each
+	 * element is a dot-product of two contiguous rows, four rows of m2 sharing
+	 * every load of m1. A batch of one (inner = 1) is the plain outer product,
+	 * computed one row of result at a time.
+	 */
+	public void gemmTransposeM2(Tensor m1, Tensor m2, Tensor result, int rows, int inner, int cols) {
+		double[] a = array(m1), b = array(m2), c = array(result);
+		MatrixOperations.checkGemmDimensions(a.length, b.length, c.length, rows, inner, cols);
+		if (inner == 1) {
+			for (int row = 0; row < rows; row++) {
+				scale(a[row], b, c, row * cols, cols);
+			}
+			return;
+		}
+		for (int row = 0; row < rows; row++) {
+			int m1Row = row * inner;
+			int resultRow = row * cols;
+			int col = 0;
+			for (; col + 3 < cols; col += 4) {
+				dot4(a, m1Row, b, col * inner, inner, c, resultRow + col);
+			}
+			for (; col < cols; col++) {
+				c[resultRow + col] = dot(a, m1Row, b, col * inner, inner);
+			}
+		}
+	}
+
+	/**
+	 * Dispatches to gemm, gemmTransposeM1 and gemmTransposeM2, leaving the product
+	 * of two transposes, which no layer computes, to the scalar kernel.
+	 */
+	public void gemm(boolean transposeM1, boolean transposeM2, Tensor m1, Tensor m2, Tensor result, int rows,
+			int inner, int cols) {
+		if (!transposeM1 && !transposeM2) {
+			gemm(m1, m2, result, rows, inner, cols);
+		} else if (!transposeM2) {
+			gemmTransposeM1(m1, m2, result, rows, inner, cols);
+		} else if (!transposeM1) {
+			gemmTransposeM2(m1, m2, result, rows, inner, cols);
+		} else {
+			SCALAR.gemm(true, true, m1, m2, result, rows, inner, cols);
+		}
+	}
+
+	public void ger(double alpha, Tensor x, Tensor y, Tensor m, int rows, int cols) {
+		double[] a = array(x), b = array(y), c = array(m);
+		if (a.length < rows || b.length < cols || c.length < rows * cols) {
+			throw new IllegalArgumentException("The vectors and matrix are too small for the outer product");
+		}
+		for (int row = 0; row < rows; row++) {
+			addScaled(alpha * a[row], b, 0, c, row * cols, cols);
+		}
+	}
+
+	public void gemv(Tensor m, Tensor v, Tensor bias, Tensor result, int rows, int cols) {
+		gemv(m, v, bias, result, rows, cols, null);
+	}
+
+	public void gemv(Tensor m, Tensor v, Tensor bias, Tensor result, int rows, int cols, ForkJoinPool pool) {
+		double[] a = array(m), x = array(v), b = bias == null ? null : array(bias), y = array(result);
+		MatrixOperations.checkGemvDimensions(a.length, x.length, b == null ? rows : b.length, y.length, rows, cols);
+		if (!MatrixOperations.isParallel(pool, rows, cols, 1)) {
+			gemv(a, 0, x, b, 0, y, 0, rows, cols, null);
+			return;
+		}
+		MatrixOperations.forEachBlock(pool, rows, cols, 1,
+				(fromRow, toRow, fromCol, toCol) -> gemv(a, 0, x, b, 0, y, fromRow, toRow, cols, null));
+	}
+
+	/**
+	 * Computes the rows fromRow to toRow - 1 of m * v + bias into result, m and
+	 * bias starting at mOffset and biasOffset, four rows at a time sharing every
+	 * load of v, then applies function to them if it is not null (it must be
+	 * elementwise).
+	 */
+	private static void gemv(double[] m, int mOffset, double[] v, double[] bias, int biasOffset, double[] result,
+			int fromRow, int toRow, int cols, Activation function) {
+		int row = fromRow;
+		for (; row + 3 < toRow; row += 4) {
+			dot4(v, 0, m, mOffset + row * cols, cols, result, row);
+		}
+		for (; row < toRow; row++) {
+			result[row] = dot(m, mOffset + row * cols, v, 0, cols);
+		}
+		if (bias != null) {
+			for (row = fromRow; row < toRow; row++) {
+				result[row] += bias[biasOffset + row];
+			}
+		}
+		if (function != null) {
+			activate(function, result, result, fromRow, toRow);
+		}
+	}
+
+	/**
+	 * Returns the dot-product of the length elements of m1 and m2 starting at
+	 * m1Index and m2Index.
+	 */
+	private static double dot(double[] m1, int m1Index, double[] m2, int m2Index, int length) {
+		DoubleVector sum = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i + LENGTH <= length; i += LENGTH) {
+			DoubleVector a = DoubleVector.fromArray(SPECIES, m1, m1Index + i);
+			sum = DoubleVector.fromArray(SPECIES, m2, m2Index + i).fma(a, sum);
+		}
+		double result = sum.reduceLanes(VectorOperators.ADD);
+		for (; i < length; i++) {
+			result += m1[m1Index + i] * m2[m2Index + i];
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the dot-products of the length elements of v starting at vIndex with
+	 * the four consecutive rows of length elements of m starting at mIndex into
+	 * result[resultIndex] to result[resultIndex + 3].
+	 */
+	private static void dot4(double[] v, int vIndex, double[] m, int mIndex, int length, double[] result,
+			int resultIndex) {
+		DoubleVector sum0 = DoubleVector.zero(SPECIES);
+		DoubleVector sum1 = DoubleVector.zero(SPECIES);
+		DoubleVector sum2 = DoubleVector.zero(SPECIES);
+		DoubleVector sum3 = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i + LENGTH <= length; i += LENGTH) {
+			DoubleVector a = DoubleVector.fromArray(SPECIES, v, vIndex + i);
+			sum0 = DoubleVector.fromArray(SPECIES, m, mIndex + i).fma(a, sum0);
+			sum1 = DoubleVector.fromArray(SPECIES, m, mIndex + length + i).fma(a, sum1);
+			sum2 = DoubleVector.fromArray(SPECIES, m, mIndex + 2 * length + i).fma(a, sum2);
+			sum3 = DoubleVector.fromArray(SPECIES, m, mIndex + 3 * length + i).fma(a, sum3);
+		}
+		double result0 = sum0.reduceLanes(VectorOperators.ADD);
+		double result1 = sum1.reduceLanes(VectorOperators.ADD);
+		double result2 = sum2.reduceLanes(VectorOperators.ADD);
+		double result3 = sum3.reduceLanes(VectorOperators.ADD);
+		for (; i < length; i++) {
+			double a = v[vIndex + i];
+			result0 += a * m[mIndex + i];
+			result1 += a * m[mIndex + length + i];
+			result2 += a * m[mIndex + 2 * length + i];
+			result3 += a * m[mIndex + 3 * length + i];
+		}
+		result[resultIndex] = result0;
+		result[resultIndex + 1] = result1;
+		result[resultIndex + 2] = result2;
+		result[resultIndex + 3] = result3;
+	}
+
+	/**
+	 * Writes alpha times the first length elements of x into y, starting at
+	 * yIndex.
+	 */
+	private static void scale(double alpha, double[] x, double[] y, int yIndex, int length) {
+		int i = 0;
+		for (; i + LENGTH <= length; i += LENGTH) {
+			DoubleVector.fromArray(SPECIES, x, i).mul(alpha).intoArray(y, yIndex + i);
+		}
+		for (; i < length; i++) {
+			y[yIndex + i] = alpha * x[i];
+		}
+	}
+
+	public void gemmActivate(Activation function, Tensor m1, Tensor m2, Tensor bias, Tensor result, int rows,
+			int inner, int cols, ForkJoinPool pool) {
+		gemmActivate(function, m1, 0, m2, bias, 0, result, rows, inner, cols, pool);
+	}
+
+	/**
+	 * Adds the bias to the registers of each strip of gemm before they are stored
+	 * and activates the strip right after, while it is in the L1 cache.
+	 */
+	public void gemmActivate(Activation function, Tensor m1, int m1Offset, Tensor m2, Tensor bias, int biasOffset,
+			Tensor result, int rows, int inner, int cols, ForkJoinPool pool) {
+		double[] a = array(m1), b = array(m2), c = array(result), d = bias == null ? null : array(bias);
+		if (m1Offset < 0 || biasOffset < 0) {
+			throw new IllegalArgumentException("An offset is negative");
+		}
+		MatrixOperations.checkGemmDimensions(a.length - m1Offset, b.length, c.length, rows, inner, cols);
+		if (d != null && d.length - biasOffset < rows) {
+			throw new IllegalArgumentException("The bias is too short for the dot-product");
+		}
+		Activation elementwise = function != null && function.isElementwise() ? function : null;
+		if (!MatrixOperations.isParallel(pool, rows, inner, cols)) {
+			gemm(a, m1Offset, inner, 1, b, c, 0, rows, 0, cols, inner, cols, d, biasOffset, elementwise);
+		} else {
+			MatrixOperations.forEachBlock(pool, rows, inner, cols, (fromRow, toRow, fromCol, toCol) -> gemm(a,
+					m1Offset, inner, 1, b, c, fromRow, toRow, fromCol, toCol, inner, cols, d, biasOffset, elementwise));
+		}
+		if (function != null && elementwise == null) {
+			SCALAR.activate(function, result, result, rows, cols);
+		}
+	}
+
+	public void gemvActivate(Activation function, Tensor m, Tensor v, Tensor bias, Tensor result, int rows,
+			int cols, ForkJoinPool pool) {
+		gemvActivate(function, m, 0, v, bias, 0, result, rows, cols, pool);
+	}
+
+	public void gemvActivate(Activation function, Tensor m, int mOffset, Tensor v, Tensor bias, int biasOffset,
+			Tensor result, int rows, int cols, ForkJoinPool pool) {
+		double[] a = array(m), x = array(v), b = bias == null ? null : array(bias), y = array(result);
+		if (mOffset < 0 || biasOffset < 0) {
+			throw new IllegalArgumentException("An offset is negative");
+		}
+		MatrixOperations.checkGemvDimensions(a.length - mOffset, x.length, b == null ? rows : b.length - biasOffset,
+				y.length, rows, cols);
+		Activation elementwise = function != null && function.isElementwise() ? function : null;
+		if (!MatrixOperations.isParallel(pool, rows, cols, 1)) {
+			gemv(a, mOffset, x, b, biasOffset, y, 0, rows, cols, elementwise);
+		} else {
+			MatrixOperations.forEachBlock(pool, rows, cols, 1, (fromRow, toRow, fromCol, toCol) -> gemv(a, mOffset,
+					x, b, biasOffset, y, fromRow, toRow, cols, elementwise));
+		}
+		if (function != null && elementwise == null) {
+			SCALAR.activate(function, result, result, rows, 1);
+		}
+	}
+
+	/**
+	 * Adds alpha times the length elements of x starting at xIndex to those of y
+	 * starting at yIndex.
+	 */
+	private static void addScaled(double alpha, double[] x, int xIndex, double[] y, int yIndex, int length) {
+		DoubleVector alphaVector = DoubleVector.broadcast(SPECIES, alpha);
+		int i = 0;
+		for (; i + LENGTH <= length; i += LENGTH) {
+			DoubleVector values = DoubleVector.fromArray(SPECIES, x, xIndex + i);
+			values.fma(alphaVector, DoubleVector.fromArray(SPECIES, y, yIndex + i)).intoArray(y, yIndex + i);
+		}
+		for (; i < length; i++) {
+			y[yIndex + i] += alpha * x[xIndex + i];
+		}
+	}
+
+	public void axpy(double alpha, Tensor x, Tensor y) {
+		double[] a = array(x), b = array(y);
+		if (a.length != b.length) {
+			throw new IllegalArgumentException("The two vectors are not of the same length");
+		}
+		DoubleVector alphaVector = DoubleVector.broadcast(SPECIES, alpha);
+		int i = 0;
+		for (; i + LENGTH <= a.length; i += LENGTH) {
+			DoubleVector values = DoubleVector.fromArray(SPECIES, a, i);
+			values.fma(alphaVector, DoubleVector.fromArray(SPECIES, b, i)).intoArray(b, i);
+		}
+		for (; i < a.length; i++) {
+			b[i] += alpha * a[i];
+		}
+	}
+
+	public void multiply(Tensor m1, Tensor m2, int length) {
+		double[] a = array(m1), b = array(m2);
+		int i = 0;
+		for (; i + LENGTH <= length; i += LENGTH) {
+			DoubleVector.fromArray(SPECIES, a, i).mul(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+		}
+		for (; i < length; i++) {
+			a[i] *= b[i];
+		}
+	}
+
+	public void subtract(Tensor m1, Tensor m2, Tensor result, int length) {
+		double[] a = array(m1), b = array(m2), c = array(result);
+		int i = 0;
+		for (; i + LENGTH <= length; i += LENGTH) {
+			DoubleVector.fromArray(SPECIES, a, i).sub(DoubleVector.fromArray(SPECIES, b, i)).intoArray(c, i);
+		}
+		for (; i < length; i++) {
+			c[i] = a[i] - b[i];
+		}
+	}
+
+	public void addBias(Tensor m, Tensor bias, int rows, int cols) {
+		double[] a = array(m), b = array(bias);
+		for (int row = 0; row < rows; row++) {
+			double value = b[row];
+			int rowStart = row * cols;
+			int col = 0;
+			for (; col + LENGTH <= cols; col += LENGTH) {
+				DoubleVector.fromArray(SPECIES, a, rowStart + col).add(value).intoArray(a, rowStart + col);
+			}
+			for (; col < cols; col++) {
+				a[rowStart + col] += value;
+			}
+		}
+	}
+
+	public void sumRows(Tensor m, Tensor result, int rows, int cols) {
+		double[] a = array(m), b = array(result);
+		for (int row = 0; row < rows; row++) {
+			int rowStart = row * cols;
+			DoubleVector sum = DoubleVector.zero(SPECIES);
+			int col = 0;
+			for (; col + LENGTH <= cols; col += LENGTH) {
+				sum = sum.add(DoubleVector.fromArray(SPECIES, a, rowStart + col));
+			}
+			double total = sum.reduceLanes(VectorOperators.ADD);
+			for (; col < cols; col++) {
+				total += a[rowStart + col];
+			}
+			b[row] = total;
+		}
+	}
+
+	/**
+	 * Applies SIGMOID, TANH, RELU and LEAKY_RELU a vector at a time, and every
+	 * other activation function (whose scalar code is either a copy, a table
+	 * lookup or, for SOFTMAX, a reduction over a column) as DoubleBackend does.
+	 */
+	public void activate(Activation function, Tensor input, Tensor activation, int nbrNeurons, int batchSize) {
+		switch (function) {
+		case SIGMOID:
+		case TANH:
+		case RELU:
+		case LEAKY_RELU:
+			activate(function, array(input), array(activation), 0, nbrNeurons * batchSize);
+			break;
+		default:
+			SCALAR.activate(function, input, activation, nbrNeurons, batchSize);
+		}
+	}
+
+	/**
+	 * Applies the elementwise function to the elements from to to - 1 of in,
+	 * storing them in out (which may be in), a vector at a time for SIGMOID, TANH,
+	 * RELU and LEAKY_RELU and one element at a time for the others. The last
+	 * vector is masked rather than finished by scalar code, so every element is
+	 * computed the same way wherever the range starts and ends.
+	 */
+	private static void activate(Activation function, double[] in, double[] out, int from, int to) {
+		switch (function) {
+		case SIGMOID:
+			for (int i = from; i < to; i += LENGTH) {
+				VectorMask<Double> mask = SPECIES.indexInRange(i, to);
+				DoubleVector exp = DoubleVector.fromArray(SPECIES, in, i, mask).neg().lanewise(VectorOperators.EXP);
+				DoubleVector.broadcast(SPECIES, 1.0).div(exp.add(1.0)).intoArray(out, i, mask);
+			}
+			break;
+		case TANH:
+			for (int i = from; i < to; i += LENGTH) {
+				VectorMask<Double> mask = SPECIES.indexInRange(i, to);
+				DoubleVector.fromArray(SPECIES, in, i, mask).lanewise(VectorOperators.TANH).intoArray(out, i, mask);
+			}
+			break;
+		case RELU:
+			for (int i = from; i < to; i += LENGTH) {
+				VectorMask<Double> mask = SPECIES.indexInRange(i, to);
+				DoubleVector.fromArray(SPECIES, in, i, mask).max(0.0).intoArray(out, i, mask);
+			}
+			break;
+		case LEAKY_RELU:
+			double slope = Activation.LEAKY_RELU_SLOPE;
+			for (int i = from; i < to; i += LENGTH) {
+				VectorMask<Double> mask = SPECIES.indexInRange(i, to);
+				DoubleVector x = DoubleVector.fromArray(SPECIES, in, i, mask);
+				x.max(x.mul(slope)).intoArray(out, i, mask);
+			}
+			break;
+		default:
+			for (int i = from; i < to; i++) {
+				out[i] = function.apply(in[i]);
+			}
+		}
+	}
+
+	public void derivative(Activation function, Tensor input, Tensor activation, Tensor derivative, int nbrNeurons,
+			int batchSize) {
+		SCALAR.derivative(function, input, activation, derivative, nbrNeurons, batchSize);
+	}
+
+	public void copy(double[] source, Tensor destination) {
+		SCALAR.copy(source, destination);
+	}
+
+	public void copy(float[] source, Tensor destination) {
+		SCALAR.copy(source, destination);
+	}
+
+	public void copy(Tensor source, double[] destination) {
+		SCALAR.copy(source, destination);
+	}
+
+	public void copy(Tensor source, float[] destination) {
+		SCALAR.copy(source, destination);
+	}
+
+	public void pack(double[][] sets, int from, int batchSize, int nbrRows, Tensor matrix) {
+		SCALAR.pack(sets, from, batchSize, nbrRows, matrix);
+	}
+
+	public void pack(float[][] sets, int from, int batchSize, int nbrRows, Tensor matrix) {
+		SCALAR.pack(sets, from, batchSize, nbrRows, matrix);
+	}
+
+	public void unpack(Tensor matrix, int batchSize, int nbrRows, double[][] sets, int from) {
+		SCALAR.unpack(matrix, batchSize, nbrRows, sets, from);
+	}
+
+	public void unpack(Tensor matrix, int batchSize, int nbrRows, float[][] sets, int from) {
+		SCALAR.unpack(matrix, batchSize, nbrRows, sets, from);
+	}
+
+	public String toString() {
+		return "VectorDoubleBackend(" + LENGTH + " lanes)";
+	}
+
+}
@@ -23,130 +23,67 @@ public abstract class Application {
 	protected boolean isDataLoaded;
 
 	/**
-	 * Loads in the data using the same format that the specified network uses
-	 * (float or double).
-	 * 
-	 * @param network the network the data should be loaded for
+	 * Loads in the data, unless it is already loaded. The data is handed out as
+	 * double whatever the precision of the NeuralNetwork, which converts it when
+	 * it is copied into its buffers.
 	 */
-	public void load(NeuralNetwork network) {
+	public void load() {
 		if (isDataLoaded)
 			return;
-		if (network.getBasicCalculationUnit() == 'f') {
-			this.loadF();
-			return;
-		} else if (network.getBasicCalculationUnit() == 'd') {
-			this.loadD();
-			return;
-		} else {
-			throw new IllegalArgumentException("The NeuralNetwork uses no known basic calculation unit.");
-		}
-	}
-
-	/**
-	 * Runs a diagnostic to check how well the specified network handles the current
-	 * application or usecase.
-	 * 
-	 * @param network network to run diagnostic on
-	 * @return String containing the results of the diagnostic
-	 */
-	public String runDiagnostic(NeuralNetwork network) {
-		if (network.getBasicCalculationUnit() == 'f') {
-			return this.runDiagnosticF(network);
-		} else if (network.getBasicCalculationUnit() == 'd') {
-			return this.runDiagnosticD(network);
-		} else {
-			throw new IllegalArgumentException("The NeuralNetwork uses no known basic calculation unit.");
-		}
-	}
-
-	/**
-	 * Runs a quick diagnostic to check how well the specified network handles the
-	 * current application or usecase. Might be more usefull for large Applications
-	 * where a regular diagnostic may be slow.
-	 * 
-	 * @param network network to run diagnostic on
-	 * @return String containing the results of the diagnostic
-	 */
-	public String runQuickDiagnostic(NeuralNetwork network) {
-		if (network.getBasicCalculationUnit() == 'f') {
-			return this.runQuickDiagnosticF(network);
-		} else if (network.getBasicCalculationUnit() == 'd') {
-			return this.runQuickDiagnosticD(network);
-		} else {
-			throw new IllegalArgumentException("The NeuralNetwork uses no known basic calculation unit.");
-		}
+		this.loadData();
 	}
 
 	/**
-	 * Load as float
+	 * Loads the data and sets isDataLoaded to true.
 	 */
-	public abstract void loadF();
+	protected abstract void loadData();
 
 	/**
-	 * Load as double
+	 * Returns nbrInputs sets of trainingdata, first index is 0 for input and 1 for
+	 * target
 	 */
-	public abstract void loadD();
+	public abstract double[][][] getTrainingData(int nbrInputs);
 
 	/**
-	 * Returns nbrInputs sets of trainingdata (float) first index is 0 for input and
-	 * 1 for target
-	 */
-	public abstract float[][][] getTrainingDataF(int nbrInputs);
-
-	/**
-	 * Returns nbrInputs sets of trainingdata (double) first index is 0 for input
-	 * and 1 for target
-	 */
-	public abstract double[][][] getTrainingDataD(int nbrInputs);
-
-	/**
-	 * Returns the entire set of evaluationdata (float) first index is 0 for input
-	 * and 1 for target
-	 */
-	public abstract float[][][] getEvaluationDataF();
-
-	/**
-	 * Returns the entire set of evaluationdata (double) first index is 0 for input
-	 * and 1 for target
-	 */
-	public abstract double[][][] getEvaluationDataD();
-
-	/**
-	 * Runs a diagnostic (float) to check how well the specified network handles the
-	 * current application or usecase.
+	 * Writes input.length sets of trainingdata into input and target, which must
+	 * already hold arrays of the right length. The default implementation copies
+	 * the result of getTrainingData, Applications that can write straight into the
+	 * arrays should override it.
 	 * 
-	 * @param network network to run diagnostic on
-	 * @return String containing the results of the diagnostic
+	 * @param input  arrays to write the inputs into, one per set
+	 * @param target arrays to write the targets into, one per set
 	 */
-	public abstract String runDiagnosticF(NeuralNetwork network);
+	public void fillTrainingData(double[][] input, double[][] target) {
+		double[][][] trainingData = getTrainingData(input.length);
+		for (int set = 0; set < input.length; set++) {
+			System.arraycopy(trainingData[0][set], 0, input[set], 0, input[set].length);
+			System.arraycopy(trainingData[1][set], 0, target[set], 0, target[set].length);
+		}
+	}
 
 	/**
-	 * Runs a diagnostic (double) to check how well the specified network handles
-	 * the current application or usecase.
-	 * 
-	 * @param network network to run diagnostic on
-	 * @return String containing the results of the diagnostic
+	 * Returns the entire set of evaluationdata, first index is 0 for input and 1
+	 * for target
 	 */
-	public abstract String runDiagnosticD(NeuralNetwork network);
+	public abstract double[][][] getEvaluationData();
 
 	/**
-	 * Runs a quick diagnostic (float) to check how well the specified network
-	 * handles the current application or usecase. Might be more usefull for large
-	 * Applications where a regular diagnostic may be slow.
+	 * Runs a diagnostic to check how well the specified network handles the current
+	 * application or usecase.
 	 * 
 	 * @param network network to run diagnostic on
 	 * @return String containing the results of the diagnostic
 	 */
-	public abstract String runQuickDiagnosticF(NeuralNetwork network);
+	public abstract String runDiagnostic(NeuralNetwork network);
 
 	/**
-	 * Runs a quick diagnostic (double) to check how well the specified network
-	 * handles the current application or usecase. Might be more usefull for large
-	 * Applications where a regular diagnostic may be slow.
+	 * Runs a quick diagnostic to check how well the specified network handles the
+	 * current application or usecase. Might be more usefull for large Applications
+	 * where a regular diagnostic may be slow.
 	 * 
 	 * @param network network to run diagnostic on
 	 * @return String containing the results of the diagnostic
 	 */
-	public abstract String runQuickDiagnosticD(NeuralNetwork network);
+	public abstract String runQuickDiagnostic(NeuralNetwork network);
 
 }
@@ -0,0 +1,211 @@
+package applications;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import networks.NeuralNetwork;
+
+/**
+ * Prepares batches of training data from an Application on a background
+ * thread, so that the next batches are ready while the NeuralNetwork trains on
+ * the current one. A fixed number of batches is allocated up front and passed
+ * between two bounded queues: the background thread fills free batches through
+ * Application.fillTrainingData and queues them as ready, and the training
+ * thread takes ready batches with next() and hands them back with release().
+ * <p>
+ * The Application is only called from the background thread, one batch at a
+ * time, so the batches arrive in the same order as if they were fetched on the
+ * training thread.
+ * 
+ * @author OdinhengeT
+ * @see Application
+ * @see AppliedNetwork
+ */
+public class DataLoader implements AutoCloseable {
+
+	/**
+	 * A set of batchSize inputs and targets.
+	 */
+	public static class Batch {
+		public final double[][] input;
+		public final double[][] target;
+
+		private Batch(int batchSize, int nbrInputs, int nbrOutputs) {
+			input = new double[batchSize][nbrInputs];
+			target = new double[batchSize][nbrOutputs];
+		}
+	}
+
+	private final Application application;
+	private final int nbrBatches;
+	private final BlockingQueue<Batch> free;
+	private final BlockingQueue<Batch> ready;
+	private final Thread worker;
+	private volatile boolean running;
+	private volatile Throwable failure;
+
+	private int nbrTaken;
+	private long stallNanos;
+	private volatile long producerWaitNanos;
+
+	/**
+	 * Creates a DataLoader for training network on application, the background
+	 * thread is started by start().
+	 * 
+	 * @param application the Application to get training data from
+	 * @param network     the NeuralNetwork to train, decides the size of the
+	 *                    inputs and targets
+	 * @param batchSize   number of sets of training data per batch
+	 * @param prefetch    number of batches prepared ahead of the training thread
+	 * @param nbrBatches  total number of batches to prepare
+	 * @throws IllegalArgumentException if batchSize or prefetch is less than 1
+	 */
+	public DataLoader(Application application, NeuralNetwork network, int batchSize, int prefetch,
+			int nbrBatches) {
+		if (batchSize < 1 || prefetch < 1) {
+			throw new IllegalArgumentException("batchSize and prefetch must be at least 1");
+		}
+		int[] layerStruct = network.getLayerStruct();
+		this.application = application;
+		this.nbrBatches = nbrBatches;
+		this.free = new ArrayBlockingQueue<>(prefetch + 1);
+		this.ready = new ArrayBlockingQueue<>(prefetch + 1);
+		for (int i = 0; i < prefetch + 1; i++) {
+			free.add(new Batch(batchSize, layerStruct[0], layerStruct[layerStruct.length - 1]));
+		}
+		this.worker = new Thread(this::prepare, "data-loader");
+		this.worker.setDaemon(true);
+	}
+
+	/**
+	 * Starts preparing batches on the background thread.
+	 */
+	public void start() {
+		running = true;
+		worker.start();
+	}
+
+	/**
+	 * Returns the next batch of training data, waiting for it if it isn't ready
+	 * yet. The batch must be handed back with release() once used.
+	 * 
+	 * @return the next batch
+	 * @throws IllegalStateException if all batches have already been taken, or
+	 *                               the Application failed to prepare a batch
+	 */
+	public Batch next() {
+		if (nbrTaken >= nbrBatches) {
+			throw new IllegalStateException("All " + nbrBatches + " batches have already been taken");
+		}
+		long start = System.nanoTime();
+		Batch batch = null;
+		try {
+			while (batch == null) {
+				if (failure != null) {
+					throw new IllegalStateException("Failed to prepare a batch", failure);
+				}
+				batch = ready.poll(100, TimeUnit.MILLISECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a batch", e);
+		} finally {
+			stallNanos += System.nanoTime() - start;
+		}
+		nbrTaken++;
+		return batch;
+	}
+
+	/**
+	 * Hands a batch returned by next() back, so that it can be filled again.
+	 * 
+	 * @param batch a batch returned by next()
+	 */
+	public void release(Batch batch) {
+		free.add(batch);
+	}
+
+	/**
+	 * Stops the background thread.
+	 */
+	public void close() {
+		running = false;
+		worker.interrupt();
+		try {
+			worker.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Returns the number of batches that are ready and waiting to be taken.
+	 * 
+	 * @return queue depth
+	 */
+	public int getQueueDepth() {
+		return ready.size();
+	}
+
+	/**
+	 * Returns the total time the training thread has spent waiting in next(),
+	 * that is the time data loading did not keep up with training.
+	 * 
+	 * @return stall time in nanoseconds
+	 */
+	public long getStallNanos() {
+		return stallNanos;
+	}
+
+	/**
+	 * Returns the total time the background thread has spent waiting for a free
+	 * batch, that is the time it was as far ahead as it is allowed to be.
+	 * 
+	 * @return idle time of the background thread in nanoseconds
+	 */
+	public long getProducerWaitNanos() {
+		return producerWaitNanos;
+	}
+
+	/**
+	 * Returns the number of batches taken by next().
+	 * 
+	 * @return this.nbrTaken
+	 */
+	public int getNbrTaken() {
+		return nbrTaken;
+	}
+
+	/**
+	 * Returns a String describing the metrics of the DataLoader.
+	 * 
+	 * @returns a String describing the DataLoader
+	 */
+	public String toString() {
+		return "DataLoader: " + nbrTaken + "/" + nbrBatches + " batches taken, queue depth " + getQueueDepth()
+				+ ", training stalled " + stallNanos / 1000000 + " ms, loader idle " + producerWaitNanos / 1000000
+				+ " ms";
+	}
+
+	/**
+	 * Body of the background thread, fills free batches until nbrBatches have
+	 * been prepared or the DataLoader is closed.
+	 */
+	private void prepare() {
+		try {
+			for (int prepared = 0; prepared < nbrBatches && running; prepared++) {
+				long start = System.nanoTime();
+				Batch batch = free.take();
+				producerWaitNanos += System.nanoTime() - start;
+				application.fillTrainingData(batch.input, batch.target);
+				ready.put(batch);
+			}
+		} catch (InterruptedException e) {
+			// closed while waiting
+		} catch (RuntimeException | Error e) {
+			failure = e;
+		}
+	}
+
+}
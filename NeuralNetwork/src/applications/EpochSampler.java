@@ -0,0 +1,94 @@
+package applications;
+
+import java.util.Random;
+
+/**
+ * Hands out the indices 0 to size - 1 in a random order, drawing a new random
+ * permutation every time all of them have been handed out (an epoch). Only
+ * the permutation is shuffled, the data the indices refer to is never moved or
+ * copied. Two EpochSamplers created with the same size and seed hand out the
+ * same indices in the same order.
+ * 
+ * @author OdinhengeT
+ * @see Application
+ * @see Mnist
+ */
+public class EpochSampler {
+
+	private final int[] permutation;
+	private final Random random;
+	/**
+	 * Position in permutation of the next index to hand out.
+	 */
+	private int position;
+	/**
+	 * Number of epochs started, 1 during the first epoch.
+	 */
+	private int epoch;
+
+	/**
+	 * Creates an EpochSampler over the indices 0 to size - 1, and shuffles them
+	 * for the first epoch.
+	 * 
+	 * @param size number of indices
+	 * @param seed seed of the random permutations
+	 * @throws IllegalArgumentException if size is less than 1
+	 */
+	public EpochSampler(int size, long seed) {
+		if (size < 1) {
+			throw new IllegalArgumentException("size must be at least 1");
+		}
+		this.permutation = new int[size];
+		for (int i = 0; i < size; i++) {
+			permutation[i] = i;
+		}
+		this.random = new Random(seed);
+		startEpoch();
+	}
+
+	/**
+	 * Returns the next index, starting a new epoch with a new permutation if
+	 * every index of the current one has been handed out.
+	 * 
+	 * @return an index between 0 and size - 1
+	 */
+	public int next() {
+		if (position == permutation.length) {
+			startEpoch();
+		}
+		return permutation[position++];
+	}
+
+	/**
+	 * Returns the number of epochs started, 1 during the first epoch.
+	 * 
+	 * @return this.epoch
+	 */
+	public int getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * Returns the number of indices per epoch.
+	 * 
+	 * @return size of the sampler
+	 */
+	public int size() {
+		return permutation.length;
+	}
+
+	/**
+	 * Shuffles permutation with the Fisher-Yates shuffle.
+	 */
+	private void startEpoch() {
+		for (int i = permutation.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = permutation[i];
+			permutation[i] = permutation[j];
+			permutation[j] = swap;
+		}
+		position = 0;
+		epoch++;
+	}
+
+}
@@ -0,0 +1,198 @@
+package applications;
+
+/**
+ * The result of scoring a NeuralNetwork on a set of evaluation data with
+ * Evaluator: a confusion matrix from which accuracy, precision and recall are
+ * derived, a few measures of loss, and how long the evaluation took.
+ * <p>
+ * The class of a set of data is the index of the largest value in its target,
+ * and the predicted class is the index of the largest output. Networks with a
+ * single output are treated as binary classifiers with the threshold 0.5.
+ * 
+ * @author OdinhengeT
+ * @see Evaluator
+ */
+public class EvaluationResult {
+
+	private final long[][] confusion;
+	private final long nbrSets;
+	private final double meanAbsoluteError;
+	private final double meanSquaredError;
+	private final double crossEntropy;
+	private final long elapsedNanos;
+
+	/**
+	 * Constructs an EvaluationResult.
+	 * 
+	 * @param confusion         confusion[actual][predicted] is the number of sets
+	 *                          of class actual that were predicted as predicted
+	 * @param totalAbsolute     sum over all sets of the summed absolute error
+	 * @param totalSquared      sum over all sets of the summed squared error
+	 * @param totalCrossEntropy sum over all sets of the cross-entropy
+	 * @param elapsedNanos      wall-clock time of the evaluation
+	 */
+	EvaluationResult(long[][] confusion, double totalAbsolute, double totalSquared, double totalCrossEntropy,
+			long elapsedNanos) {
+		long sets = 0;
+		for (long[] row : confusion) {
+			for (long count : row) {
+				sets += count;
+			}
+		}
+		this.confusion = confusion;
+		this.nbrSets = sets;
+		this.meanAbsoluteError = sets == 0 ? 0 : totalAbsolute / sets;
+		this.meanSquaredError = sets == 0 ? 0 : totalSquared / sets;
+		this.crossEntropy = sets == 0 ? 0 : totalCrossEntropy / sets;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * Returns the number of sets of data evaluated.
+	 * 
+	 * @return this.nbrSets
+	 */
+	public long getNbrSets() {
+		return nbrSets;
+	}
+
+	/**
+	 * Returns the number of classes.
+	 * 
+	 * @return number of rows (and columns) of the confusion matrix
+	 */
+	public int getNbrClasses() {
+		return confusion.length;
+	}
+
+	/**
+	 * Returns the fraction of sets whose predicted class was the right one.
+	 * 
+	 * @return top-1 accuracy between 0 and 1
+	 */
+	public double getAccuracy() {
+		long correct = 0;
+		for (int c = 0; c < confusion.length; c++) {
+			correct += confusion[c][c];
+		}
+		return nbrSets == 0 ? 0 : (double) correct / nbrSets;
+	}
+
+	/**
+	 * Returns the fraction of the sets predicted as c that were of class c.
+	 * 
+	 * @param c index of the class
+	 * @return precision of class c, 0 if no set was predicted as c
+	 */
+	public double getPrecision(int c) {
+		long predicted = 0;
+		for (int actual = 0; actual < confusion.length; actual++) {
+			predicted += confusion[actual][c];
+		}
+		return predicted == 0 ? 0 : (double) confusion[c][c] / predicted;
+	}
+
+	/**
+	 * Returns the fraction of the sets of class c that were predicted as c.
+	 * 
+	 * @param c index of the class
+	 * @return recall of class c, 0 if no set was of class c
+	 */
+	public double getRecall(int c) {
+		long actual = 0;
+		for (int predicted = 0; predicted < confusion.length; predicted++) {
+			actual += confusion[c][predicted];
+		}
+		return actual == 0 ? 0 : (double) confusion[c][c] / actual;
+	}
+
+	/**
+	 * Returns the confusion matrix, element [actual][predicted] being the number
+	 * of sets of class actual that were predicted as predicted.
+	 * 
+	 * @return a copy of the confusion matrix
+	 */
+	public long[][] getConfusionMatrix() {
+		long[][] copy = new long[confusion.length][];
+		for (int c = 0; c < confusion.length; c++) {
+			copy[c] = confusion[c].clone();
+		}
+		return copy;
+	}
+
+	/**
+	 * Returns the absolute error summed over the outputs, averaged over the sets
+	 * (the "Mean Error" of the diagnostics).
+	 * 
+	 * @return mean absolute error per set
+	 */
+	public double getMeanAbsoluteError() {
+		return meanAbsoluteError;
+	}
+
+	/**
+	 * Returns the squared error summed over the outputs, averaged over the sets.
+	 * 
+	 * @return mean squared error per set
+	 */
+	public double getMeanSquaredError() {
+		return meanSquaredError;
+	}
+
+	/**
+	 * Returns the cross-entropy -sum(target * log(output)) averaged over the sets,
+	 * meaningful when the outputs are probabilities (e.g. SOFTMAX).
+	 * 
+	 * @return mean cross-entropy per set
+	 */
+	public double getCrossEntropy() {
+		return crossEntropy;
+	}
+
+	/**
+	 * Returns the wall-clock time of the evaluation.
+	 * 
+	 * @return elapsed time in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Returns the number of sets evaluated per second.
+	 * 
+	 * @return throughput in sets per second
+	 */
+	public double getThroughput() {
+		return elapsedNanos == 0 ? 0 : nbrSets * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * Returns a String representation of the result, with the per-class figures
+	 * and the confusion matrix.
+	 * 
+	 * @returns a String describing the result
+	 */
+	public String toString() {
+		StringBuilder sb = new StringBuilder("==Evaluation==" + System.lineSeparator());
+		sb.append(String.format("  Sets: %d in %.1f ms (%.0f sets/s)%n", nbrSets, elapsedNanos / 1e6,
+				getThroughput()));
+		sb.append(String.format("  Accuracy: %.4f%n", getAccuracy()));
+		sb.append(String.format("  Mean Error: %.6f  Mean Squared Error: %.6f  Cross-Entropy: %.6f%n",
+				meanAbsoluteError, meanSquaredError, crossEntropy));
+		sb.append("  Class:  Precision:  Recall:" + System.lineSeparator());
+		for (int c = 0; c < confusion.length; c++) {
+			sb.append(String.format("    %-6d %-11.4f %.4f%n", c, getPrecision(c), getRecall(c)));
+		}
+		sb.append("  Confusion (rows: actual, columns: predicted):" + System.lineSeparator());
+		for (long[] row : confusion) {
+			sb.append("   ");
+			for (long count : row) {
+				sb.append(String.format(" %6d", count));
+			}
+			sb.append(System.lineSeparator());
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,174 @@
+package applications;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import networks.NeuralNetwork;
+
+/**
+ * Scores a NeuralNetwork on a whole set of evaluation data in parallel. The
+ * data is split into chunks that are run through NeuralNetwork.runBatch on the
+ * threads of the common ForkJoinPool, each chunk counting into its own
+ * accumulator (confusion matrix and summed losses), and the accumulators are
+ * added together as the chunks are joined.
+ * 
+ * @author OdinhengeT
+ * @see EvaluationResult
+ * @see Application
+ */
+public final class Evaluator {
+
+	/**
+	 * Smallest number of sets of data evaluated by one chunk.
+	 */
+	private static final int MIN_SETS_PER_CHUNK = 256;
+	/**
+	 * Outputs are clamped to this before taking the logarithm for the
+	 * cross-entropy.
+	 */
+	private static final double MIN_PROBABILITY = 1e-12;
+
+	private Evaluator() {
+	}
+
+	/**
+	 * Scores network on the evaluation data of application.
+	 * 
+	 * @param network     the NeuralNetwork to score
+	 * @param application the Application whose evaluation data to use, must be
+	 *                    loaded
+	 * @return the result of the evaluation
+	 */
+	public static EvaluationResult evaluate(NeuralNetwork network, Application application) {
+		double[][][] evaluationData = application.getEvaluationData();
+		return evaluate(network, evaluationData[0], evaluationData[1]);
+	}
+
+	/**
+	 * Scores network on the given inputs and targets.
+	 * 
+	 * @param network the NeuralNetwork to score
+	 * @param input   the inputs
+	 * @param target  the target of each input
+	 * @return the result of the evaluation
+	 * @throws IllegalArgumentException if input and target differ in length
+	 */
+	public static EvaluationResult evaluate(NeuralNetwork network, double[][] input, double[][] target) {
+		if (input.length != target.length) {
+			throw new IllegalArgumentException("Expected one target per input");
+		}
+		long start = System.nanoTime();
+		EvaluationTask task = new EvaluationTask(network, input, target, 0, input.length, chunkSize(input.length));
+		Accumulator total = ForkJoinPool.commonPool().invoke(task);
+		return total.toResult(System.nanoTime() - start);
+	}
+
+	/**
+	 * Splits nbrSets into about one chunk per thread, but no smaller than
+	 * MIN_SETS_PER_CHUNK.
+	 */
+	private static int chunkSize(int nbrSets) {
+		int nbrThreads = ForkJoinPool.getCommonPoolParallelism();
+		return Math.max(MIN_SETS_PER_CHUNK, (nbrSets + nbrThreads - 1) / nbrThreads);
+	}
+
+	/**
+	 * Confusion matrix and summed losses of a part of the evaluation data.
+	 */
+	private static final class Accumulator {
+		private long[][] confusion;
+		private double totalAbsolute;
+		private double totalSquared;
+		private double totalCrossEntropy;
+
+		private Accumulator(int nbrOutputs) {
+			int nbrClasses = nbrOutputs == 1 ? 2 : nbrOutputs;
+			confusion = new long[nbrClasses][nbrClasses];
+		}
+
+		private void add(double[] output, double[] target) {
+			int predicted = 0;
+			int actual = 0;
+			for (int i = 0; i < output.length; i++) {
+				double difference = output[i] - target[i];
+				totalAbsolute += Math.abs(difference);
+				totalSquared += difference * difference;
+				if (target[i] != 0) {
+					totalCrossEntropy -= target[i] * Math.log(Math.max(output[i], MIN_PROBABILITY));
+				}
+				if (output[i] > output[predicted]) {
+					predicted = i;
+				}
+				if (target[i] > target[actual]) {
+					actual = i;
+				}
+			}
+			if (output.length == 1) {
+				predicted = output[0] >= 0.5 ? 1 : 0;
+				actual = target[0] >= 0.5 ? 1 : 0;
+			}
+			confusion[actual][predicted]++;
+		}
+
+		private Accumulator merge(Accumulator other) {
+			for (int actual = 0; actual < confusion.length; actual++) {
+				for (int predicted = 0; predicted < confusion.length; predicted++) {
+					confusion[actual][predicted] += other.confusion[actual][predicted];
+				}
+			}
+			totalAbsolute += other.totalAbsolute;
+			totalSquared += other.totalSquared;
+			totalCrossEntropy += other.totalCrossEntropy;
+			return this;
+		}
+
+		private EvaluationResult toResult(long elapsedNanos) {
+			return new EvaluationResult(confusion, totalAbsolute, totalSquared, totalCrossEntropy, elapsedNanos);
+		}
+	}
+
+	/**
+	 * Evaluates the sets from (inclusive) to to (exclusive), splitting them in
+	 * two until they are at most chunkSize sets.
+	 */
+	private static final class EvaluationTask extends RecursiveTask<Accumulator> {
+		private static final long serialVersionUID = 1L;
+
+		private final NeuralNetwork network;
+		private final double[][] input;
+		private final double[][] target;
+		private final int from;
+		private final int to;
+		private final int chunkSize;
+
+		private EvaluationTask(NeuralNetwork network, double[][] input, double[][] target, int from, int to,
+				int chunkSize) {
+			this.network = network;
+			this.input = input;
+			this.target = target;
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		protected Accumulator compute() {
+			if (to - from > chunkSize) {
+				int middle = (from + to) >>> 1;
+				EvaluationTask second = new EvaluationTask(network, input, target, middle, to, chunkSize);
+				second.fork();
+				Accumulator first = new EvaluationTask(network, input, target, from, middle, chunkSize).compute();
+				return first.merge(second.join());
+			}
+			int[] layerStruct = network.getLayerStruct();
+			Accumulator accumulator = new Accumulator(layerStruct[layerStruct.length - 1]);
+			double[][] output = network.runBatch(Arrays.copyOfRange(input, from, to));
+			for (int set = from; set < to; set++) {
+				accumulator.add(output[set - from], target[set]);
+			}
+			return accumulator;
+		}
+	}
+
+}
@@ -1,7 +1,11 @@
 package applications.mnist;
 
 import java.io.IOException;
+import java.util.Random;
 import applications.Application;
+import applications.EpochSampler;
+import applications.EvaluationResult;
+import applications.Evaluator;
 import networks.NeuralNetwork;
 
 /**
@@ -14,105 +18,86 @@ import networks.NeuralNetwork;
  * @see Application
  * @see NeuralNetwork
  * @see MnistFileReader
+ * @see MnistDataset
  * @see MnistDataVisualizer
  */
 public class Mnist extends Application {
 
-	private int offset;
-
 	/**
-	 * When loaded contain the test images downloaded from the Mnist website.
+	 * Directory holding the files downloaded from the Mnist website.
 	 */
-	private float[][] evaluationImagesF;
+	private static final String DIRECTORY = "src/applications/mnist/";
 	/**
-	 * When loaded contain the test images downloaded from the Mnist website.
+	 * Factor each pixel (0-255) is multiplied by when converted to double, 1
+	 * keeps the raw values as read by MnistFileReader.
 	 */
-	private double[][] evaluationImagesD;
+	private static final double PIXEL_SCALE = 1.0;
 
 	/**
-	 * When loaded contain the test labels downloaded from the Mnist website. Edited
-	 * so that each label is an array of size 10 and the the value at the index of
-	 * the correct number is 1.0 with the others being 0.0.
+	 * Seed of the order in which the training data is handed out.
 	 */
-	private float[][] evaluationLabelsF;
+	private final long seed;
 	/**
-	 * When loaded contain the test labels downloaded from the Mnist website. Edited
-	 * so that each label is an array of size 10 and the the value at the index of
-	 * the correct number is 1.0 with the others being 0.0.
+	 * Decides the order in which the training data is handed out, a new random
+	 * order every epoch. Created when the data is loaded.
 	 */
-	private double[][] evaluationLabelsD;
+	private EpochSampler sampler;
 
 	/**
-	 * When loaded contain the training images downloaded from the Mnist website.
+	 * When loaded contain the test images downloaded from the Mnist website.
 	 */
-	private float[][] trainingImagesF;
+	private double[][] evaluationImages;
+
 	/**
-	 * When loaded contain the training images downloaded from the Mnist website.
+	 * When loaded contain the test labels downloaded from the Mnist website. Edited
+	 * so that each label is an array of size 10 and the the value at the index of
+	 * the correct number is 1.0 with the others being 0.0.
 	 */
-	private double[][] trainingImagesD;
+	private double[][] evaluationLabels;
 
 	/**
-	 * When loaded contain the training labels downloaded from the Mnist website.
-	 * Edited so that each label is an array of size 10 and the the value at the
-	 * index of the correct number is 1.0 with the others being 0.0.
+	 * When loaded contain the training images and labels downloaded from the
+	 * Mnist website, kept as bytes and only converted to double when a batch of
+	 * training data is requested.
 	 */
-	private float[][] trainingLabelsF;
+	private MnistDataset trainingData;
+
 	/**
-	 * When loaded contain the training labels downloaded from the Mnist website.
-	 * Edited so that each label is an array of size 10 and the the value at the
-	 * index of the correct number is 1.0 with the others being 0.0.
+	 * Creates a Mnist Application handing out the training data in a random order
+	 * that differs between instances.
 	 */
-	private double[][] trainingLabelsD;
-
 	public Mnist() {
-		super.isDataLoaded = false;
-		offset = 0;
+		this(new Random().nextLong());
 	}
 
 	/**
-	 * Loads the data from the files downloaded from the Mnist website into the
-	 * float[][] above, and changes isDataLoaded to true.
+	 * Creates a Mnist Application handing out the training data in a random order
+	 * decided by seed, so that two instances with the same seed hand out the same
+	 * sets of training data in the same order.
+	 * 
+	 * @param seed seed of the order of the training data
 	 */
-	public void loadF() {
-		try {
-			MnistFileReader mnistFileReader = new MnistFileReader("src/mnist/TestImages.idx3-ubyte");
-			evaluationImagesF = mnistFileReader.readF();
-
-			mnistFileReader = new MnistFileReader("src/mnist/TestLabels.idx1-ubyte");
-			evaluationLabelsF = mnistFileReader.readF();
-
-			mnistFileReader = new MnistFileReader("src/mnist/TrainingImages.idx3-ubyte");
-			trainingImagesF = mnistFileReader.readF();
-
-			mnistFileReader = new MnistFileReader("src/mnist/TrainingLabels.idx1-ubyte");
-			trainingLabelsF = mnistFileReader.readF();
-
-			mnistFileReader = null;
-		} catch (SecurityException | IOException e) {
-			e.printStackTrace();
-		}
-		isDataLoaded = true;
+	public Mnist(long seed) {
+		super.isDataLoaded = false;
+		this.seed = seed;
 	}
 
 	/**
 	 * Loads the data from the files downloaded from the Mnist website into the
-	 * double[][] above, and changes isDataLoaded to true.
+	 * double[][] and the MnistDataset above, and changes isDataLoaded to true.
 	 */
-	public void loadD() {
+	protected void loadData() {
 		try {
-			MnistFileReader mnistFileReader = new MnistFileReader("src/applications/mnist/TestImages.idx3-ubyte");
-			evaluationImagesD = mnistFileReader.readD();
-
-			mnistFileReader = new MnistFileReader("src/applications/mnist/TestLabels.idx1-ubyte");
-			evaluationLabelsD = mnistFileReader.readD();
-
-			mnistFileReader = new MnistFileReader("src/applications/mnist/TrainingImages.idx3-ubyte");
-			trainingImagesD = mnistFileReader.readD();
-
-			mnistFileReader = new MnistFileReader("src/applications/mnist/TrainingLabels.idx1-ubyte");
-			trainingLabelsD = mnistFileReader.readD();
-
-			mnistFileReader = null;
+			MnistDataset evaluationData = new MnistDataset(DIRECTORY + "TestImages.idx3-ubyte",
+					DIRECTORY + "TestLabels.idx1-ubyte", PIXEL_SCALE);
+			evaluationImages = evaluationData.getImagesD();
+			evaluationLabels = evaluationData.getLabelsD();
+
+			if (trainingData == null) {
+				trainingData = new MnistDataset(DIRECTORY + "TrainingImages.idx3-ubyte",
+						DIRECTORY + "TrainingLabels.idx1-ubyte", PIXEL_SCALE);
+				sampler = new EpochSampler(trainingData.size(), seed);
+			}
 		} catch (SecurityException | IOException e) {
 			e.printStackTrace();
 		}
@@ -125,78 +110,47 @@ public class Mnist extends Application {
 	 * labels; second index corresponds to which set of trainingData; the images and
 	 * labels have been vectorized, so the thrid index corresponds to a specific
 	 * entry of the labe/image. The method returns the next nbrSets sets of training
-	 * data (it keeps track)
+	 * data, in a new random order every epoch (see EpochSampler)
 	 * 
 	 * @return The collection of training images & labels from Mnist (as read by
 	 *         MnistFileReader)
 	 * @throws IllegalCallerException if the data hasn't already been loaded
 	 */
-	public float[][][] getTrainingDataF(int nbrSets) {
+	public double[][][] getTrainingData(int nbrSets) {
 		if (!isDataLoaded) {
 			throw new IllegalCallerException(
 					"Data has not yet been Loaded, make sure the data is loaded before proceeding");
 		}
-		float[][][] trainingData = new float[2][nbrSets][1];
+		double[][][] batch = new double[2][nbrSets][];
 		for (int set = 0; set < nbrSets; set++) {
-			if (offset + set >= trainingLabelsF.length) {
-				offset = -1 * set;
-			}
-			trainingData[0][set] = trainingImagesF[offset + set];
-			trainingData[1][set] = trainingLabelsF[offset + set];
+			int index = sampler.next();
+			batch[0][set] = new double[trainingData.getImageSize()];
+			batch[1][set] = new double[MnistDataset.NBR_LABELS];
+			trainingData.copyImageD(index, batch[0][set]);
+			trainingData.copyLabelD(index, batch[1][set]);
 		}
-		offset += nbrSets;
-		return trainingData;
+		return batch;
 	}
 
 	/**
-	 * Returns a collection of nbrSets sets of trainig images and labels (downloaded
-	 * from the Mnist website) as a double[][][], first index: 0 for images 1 for
-	 * labels; second index corresponds to which set of trainingData; the images and
-	 * labels have been vectorized, so the thrid index corresponds to a specific
-	 * entry of the labe/image. The method returns the next nbrSets sets of training
-	 * data (it keeps track)
+	 * Writes the next input.length sets of training images and labels (in the
+	 * order given by the EpochSampler) into input and target, like
+	 * getTrainingData but without allocating.
 	 * 
-	 * @return The collection of training images & labels from Mnist (as read by
-	 *         MnistFileReader)
+	 * @param input  arrays of length 784 to write the images into
+	 * @param target arrays of length 10 to write the labels into
 	 * @throws IllegalCallerException if the data hasn't already been loaded
 	 */
-	public double[][][] getTrainingDataD(int nbrSets) {
+	public void fillTrainingData(double[][] input, double[][] target) {
 		if (!isDataLoaded) {
 			throw new IllegalCallerException(
 					"Data has not yet been Loaded, make sure the data is loaded before proceeding");
 		}
-		double[][][] trainingData = new double[2][nbrSets][1];
-		for (int set = 0; set < nbrSets; set++) {
-			if (offset + set >= trainingLabelsD.length) {
-				offset = -1 * set;
-			}
-			trainingData[0][set] = trainingImagesD[offset + set];
-			trainingData[1][set] = trainingLabelsD[offset + set];
-		}
-		offset += nbrSets;
-		return trainingData;
-	}
-
-	/**
-	 * Returns the collection of Evaluation images and labels (downloaded from the
-	 * Mnist website) as a float[][][], first index: 0 for images 1 for labels;
-	 * second index corresponds to which set of evaluationData; the images and
-	 * labels have been vectorized, so the thrid index corresponds to a specific
-	 * entry of the labe/image.
-	 * 
-	 * @return The collection of evaluation images & labels from Mnist (as read by
-	 *         MnistFileReader)
-	 * @throws IllegalCallerException if the data hasn't already been loaded
-	 */
-	public float[][][] getEvaluationDataF() {
-		if (!isDataLoaded) {
-			throw new IllegalCallerException(
-					"Data has not yet been Loaded, make sure the data is loaded before proceeding");
+		for (int set = 0; set < input.length; set++) {
+			int index = sampler.next();
+			trainingData.copyImageD(index, input[set]);
+			trainingData.copyLabelD(index, target[set]);
 		}
-		float[][][] evaluationData = new float[2][1][1];
-		evaluationData[0] = evaluationImagesF;
-		evaluationData[1] = evaluationLabelsF;
-		return evaluationData;
 	}
 
 	/**
@@ -210,59 +164,17 @@ public class Mnist extends Application {
 	 *         MnistFileReader)
 	 * @throws IllegalCallerException if the data hasn't already been loaded
 	 */
-	public double[][][] getEvaluationDataD() {
+	public double[][][] getEvaluationData() {
 		if (!isDataLoaded) {
 			throw new IllegalCallerException(
 					"Data has not yet been Loaded, make sure the data is loaded before proceeding");
 		}
 		double[][][] evaluationData = new double[2][1][1];
-		evaluationData[0] = evaluationImagesD;
-		evaluationData[1] = evaluationLabelsD;
+		evaluationData[0] = evaluationImages;
+		evaluationData[1] = evaluationLabels;
 		return evaluationData;
 	}
 
-	/**
-	 * Tests a NeuralNetwork using the Evaluation data and returns a String
-	 * containing the results of the diagnostic.
-	 * 
-	 * @param network the NeuralNetwork to run the diagnostic on
-	 * @return a String containing the results of the diagnostic
-	 * @throws IllegalCallerException if the data hasn't already been loaded
-	 */
-	public String runDiagnosticF(NeuralNetwork network) {
-		if (!isDataLoaded) {
-			throw new IllegalCallerException(
-					"Data has not yet been Loaded, make sure the data is loaded before proceeding");
-		}
-		StringBuilder sb = new StringBuilder();
-		float[] result;
-		float meanError = 0;
-		for (int i = 0; i < evaluationImagesF.length; i++) {
-			result = network.run(evaluationImagesF[i]);
-			for (int j = 0; j < result.length; j++) {
-				meanError += Math.abs(result[j] - evaluationLabelsF[i][j]);
-			}
-
-		}
-		meanError /= evaluationLabelsF.length;
-		sb.append("Mean Error: " + meanError + System.lineSeparator());
-		sb.append("Index:   Target:   Output:" + System.lineSeparator());
-		int randomIndex = (int) (Math.random() * evaluationImagesF.length);
-		result = network.run(evaluationImagesF[randomIndex]);
-		for (int i = 0; i < 10; i++) {
-			sb.append("  " + i + "        " + evaluationLabelsF[randomIndex][i] + "       " + result[i]
-					+ System.lineSeparator());
-		}
-
-		float[][] randomTestImage = new float[1][1];
-		float[][] randomTestLabel = new float[1][1];
-		randomTestImage[0] = evaluationImagesF[randomIndex];
-		randomTestLabel[0] = evaluationLabelsF[randomIndex];
-		// new MnistDataVisualizer(randomTestImage, randomTestLabel);
-
-		return sb.toString();
-	}
-
 	/**
 	 * Evaluates a NeuralNetwork using the Evaluation data and returns a String
 	 * containing the results of the diagnostic.
@@ -271,38 +183,23 @@ public class Mnist extends Application {
 	 * @return a String containing the results of the diagnostic
 	 * @throws IllegalCallerException if the data hasn't already been loaded
 	 */
-	public String runDiagnosticD(NeuralNetwork network) {
+	public String runDiagnostic(NeuralNetwork network) {
 		if (!isDataLoaded) {
 			throw new IllegalCallerException(
 					"Data has not yet been Loaded, make sure the data is loaded before proceeding");
 		}
-
 		StringBuilder sb = new StringBuilder();
-		double[] result;
-		double meanError = 0.0;
-		for (int i = 0; i < evaluationImagesD.length; i++) {
-			result = network.run(evaluationImagesD[i]);
-			for (int j = 0; j < result.length; j++) {
-				meanError += Math.abs(result[j] - evaluationLabelsD[i][j]);
-			}
-
-		}
-		meanError /= evaluationLabelsD.length;
-		sb.append("Mean Error: " + meanError + System.lineSeparator());
+		EvaluationResult evaluation = Evaluator.evaluate(network, evaluationImages, evaluationLabels);
+		sb.append("Mean Error: " + evaluation.getMeanAbsoluteError() + System.lineSeparator());
+		sb.append(evaluation);
 		sb.append("Index:   Target:   Output:" + System.lineSeparator());
-		int randomIndex = (int) (Math.random() * evaluationImagesD.length);
-		result = network.run(evaluationImagesD[randomIndex]);
+		int randomIndex = (int) (Math.random() * evaluationImages.length);
+		double[] result = network.run(evaluationImages[randomIndex]);
 		for (int i = 0; i < 10; i++) {
-			sb.append("  " + i + "        " + evaluationLabelsD[randomIndex][i] + "       " + result[i]
+			sb.append("  " + i + "        " + evaluationLabels[randomIndex][i] + "       " + result[i]
 					+ System.lineSeparator());
 		}
 
-		double[][] randomTestImage = new double[1][1];
-		double[][] randomTestLabel = new double[1][1];
-		randomTestImage[0] = evaluationImagesD[randomIndex];
-		randomTestLabel[0] = evaluationLabelsD[randomIndex];
-		new MnistDataVisualizer(randomTestImage, randomTestLabel);
-
 		return sb.toString();
 	}
 
@@ -315,54 +212,7 @@ public class Mnist extends Application {
 	 * @return a String containing the results of the diagnostic
 	 * @throws IllegalCallerException if the data hasn't already been loaded
 	 */
-	public String runQuickDiagnosticF(NeuralNetwork network) {
-		if (!isDataLoaded) {
-			throw new IllegalCallerException(
-					"Data has not yet been Loaded, make sure the data is loaded before proceeding");
-		}
-
-		StringBuilder main = new StringBuilder("==QuickDiagnostic==");
-		StringBuilder info = new StringBuilder("  Overview:" + System.lineSeparator());
-		StringBuilder evaluatedSets = new StringBuilder("  Evaluated Sets:" + System.lineSeparator());
-
-		float meanError = 0.0f;
-		float[][] results = new float[10][1];
-		float[][] displayImages = new float[10][1];
-		float[][] displayLabels = new float[10][1];
-
-		for (int set = 0; set < 10; set++) {
-			results[set] = network.run(evaluationImagesF[set]);
-			evaluatedSets.append("    Set " + set + ": Index:  Target:  Output:" + System.lineSeparator());
-			for (int i = 0; i < results[set].length; i++) {
-				meanError += Math.abs(results[set][i] - evaluationLabelsF[set][i]) / 10;
-
-				evaluatedSets.append("           " + i + "       " + evaluationLabelsF[set][i] + "      "
-						+ results[set][i] + System.lineSeparator());
-			}
-			displayImages[set] = evaluationImagesF[set];
-			displayLabels[set] = evaluationLabelsF[set];
-		}
-
-		// new MnistDataVisualizer(displayImages, displayLabels, results);
-
-		info.append("  Info:" + System.lineSeparator());
-		info.append("    Mean Error: " + meanError + System.lineSeparator());
-
-		main.append(info);
-		main.append(evaluatedSets);
-		return main.toString();
-	}
-
-	/**
-	 * Evaluates a NeuralNetwork using the Evaluation data and returns a String
-	 * containing the results of the diagnostic. Might be more usefull for large
-	 * Applications where a regular diagnostic may be slow.
-	 * 
-	 * @param network the NeuralNetwork to run the diagnostic on
-	 * @return a String containing the results of the diagnostic
-	 * @throws IllegalCallerException if the data hasn't already been loaded
-	 */
-	public String runQuickDiagnosticD(NeuralNetwork network) {
+	public String runQuickDiagnostic(NeuralNetwork network) {
 		if (!isDataLoaded) {
 			throw new IllegalCallerException(
 					"Data has not yet been Loaded, make sure the data is loaded before proceeding");
@@ -378,16 +228,16 @@ public class Mnist extends Application {
 		double[][] displayLabels = new double[10][1];
 
 		for (int set = 0; set < 10; set++) {
-			results[set] = network.run(evaluationImagesD[set]);
+			results[set] = network.run(evaluationImages[set]);
 			evaluatedSets.append("  Set " + set + ": Index:  Target:  Output:" + System.lineSeparator());
 			for (int i = 0; i < results[set].length; i++) {
-				meanError += Math.abs(results[set][i] - evaluationLabelsD[set][i]) / 10;
+				meanError += Math.abs(results[set][i] - evaluationLabels[set][i]) / 10;
 
-				evaluatedSets.append("         " + i + "       " + evaluationLabelsD[set][i] + "      "
+				evaluatedSets.append("         " + i + "       " + evaluationLabels[set][i] + "      "
 						+ results[set][i] + System.lineSeparator());
 			}
-			displayImages[set] = evaluationImagesD[set];
-			displayLabels[set] = evaluationLabelsD[set];
+			displayImages[set] = evaluationImages[set];
+			displayLabels[set] = evaluationLabels[set];
 		}
 
 		new MnistDataVisualizer(displayImages, displayLabels, results);
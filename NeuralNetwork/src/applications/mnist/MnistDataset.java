@@ -0,0 +1,144 @@
+package applications.mnist;
+
+import java.io.IOException;
+
+/**
+ * A set of Mnist images and their labels kept as they are stored in the files,
+ * one byte per pixel and one byte per label, which is 8 times less memory than
+ * keeping the images as double[][]. Pixels are only converted to double, and
+ * multiplied by scale, when they are copied into the arrays of a batch.
+ * 
+ * @author OdinhengeT
+ * @see Mnist
+ * @see MnistFileReader
+ */
+public class MnistDataset {
+
+	/**
+	 * Number of different labels (the digits 0-9), and thus the length of a
+	 * vectorized label.
+	 */
+	public static final int NBR_LABELS = 10;
+
+	/**
+	 * All images one after another, imageSize unsigned bytes each.
+	 */
+	private final byte[] images;
+	/**
+	 * The digit shown by each image.
+	 */
+	private final byte[] labels;
+	private final int nbrItems;
+	private final int imageSize;
+	/**
+	 * Factor each pixel (0-255) is multiplied by when converted.
+	 */
+	private final double scale;
+
+	/**
+	 * Creates a MnistDataset from an idx3-ubyte file of images and an idx1-ubyte
+	 * file of labels.
+	 * 
+	 * @param imageFile name of the file of images
+	 * @param labelFile name of the file of labels
+	 * @param scale     factor each pixel (0-255) is multiplied by when converted
+	 * @throws IOException              if thrown by MnistFileReader
+	 * @throws IllegalArgumentException if the files aren't Mnist files, or don't
+	 *                                  hold the same number of items
+	 */
+	public MnistDataset(String imageFile, String labelFile, double scale) throws IOException {
+		MnistFileReader imageReader = new MnistFileReader(imageFile);
+		MnistFileReader labelReader = new MnistFileReader(labelFile);
+		if (imageReader.getNbrItems() != labelReader.getNbrItems() || labelReader.getItemSize() != 1) {
+			throw new IllegalArgumentException(imageFile + " and " + labelFile + " don't match");
+		}
+		this.images = imageReader.readBytes();
+		this.labels = labelReader.readBytes();
+		this.nbrItems = imageReader.getNbrItems();
+		this.imageSize = imageReader.getItemSize();
+		this.scale = scale;
+	}
+
+	/**
+	 * Returns the number of images in the dataset.
+	 * 
+	 * @return this.nbrItems
+	 */
+	public int size() {
+		return nbrItems;
+	}
+
+	/**
+	 * Returns the number of pixels per image.
+	 * 
+	 * @return this.imageSize
+	 */
+	public int getImageSize() {
+		return imageSize;
+	}
+
+	/**
+	 * Returns the digit shown by the image at index.
+	 * 
+	 * @param index index of the image
+	 * @return a digit 0-9
+	 */
+	public int getLabel(int index) {
+		return labels[index];
+	}
+
+	/**
+	 * Converts the image at index into destination, scaling each pixel.
+	 * 
+	 * @param index       index of the image
+	 * @param destination array of length at least getImageSize()
+	 */
+	public void copyImageD(int index, double[] destination) {
+		int offset = index * imageSize;
+		for (int pixel = 0; pixel < imageSize; pixel++) {
+			destination[pixel] = (images[offset + pixel] & 0xFF) * scale;
+		}
+	}
+
+	/**
+	 * Writes the label of the image at index into destination as a vector where
+	 * the value at the index of the digit is 1.0 and the others are 0.0.
+	 * 
+	 * @param index       index of the image
+	 * @param destination array of length at least NBR_LABELS
+	 */
+	public void copyLabelD(int index, double[] destination) {
+		for (int digit = 0; digit < NBR_LABELS; digit++) {
+			destination[digit] = 0.0;
+		}
+		destination[labels[index]] = 1.0;
+	}
+
+	/**
+	 * Converts every image into a new double[][], as MnistFileReader.readD() does
+	 * (but scaled).
+	 * 
+	 * @return a double[size()][getImageSize()] of all images
+	 */
+	public double[][] getImagesD() {
+		double[][] result = new double[nbrItems][imageSize];
+		for (int index = 0; index < nbrItems; index++) {
+			copyImageD(index, result[index]);
+		}
+		return result;
+	}
+
+	/**
+	 * Converts every label into a new double[][] of vectorized labels.
+	 * 
+	 * @return a double[size()][NBR_LABELS] of all labels
+	 */
+	public double[][] getLabelsD() {
+		double[][] result = new double[nbrItems][NBR_LABELS];
+		for (int index = 0; index < nbrItems; index++) {
+			result[index][labels[index]] = 1.0;
+		}
+		return result;
+	}
+
+}
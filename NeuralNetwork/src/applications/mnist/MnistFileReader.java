@@ -1,9 +1,13 @@
 package applications.mnist;
 
-import java.io.DataInputStream;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * This is a class that reads the idx1-ubyte/idx3-ubyte files that can be
@@ -11,6 +15,10 @@ import java.io.IOException;
  * returns them as float[][] or double[][], where the
  * first index represents the set of training data and the second index
  * represents which part of that data.
+ * <p>
+ * The file is memory mapped and decoded one whole item (image or label) at a
+ * time, so reading is bounded by the speed of the disk rather than by a call
+ * per byte.
  * 
  * @author OdinhengeT
  * @see Mnist
@@ -21,94 +29,187 @@ import java.io.IOException;
 
 public class MnistFileReader {
 
-	private int nbrItems;
-	private byte nbrDimensions;
-	private DataInputStream dataInputStream;
+	/**
+	 * Type code of unsigned bytes, the third byte of the magic number of all
+	 * files in the Mnist dataset.
+	 */
+	private static final byte UNSIGNED_BYTE = 0x08;
+	/**
+	 * Number of different labels (the digits 0-9).
+	 */
+	private static final int NBR_LABELS = 10;
+
+	private final int nbrItems;
+	private final byte nbrDimensions;
+	/**
+	 * Number of bytes per item, 1 for labels and rows * columns for images.
+	 */
+	private final int itemSize;
+	/**
+	 * The mapped file, positioned at the first item.
+	 */
+	private final ByteBuffer data;
 
 	/**
-	 * Creates a MnistFileReader object.
+	 * Creates a MnistFileReader object, memory mapping the file and reading its
+	 * header.
 	 * 
 	 * @param fileName name of file wished to have read
-	 * @throws FileNotFoundException if the file was not found
-	 * @throws SecurityException     if thrown by FileInputStream or dataInputStream
-	 * @throws IOException           if thrown by FileInputStream or dataInputStream
+	 * @throws FileNotFoundException    if the file was not found
+	 * @throws SecurityException        if thrown by FileChannel
+	 * @throws IOException              if thrown by FileChannel
+	 * @throws IllegalArgumentException if the file isn't an idx1-ubyte or
+	 *                                  idx3-ubyte file, if a size in its header
+	 *                                  isn't positive, or if it is shorter than
+	 *                                  its header says
 	 */
 	public MnistFileReader(String fileName) throws SecurityException, IOException {
-		dataInputStream = new DataInputStream(new FileInputStream(fileName));
-		dataInputStream.skipBytes(3);
-		nbrDimensions = dataInputStream.readByte();
-		nbrItems = dataInputStream.readInt();
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (NoSuchFileException e) {
+			throw new FileNotFoundException(fileName);
+		}
+		if (mapped.remaining() < 8 || mapped.get() != 0 || mapped.get() != 0 || mapped.get() != UNSIGNED_BYTE) {
+			throw new IllegalArgumentException(fileName + " is not an idx-ubyte file");
+		}
+		nbrDimensions = mapped.get();
+		if (nbrDimensions != 1 && nbrDimensions != 3) {
+			throw new IllegalArgumentException(
+					"The Mnist dataset only contain files of type idx1-ubyte or idx3-ubyte, to read idx" + nbrDimensions
+							+ "-ubyte files, please use another FileReader.");
+		}
+		// The magic number is followed by one size per dimension
+		if (mapped.remaining() < Integer.BYTES * nbrDimensions) {
+			throw new IllegalArgumentException(fileName + " is shorter than its header says");
+		}
+		nbrItems = mapped.getInt();
+		if (nbrItems <= 0) {
+			throw new IllegalArgumentException(fileName + " holds " + nbrItems + " items");
+		}
+		long size = 1;
+		if (nbrDimensions == 3) {
+			int nbrRows = mapped.getInt();
+			int nbrColumns = mapped.getInt();
+			if (nbrRows <= 0 || nbrColumns <= 0) {
+				throw new IllegalArgumentException(
+						fileName + " has images of " + nbrRows + "x" + nbrColumns + " pixels");
+			}
+			size = (long) nbrRows * nbrColumns;
+		}
+		// size fits in an int once it is checked, so the product can't overflow
+		if (size > mapped.remaining() || nbrItems * size > mapped.remaining()) {
+			throw new IllegalArgumentException(fileName + " is shorter than its header says");
+		}
+		itemSize = (int) size;
+		data = mapped;
 	}
 
 	/**
 	 * Returns the data in the file as a float[][] where the first index corresponds
 	 * to which "item" it is and the second index corresponds to which instance of
-	 * data it is in that item. NOTE: Can only be called once, and then closes the
-	 * dataInputStream.
+	 * data it is in that item. Labels are returned as arrays of size 10 where the
+	 * value at the index of the label is 1.0 and the others are 0.0.
 	 * 
 	 * @return a float[][] containing the data from the file
-	 * @throws IOException              if thrown by dataInputStream
-	 * @throws IllegalArgumentException if the file isn't an idx1-ubyte or
-	 *                                  idx3-ubyte file.
+	 * @throws IllegalArgumentException if a label isn't a digit
 	 */
-	public float[][] readF() throws IOException {
+	public float[][] readF() {
+		ByteBuffer items = data.duplicate();
 		float[][] result;
 		if (nbrDimensions == 1) {
-			result = new float[nbrItems][10];
+			result = new float[nbrItems][NBR_LABELS];
 			for (int i = 0; i < nbrItems; i++) {
-				result[i][dataInputStream.readByte()] = 1.0f;
+				result[i][checkLabel(items.get())] = 1.0f;
 			}
-		} else if (nbrDimensions == 3) {
-			result = new float[nbrItems][dataInputStream.readInt() * dataInputStream.readInt()];
-			System.out.println(result[0].length);
+		} else {
+			result = new float[nbrItems][itemSize];
+			byte[] item = new byte[itemSize];
 			for (int i = 0; i < nbrItems; i++) {
-				for (int j = 0; j < result[0].length; j++) {
-					result[i][j] = (float) dataInputStream.readUnsignedByte();
+				items.get(item);
+				float[] image = result[i];
+				for (int j = 0; j < itemSize; j++) {
+					image[j] = item[j] & 0xFF;
 				}
 			}
-		} else {
-			throw new IllegalArgumentException(
-					"The Mnist dataset only contain files of type idx1-ubyte or idx3-ubyte, to read idx" + nbrDimensions
-							+ "-ubyte files, please use another FileReader.");
 		}
-
-		dataInputStream.close();
 		return result;
 	}
 
 	/**
 	 * Returns the data in the file as a double[][] where the first index corresponds
 	 * to which "item" it is and the second index corresponds to which instance of
-	 * data it is in that item. NOTE: Can only be called once, and then closes the
-	 * dataInputStream.
+	 * data it is in that item. Labels are returned as arrays of size 10 where the
+	 * value at the index of the label is 1.0 and the others are 0.0.
 	 * 
 	 * @return a double[][] containing the data from the file
-	 * @throws IOException              if thrown by dataInputStream
-	 * @throws IllegalArgumentException if the file isn't an idx1-ubyte or
-	 *                                  idx3-ubyte file.
+	 * @throws IllegalArgumentException if a label isn't a digit
 	 */
-	public double[][] readD() throws IOException {
+	public double[][] readD() {
+		ByteBuffer items = data.duplicate();
 		double[][] result;
 		if (nbrDimensions == 1) {
-			result = new double[nbrItems][10];
+			result = new double[nbrItems][NBR_LABELS];
 			for (int i = 0; i < nbrItems; i++) {
-				result[i][dataInputStream.readByte()] = 1.0;
+				result[i][checkLabel(items.get())] = 1.0;
 			}
-		} else if (nbrDimensions == 3) {
-			result = new double[nbrItems][dataInputStream.readInt() * dataInputStream.readInt()];
+		} else {
+			result = new double[nbrItems][itemSize];
+			byte[] item = new byte[itemSize];
 			for (int i = 0; i < nbrItems; i++) {
-				for (int j = 0; j < result[0].length; j++) {
-					result[i][j] = (double) dataInputStream.readUnsignedByte();
+				items.get(item);
+				double[] image = result[i];
+				for (int j = 0; j < itemSize; j++) {
+					image[j] = item[j] & 0xFF;
 				}
 			}
-		} else {
-			throw new IllegalArgumentException(
-					"The Mnist dataset only contain files of type idx1-ubyte or idx3-ubyte, to read idx" + nbrDimensions
-							+ "-ubyte files, please use another FileReader.");
 		}
+		return result;
+	}
 
-		dataInputStream.close();
+	/**
+	 * Returns the data in the file as it is stored, one byte per pixel or label,
+	 * with the items one after another. Pixels are unsigned (use & 0xFF), labels
+	 * are the digits themselves.
+	 * 
+	 * @return a byte[] of length getNbrItems() * getItemSize()
+	 * @throws IllegalArgumentException if a label isn't a digit
+	 */
+	public byte[] readBytes() {
+		byte[] result = new byte[nbrItems * itemSize];
+		data.duplicate().get(result);
+		if (nbrDimensions == 1) {
+			for (byte label : result) {
+				checkLabel(label);
+			}
+		}
 		return result;
 	}
 
+	/**
+	 * Returns the number of items (images or labels) in the file.
+	 * 
+	 * @return this.nbrItems
+	 */
+	public int getNbrItems() {
+		return nbrItems;
+	}
+
+	/**
+	 * Returns the number of bytes per item, 1 for labels and rows * columns for
+	 * images.
+	 * 
+	 * @return this.itemSize
+	 */
+	public int getItemSize() {
+		return itemSize;
+	}
+
+	private static int checkLabel(byte label) {
+		if (label < 0 || label >= NBR_LABELS) {
+			throw new IllegalArgumentException("Found label " + label + ", expected a digit");
+		}
+		return label;
+	}
+
 }
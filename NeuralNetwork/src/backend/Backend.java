@@ -0,0 +1,465 @@
+package backend;
+
+import java.util.concurrent.ForkJoinPool;
+
+import layers.Activation;
+
+/**
+ * The kernels a Layer and a TensorNetwork are computed with, implemented once
+ * per precision (FloatBackend and DoubleBackend) so that the layers and the
+ * network only exist once and the precision of a network is chosen when it is
+ * created instead of by its class. Every kernel works on Tensors created by
+ * the same Backend, matrices being stored in row-major order with one column
+ * per set of data, and none of them allocates.
+ * <p>
+ * A Backend has no state, so one instance per precision is shared by every
+ * network and thread. Besides the scalar FloatBackend and DoubleBackend there
+ * may be vectorized ones working on the same Tensors, see preferred.
+ * 
+ * @author OdinhengeT
+ * @see FloatBackend
+ * @see DoubleBackend
+ * @see Tensor
+ */
+public interface Backend {
+
+	/**
+	 * Returns the Backend of the given basic calculation unit.
+	 * 
+	 * @param basicCalculationUnit 'f' for float or 'd' for double
+	 * @return FloatBackend.INSTANCE or DoubleBackend.INSTANCE
+	 * @throws IllegalArgumentException if basicCalculationUnit is neither 'f' nor
+	 *                                  'd'
+	 */
+	public static Backend of(char basicCalculationUnit) {
+		if (basicCalculationUnit == 'f') {
+			return FloatBackend.INSTANCE;
+		} else if (basicCalculationUnit == 'd') {
+			return DoubleBackend.INSTANCE;
+		} else {
+			throw new IllegalArgumentException("Unknown basic calculation unit: " + basicCalculationUnit);
+		}
+	}
+
+	/**
+	 * Returns the fastest Backend available for the given basic calculation unit:
+	 * the one built on the Vector API (VectorFloatBackend or VectorDoubleBackend)
+	 * if it was compiled and the JVM was started with --add-modules
+	 * jdk.incubator.vector, otherwise the same Backend as of. Either works on the
+	 * same Tensors.
+	 * 
+	 * @param basicCalculationUnit 'f' for float or 'd' for double
+	 * @return the vectorized Backend if available, else of(basicCalculationUnit)
+	 * @throws IllegalArgumentException if basicCalculationUnit is neither 'f' nor
+	 *                                  'd'
+	 */
+	public static Backend preferred(char basicCalculationUnit) {
+		Backend vectorized = basicCalculationUnit == 'f' ? VectorBackends.FLOAT
+				: basicCalculationUnit == 'd' ? VectorBackends.DOUBLE : null;
+		return vectorized != null ? vectorized : of(basicCalculationUnit);
+	}
+
+	/**
+	 * Returns the basic calculation unit of the Tensors of this Backend.
+	 * 
+	 * @return 'f' for float or 'd' for double
+	 */
+	public abstract char getBasicCalculationUnit();
+
+	/**
+	 * Creates a Tensor of size zeros.
+	 * 
+	 * @param size number of elements
+	 * @return a new Tensor of this Backend
+	 */
+	public abstract Tensor allocate(int size);
+
+	/**
+	 * Multiplies the rows x inner matrix m1 with the inner x cols matrix m2 and
+	 * writes the rows x cols result into result, overwriting it.
+	 * 
+	 * @param m1     "matrix" of size rows x inner
+	 * @param m2     "matrix" of size inner x cols
+	 * @param result receives m1 * m2
+	 * @param rows   number of rows of m1
+	 * @param inner  number of columns of m1 and rows of m2
+	 * @param cols   number of columns of m2
+	 * @throws IllegalArgumentException if any Tensor is too small for the given
+	 *                                  dimensions
+	 */
+	public abstract void gemm(Tensor m1, Tensor m2, Tensor result, int rows, int inner, int cols);
+
+	/**
+	 * Multiplies m1 with m2 like gemm, but splits result into blocks of rows and
+	 * columns computed on the threads of pool when the product has at least
+	 * MatrixOperations.PARALLEL_THRESHOLD multiply-adds (see
+	 * MatrixOperations.forEachBlock). Smaller products are computed on the
+	 * calling thread, as are all products if pool is null.
+	 * 
+	 * @param m1     "matrix" of size rows x inner
+	 * @param m2     "matrix" of size inner x cols
+	 * @param result receives m1 * m2
+	 * @param rows   number of rows of m1
+	 * @param inner  number of columns of m1 and rows of m2
+	 * @param cols   number of columns of m2
+	 * @param pool   the ForkJoinPool to compute on, or null
+	 * @throws IllegalArgumentException if any Tensor is too small for the given
+	 *                                  dimensions
+	 */
+	public abstract void gemm(Tensor m1, Tensor m2, Tensor result, int rows, int inner, int cols, ForkJoinPool pool);
+
+	/**
+	 * Multiplies the transpose of the inner x rows matrix m1 with the inner x
+	 * cols matrix m2 and writes the rows x cols result into result, overwriting
+	 * it. No transposed copy of m1 is made.
+	 * 
+	 * @param m1     "matrix" of size inner x rows
+	 * @param m2     "matrix" of size inner x cols
+	 * @param result receives transpose(m1) * m2
+	 * @param rows   number of columns of m1
+	 * @param inner  number of rows of m1 and m2
+	 * @param cols   number of columns of m2
+	 * @throws IllegalArgumentException if any Tensor is too small for the given
+	 *                                  dimensions
+	 */
+	public abstract void gemmTransposeM1(Tensor m1, Tensor m2, Tensor result, int rows, int inner, int cols);
+
+	/**
+	 * Multiplies the rows x inner matrix m1 with the transpose of the cols x
+	 * inner matrix m2 and writes the rows x cols result into result, overwriting
+	 * it. No transposed copy of m2 is made.
+	 * 
+	 * @param m1     "matrix" of size rows x inner
+	 * @param m2     "matrix" of size cols x inner
+	 * @param result receives m1 * transpose(m2)
+	 * @param rows   number of rows of m1
+	 * @param inner  number of columns of m1 and m2
+	 * @param cols   number of rows of m2
+	 * @throws IllegalArgumentException if any Tensor is too small for the given
+	 *                                  dimensions
+	 */
+	public abstract void gemmTransposeM2(Tensor m1, Tensor m2, Tensor result, int rows, int inner, int cols);
+
+	/**
+	 * Multiplies m1, or its transpose if transposeM1, with m2, or its transpose if
+	 * transposeM2, and writes the rows x cols result into result, overwriting it.
+	 * The same as gemm, gemmTransposeM1 or gemmTransposeM2 for the first three
+	 * combinations of flags, so the backward pass of a layer can be written with
+	 * the same call as its forward pass. No transposed copy is made.
+	 * 
+	 * @param transposeM1 if m1 is stored as an inner x rows matrix to be
+	 *                    transposed
+	 * @param transposeM2 if m2 is stored as a cols x inner matrix to be
+	 *                    transposed
+	 * @param m1          "matrix" of size rows x inner, or inner x rows
+	 * @param m2          "matrix" of size inner x cols, or cols x inner
+	 * @param result      receives the rows x cols product
+	 * @param rows        number of rows of the product
+	 * @param inner       length of the dot-products
+	 * @param cols        number of columns of the product
+	 * @throws IllegalArgumentException if any Tensor is too small for the given
+	 *                                  dimensions
+	 */
+	public abstract void gemm(boolean transposeM1, boolean transposeM2, Tensor m1, Tensor m2, Tensor result, int rows,
+			int inner, int cols);
+
+	/**
+	 * Adds alpha times the outer product of the vectors x and y to the rows x cols
+	 * matrix m in place, as m += alpha * x * transpose(y).
+	 * 
+	 * @param alpha factor to scale the outer product with
+	 * @param x     vector of length rows
+	 * @param y     vector of length cols
+	 * @param m     "matrix" of size rows x cols to add to
+	 * @param rows  number of rows of m
+	 * @param cols  number of columns of m
+	 * @throws IllegalArgumentException if any Tensor is too small for the given
+	 *                                  dimensions
+	 */
+	public abstract void ger(double alpha, Tensor x, Tensor y, Tensor m, int rows, int cols);
+
+	/**
+	 * Multiplies the rows x cols matrix m with the vector v and adds bias,
+	 * writing m * v + bias into result.
+	 * 
+	 * @param m      "matrix" of size rows x cols
+	 * @param v      vector of length cols
+	 * @param bias   vector of length rows, or null to only compute m * v
+	 * @param result vector of length rows receiving m * v + bias
+	 * @param rows   number of rows of m
+	 * @param cols   number of columns of m
+	 * @throws IllegalArgumentException if any Tensor is too small for the given
+	 *                                  dimensions
+	 */
+	public abstract void gemv(Tensor m, Tensor v, Tensor bias, Tensor result, int rows, int cols);
+
+	/**
+	 * Multiplies m with v and adds bias like gemv, but splits the rows between the
+	 * threads of pool when the product has at least
+	 * MatrixOperations.PARALLEL_THRESHOLD multiply-adds. Smaller products are
+	 * computed on the calling thread, as are all products if pool is null.
+	 * 
+	 * @param m      "matrix" of size rows x cols
+	 * @param v      vector of length cols
+	 * @param bias   vector of length rows, or null to only compute m * v
+	 * @param result vector of length rows receiving m * v + bias
+	 * @param rows   number of rows of m
+	 * @param cols   number of columns of m
+	 * @param pool   the ForkJoinPool to compute on, or null
+	 * @throws IllegalArgumentException if any Tensor is too small for the given
+	 *                                  dimensions
+	 */
+	public abstract void gemv(Tensor m, Tensor v, Tensor bias, Tensor result, int rows, int cols, ForkJoinPool pool);
+
+	/**
+	 * Computes function(m1 * m2 + bias) into result, bias being added to every
+	 * column, as one kernel: the bias is added and the activation function applied
+	 * to each part of result as soon as it has been computed, while it is still in
+	 * cache, instead of in two more passes over result. Functions that are not
+	 * elementwise (SOFTMAX) are applied after the product. Split between the
+	 * threads of pool like gemm.
+	 * 
+	 * @param function activation function to apply, or null to only add bias
+	 * @param m1       "matrix" of size rows x inner
+	 * @param m2       "matrix" of size inner x cols
+	 * @param bias     vector of length rows, or null to add no bias
+	 * @param result   receives function(m1 * m2 + bias)
+	 * @param rows     number of rows of m1
+	 * @param inner    number of columns of m1 and rows of m2
+	 * @param cols     number of columns of m2
+	 * @param pool     the ForkJoinPool to compute on, or null
+	 * @throws IllegalArgumentException if any Tensor is too small for the given
+	 *                                  dimensions
+	 */
+	public abstract void gemmActivate(Activation function, Tensor m1, Tensor m2, Tensor bias, Tensor result, int rows,
+			int inner, int cols, ForkJoinPool pool);
+
+	/**
+	 * Computes function(m1 * m2 + bias) into result like gemmActivate, m1 and bias
+	 * starting at the given offsets instead of at 0, so that both can be slices of
+	 * one buffer holding the parameters of a whole network.
+	 * 
+	 * @param function   activation function to apply, or null to only add bias
+	 * @param m1         Tensor holding a "matrix" of size rows x inner
+	 * @param m1Offset   index of the first element of the matrix in m1
+	 * @param m2         "matrix" of size inner x cols
+	 * @param bias       Tensor holding a vector of length rows, or null to add no
+	 *                   bias
+	 * @param biasOffset index of the first element of the vector in bias
+	 * @param result     receives function(m1 * m2 + bias)
+	 * @param rows       number of rows of m1
+	 * @param inner      number of columns of m1 and rows of m2
+	 * @param cols       number of columns of m2
+	 * @param pool       the ForkJoinPool to compute on, or null
+	 * @throws IllegalArgumentException if an offset is negative or any Tensor is
+	 *                                  too small for the given dimensions
+	 */
+	public abstract void gemmActivate(Activation function, Tensor m1, int m1Offset, Tensor m2, Tensor bias,
+			int biasOffset, Tensor result, int rows, int inner, int cols, ForkJoinPool pool);
+
+	/**
+	 * Computes function(m * v + bias) into result as one kernel, each value being
+	 * activated before it is stored. Functions that are not elementwise (SOFTMAX)
+	 * are applied after the product. Split between the threads of pool like gemv.
+	 * 
+	 * @param function activation function to apply, or null to only add bias
+	 * @param m        "matrix" of size rows x cols
+	 * @param v        vector of length cols
+	 * @param bias     vector of length rows, or null to add no bias
+	 * @param result   vector of length rows receiving function(m * v + bias)
+	 * @param rows     number of rows of m
+	 * @param cols     number of columns of m
+	 * @param pool     the ForkJoinPool to compute on, or null
+	 * @throws IllegalArgumentException if any Tensor is too small for the given
+	 *                                  dimensions
+	 */
+	public abstract void gemvActivate(Activation function, Tensor m, Tensor v, Tensor bias, Tensor result, int rows,
+			int cols, ForkJoinPool pool);
+
+	/**
+	 * Computes function(m * v + bias) into result like gemvActivate, m and bias
+	 * starting at the given offsets instead of at 0.
+	 * 
+	 * @param function   activation function to apply, or null to only add bias
+	 * @param m          Tensor holding a "matrix" of size rows x cols
+	 * @param mOffset    index of the first element of the matrix in m
+	 * @param v          vector of length cols
+	 * @param bias       Tensor holding a vector of length rows, or null to add no
+	 *                   bias
+	 * @param biasOffset index of the first element of the vector in bias
+	 * @param result     vector of length rows receiving function(m * v + bias)
+	 * @param rows       number of rows of m
+	 * @param cols       number of columns of m
+	 * @param pool       the ForkJoinPool to compute on, or null
+	 * @throws IllegalArgumentException if an offset is negative or any Tensor is
+	 *                                  too small for the given dimensions
+	 */
+	public abstract void gemvActivate(Activation function, Tensor m, int mOffset, Tensor v, Tensor bias,
+			int biasOffset, Tensor result, int rows, int cols, ForkJoinPool pool);
+
+	/**
+	 * Adds alpha * x to y elementwise, storing the result in y.
+	 * 
+	 * @param alpha factor to scale x with
+	 * @param x     Tensor to add
+	 * @param y     Tensor to add to, of the same size as x
+	 * @throws IllegalArgumentException if x and y are of different size
+	 */
+	public abstract void axpy(double alpha, Tensor x, Tensor y);
+
+	/**
+	 * Multiplies the first length elements of m1 with those of m2 elementwise,
+	 * storing the result in m1.
+	 * 
+	 * @param m1     Tensor to multiply into
+	 * @param m2     Tensor to multiply with
+	 * @param length number of elements to multiply
+	 */
+	public abstract void multiply(Tensor m1, Tensor m2, int length);
+
+	/**
+	 * Subtracts the first length elements of m2 from those of m1 elementwise,
+	 * storing the result in result (which may be m1 or m2).
+	 * 
+	 * @param m1     Tensor to subtract from
+	 * @param m2     Tensor to subtract
+	 * @param result receives m1 - m2
+	 * @param length number of elements to subtract
+	 */
+	public abstract void subtract(Tensor m1, Tensor m2, Tensor result, int length);
+
+	/**
+	 * Adds the vector bias to every column of the rows x cols matrix m.
+	 * 
+	 * @param m    "matrix" of size rows x cols
+	 * @param bias vector of length rows
+	 * @param rows number of rows of m
+	 * @param cols number of columns of m
+	 */
+	public abstract void addBias(Tensor m, Tensor bias, int rows, int cols);
+
+	/**
+	 * Sums each row of the rows x cols matrix m into result.
+	 * 
+	 * @param m      "matrix" of size rows x cols
+	 * @param result vector of length rows receiving the row sums
+	 * @param rows   number of rows of m
+	 * @param cols   number of columns of m
+	 */
+	public abstract void sumRows(Tensor m, Tensor result, int rows, int cols);
+
+	/**
+	 * Applies function to the nbrNeurons x batchSize matrix input and stores the
+	 * result in activation.
+	 * 
+	 * @param function   the activation function to apply
+	 * @param input      the inputs to activate
+	 * @param activation receives the activation of each input
+	 * @param nbrNeurons number of neurons in the layer (rows)
+	 * @param batchSize  number of sets of data (columns)
+	 */
+	public abstract void activate(Activation function, Tensor input, Tensor activation, int nbrNeurons,
+			int batchSize);
+
+	/**
+	 * Calculates the derivative of function at each input of the nbrNeurons x
+	 * batchSize matrix input and stores it in derivative, activation holding the
+	 * result of activate on the same input.
+	 * 
+	 * @param function   the activation function to derive
+	 * @param input      the inputs of the layer
+	 * @param activation the activation of each input, as given by activate
+	 * @param derivative receives the derivative at each input
+	 * @param nbrNeurons number of neurons in the layer (rows)
+	 * @param batchSize  number of sets of data (columns)
+	 * @throws UnsupportedOperationException if function has no elementwise
+	 *                                       derivative (SOFTMAX)
+	 */
+	public abstract void derivative(Activation function, Tensor input, Tensor activation, Tensor derivative,
+			int nbrNeurons, int batchSize);
+
+	/**
+	 * Copies (and converts) the vector source into the start of destination.
+	 * 
+	 * @param source      vector to copy
+	 * @param destination Tensor of at least the length of source
+	 */
+	public abstract void copy(double[] source, Tensor destination);
+
+	/**
+	 * Copies (and converts) the vector source into the start of destination.
+	 * 
+	 * @param source      vector to copy
+	 * @param destination Tensor of at least the length of source
+	 */
+	public abstract void copy(float[] source, Tensor destination);
+
+	/**
+	 * Copies (and converts) the start of source into the vector destination.
+	 * 
+	 * @param source      Tensor of at least the length of destination
+	 * @param destination vector receiving the elements
+	 */
+	public abstract void copy(Tensor source, double[] destination);
+
+	/**
+	 * Copies (and converts) the start of source into the vector destination.
+	 * 
+	 * @param source      Tensor of at least the length of destination
+	 * @param destination vector receiving the elements
+	 */
+	public abstract void copy(Tensor source, float[] destination);
+
+	/**
+	 * Packs the batchSize vectors sets[from] to sets[from + batchSize - 1] into
+	 * the nbrRows x batchSize matrix matrix, one column per vector.
+	 * 
+	 * @param sets      the vectors to pack
+	 * @param from      index in sets of the first vector to pack
+	 * @param batchSize number of vectors to pack
+	 * @param nbrRows   length of each vector
+	 * @param matrix    receives the packed vectors
+	 * @throws IllegalArgumentException if any of the vectors isn't of length
+	 *                                  nbrRows
+	 */
+	public abstract void pack(double[][] sets, int from, int batchSize, int nbrRows, Tensor matrix);
+
+	/**
+	 * Packs the batchSize vectors sets[from] to sets[from + batchSize - 1] into
+	 * the nbrRows x batchSize matrix matrix, one column per vector.
+	 * 
+	 * @param sets      the vectors to pack
+	 * @param from      index in sets of the first vector to pack
+	 * @param batchSize number of vectors to pack
+	 * @param nbrRows   length of each vector
+	 * @param matrix    receives the packed vectors
+	 * @throws IllegalArgumentException if any of the vectors isn't of length
+	 *                                  nbrRows
+	 */
+	public abstract void pack(float[][] sets, int from, int batchSize, int nbrRows, Tensor matrix);
+
+	/**
+	 * Unpacks the columns of the nbrRows x batchSize matrix matrix into the
+	 * vectors sets[from] to sets[from + batchSize - 1], the reverse of pack.
+	 * 
+	 * @param matrix    the packed vectors
+	 * @param batchSize number of columns of matrix
+	 * @param nbrRows   number of rows of matrix
+	 * @param sets      receives the vectors, each of length at least nbrRows
+	 * @param from      index in sets of the first vector to unpack into
+	 */
+	public abstract void unpack(Tensor matrix, int batchSize, int nbrRows, double[][] sets, int from);
+
+	/**
+	 * Unpacks the columns of the nbrRows x batchSize matrix matrix into the
+	 * vectors sets[from] to sets[from + batchSize - 1], the reverse of pack.
+	 * 
+	 * @param matrix    the packed vectors
+	 * @param batchSize number of columns of matrix
+	 * @param nbrRows   number of rows of matrix
+	 * @param sets      receives the vectors, each of length at least nbrRows
+	 * @param from      index in sets of the first vector to unpack into
+	 */
+	public abstract void unpack(Tensor matrix, int batchSize, int nbrRows, float[][] sets, int from);
+
+}
@@ -0,0 +1,215 @@
+package backend;
+
+import java.util.concurrent.ForkJoinPool;
+
+import layers.Activation;
+import layers.MatrixOperations;
+
+/**
+ * The Backend computing with float, every kernel unwrapping its TensorF
+ * arguments and running the corresponding MatrixOperations or Activation
+ * method on the float[] behind them.
+ * 
+ * @author OdinhengeT
+ * @see Backend
+ * @see TensorF
+ * @see DoubleBackend
+ */
+public final class FloatBackend implements Backend {
+
+	/**
+	 * The only instance, a FloatBackend has no state.
+	 */
+	public static final FloatBackend INSTANCE = new FloatBackend();
+
+	private FloatBackend() {
+	}
+
+	/**
+	 * Returns the float[] behind tensor.
+	 * 
+	 * @param tensor a TensorF
+	 * @return tensor.array()
+	 * @throws IllegalArgumentException if tensor isn't a TensorF
+	 */
+	private static float[] array(Tensor tensor) {
+		if (!(tensor instanceof TensorF)) {
+			throw new IllegalArgumentException("Expected a TensorF, got " + tensor.getClass().getSimpleName());
+		}
+		return ((TensorF) tensor).array();
+	}
+
+	public char getBasicCalculationUnit() {
+		return 'f';
+	}
+
+	public TensorF allocate(int size) {
+		return new TensorF(size);
+	}
+
+	public void gemm(Tensor m1, Tensor m2, Tensor result, int rows, int inner, int cols) {
+		MatrixOperations.gemmF(array(m1), array(m2), array(result), rows, inner, cols);
+	}
+
+	public void gemm(Tensor m1, Tensor m2, Tensor result, int rows, int inner, int cols, ForkJoinPool pool) {
+		MatrixOperations.gemmF(array(m1), array(m2), array(result), rows, inner, cols, pool);
+	}
+
+	public void gemmTransposeM1(Tensor m1, Tensor m2, Tensor result, int rows, int inner, int cols) {
+		MatrixOperations.gemmTransposeM1F(array(m1), array(m2), array(result), rows, inner, cols);
+	}
+
+	public void gemmTransposeM2(Tensor m1, Tensor m2, Tensor result, int rows, int inner, int cols) {
+		MatrixOperations.gemmTransposeM2F(array(m1), array(m2), array(result), rows, inner, cols);
+	}
+
+	public void gemm(boolean transposeM1, boolean transposeM2, Tensor m1, Tensor m2, Tensor result, int rows,
+			int inner, int cols) {
+		MatrixOperations.gemmF(transposeM1, transposeM2, array(m1), array(m2), array(result), rows, inner, cols);
+	}
+
+	public void ger(double alpha, Tensor x, Tensor y, Tensor m, int rows, int cols) {
+		MatrixOperations.gerF((float) alpha, array(x), array(y), array(m), rows, cols);
+	}
+
+	public void gemv(Tensor m, Tensor v, Tensor bias, Tensor result, int rows, int cols) {
+		MatrixOperations.gemvF(array(m), array(v), bias == null ? null : array(bias), array(result), rows, cols);
+	}
+
+	public void gemv(Tensor m, Tensor v, Tensor bias, Tensor result, int rows, int cols, ForkJoinPool pool) {
+		MatrixOperations.gemvF(array(m), array(v), bias == null ? null : array(bias), array(result), rows, cols,
+				pool);
+	}
+
+	public void gemmActivate(Activation function, Tensor m1, Tensor m2, Tensor bias, Tensor result, int rows,
+			int inner, int cols, ForkJoinPool pool) {
+		MatrixOperations.gemmActivateF(function, array(m1), array(m2), bias == null ? null : array(bias),
+				array(result), rows, inner, cols, pool);
+	}
+
+	public void gemmActivate(Activation function, Tensor m1, int m1Offset, Tensor m2, Tensor bias, int biasOffset,
+			Tensor result, int rows, int inner, int cols, ForkJoinPool pool) {
+		MatrixOperations.gemmActivateF(function, array(m1), m1Offset, array(m2), bias == null ? null : array(bias),
+				biasOffset, array(result), rows, inner, cols, pool);
+	}
+
+	public void gemvActivate(Activation function, Tensor m, Tensor v, Tensor bias, Tensor result, int rows,
+			int cols, ForkJoinPool pool) {
+		MatrixOperations.gemvActivateF(function, array(m), array(v), bias == null ? null : array(bias),
+				array(result), rows, cols, pool);
+	}
+
+	public void gemvActivate(Activation function, Tensor m, int mOffset, Tensor v, Tensor bias, int biasOffset,
+			Tensor result, int rows, int cols, ForkJoinPool pool) {
+		MatrixOperations.gemvActivateF(function, array(m), mOffset, array(v), bias == null ? null : array(bias),
+				biasOffset, array(result), rows, cols, pool);
+	}
+
+	public void axpy(double alpha, Tensor x, Tensor y) {
+		MatrixOperations.axpyF((float) alpha, array(x), array(y));
+	}
+
+	public void multiply(Tensor m1, Tensor m2, int length) {
+		MatrixOperations.multiplyF(array(m1), array(m2), length);
+	}
+
+	public void subtract(Tensor m1, Tensor m2, Tensor result, int length) {
+		MatrixOperations.subtractF(array(m1), array(m2), array(result), length);
+	}
+
+	public void addBias(Tensor m, Tensor bias, int rows, int cols) {
+		MatrixOperations.addBiasF(array(m), array(bias), rows, cols);
+	}
+
+	public void sumRows(Tensor m, Tensor result, int rows, int cols) {
+		MatrixOperations.sumRowsF(array(m), array(result), rows, cols);
+	}
+
+	public void activate(Activation function, Tensor input, Tensor activation, int nbrNeurons, int batchSize) {
+		function.apply(array(input), array(activation), nbrNeurons, batchSize);
+	}
+
+	public void derivative(Activation function, Tensor input, Tensor activation, Tensor derivative, int nbrNeurons,
+			int batchSize) {
+		function.derivative(array(input), array(activation), array(derivative), nbrNeurons, batchSize);
+	}
+
+	public void copy(double[] source, Tensor destination) {
+		float[] data = array(destination);
+		for (int i = 0; i < source.length; i++) {
+			data[i] = (float) source[i];
+		}
+	}
+
+	public void copy(float[] source, Tensor destination) {
+		float[] data = array(destination);
+		for (int i = 0; i < source.length; i++) {
+			data[i] = source[i];
+		}
+	}
+
+	public void copy(Tensor source, double[] destination) {
+		float[] data = array(source);
+		for (int i = 0; i < destination.length; i++) {
+			destination[i] = data[i];
+		}
+	}
+
+	public void copy(Tensor source, float[] destination) {
+		float[] data = array(source);
+		for (int i = 0; i < destination.length; i++) {
+			destination[i] = data[i];
+		}
+	}
+
+	public void pack(double[][] sets, int from, int batchSize, int nbrRows, Tensor matrix) {
+		float[] data = array(matrix);
+		for (int set = 0; set < batchSize; set++) {
+			double[] vector = sets[from + set];
+			if (vector.length != nbrRows) {
+				throw new IllegalArgumentException("Input of wrong length");
+			}
+			for (int row = 0; row < nbrRows; row++) {
+				data[row * batchSize + set] = (float) vector[row];
+			}
+		}
+	}
+
+	public void pack(float[][] sets, int from, int batchSize, int nbrRows, Tensor matrix) {
+		float[] data = array(matrix);
+		for (int set = 0; set < batchSize; set++) {
+			float[] vector = sets[from + set];
+			if (vector.length != nbrRows) {
+				throw new IllegalArgumentException("Input of wrong length");
+			}
+			for (int row = 0; row < nbrRows; row++) {
+				data[row * batchSize + set] = vector[row];
+			}
+		}
+	}
+
+	public void unpack(Tensor matrix, int batchSize, int nbrRows, double[][] sets, int from) {
+		float[] data = array(matrix);
+		for (int set = 0; set < batchSize; set++) {
+			double[] vector = sets[from + set];
+			for (int row = 0; row < nbrRows; row++) {
+				vector[row] = data[row * batchSize + set];
+			}
+		}
+	}
+
+	public void unpack(Tensor matrix, int batchSize, int nbrRows, float[][] sets, int from) {
+		float[] data = array(matrix);
+		for (int set = 0; set < batchSize; set++) {
+			float[] vector = sets[from + set];
+			for (int row = 0; row < nbrRows; row++) {
+				vector[row] = data[row * batchSize + set];
+			}
+		}
+	}
+
+	public String toString() {
+		return "FloatBackend";
+	}
+
+}
@@ -0,0 +1,53 @@
+package backend;
+
+/**
+ * A flat buffer of numbers of one precision, the unit of data the kernels of a
+ * Backend work on. Matrices are stored in row-major order (element (row, col)
+ * of a matrix with cols columns is found at index row * cols + col), and a
+ * batch of vectors as a matrix with one column per vector, which is how the
+ * layers store their parameters and intermediate results.
+ * <p>
+ * The element accessors convert to and from double and are meant for
+ * initialization and inspection; bulk work goes through the Backend that
+ * created the tensor, which works on the underlying array directly.
+ * 
+ * @author OdinhengeT
+ * @see TensorF
+ * @see TensorD
+ * @see Backend
+ */
+public abstract class Tensor {
+
+	/**
+	 * Returns the number of elements in the tensor.
+	 * 
+	 * @return length of the underlying array
+	 */
+	public abstract int size();
+
+	/**
+	 * Returns the element at index.
+	 * 
+	 * @param index index of the element
+	 * @return the element, converted to double
+	 */
+	public abstract double get(int index);
+
+	/**
+	 * Sets the element at index.
+	 * 
+	 * @param index index of the element
+	 * @param value new value, rounded to the precision of the tensor
+	 */
+	public abstract void set(int index, double value);
+
+	/**
+	 * Returns the scalar Backend of the precision of this tensor. Any other
+	 * Backend of the same basic calculation unit (see Backend.preferred) works on
+	 * it as well.
+	 * 
+	 * @return FloatBackend.INSTANCE or DoubleBackend.INSTANCE
+	 */
+	public abstract Backend getBackend();
+
+}
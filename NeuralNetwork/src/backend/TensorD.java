@@ -0,0 +1,58 @@
+package backend;
+
+/**
+ * A Tensor of double, wrapping a double[] that the kernels of DoubleBackend work
+ * on directly.
+ * 
+ * @author OdinhengeT
+ * @see Tensor
+ * @see DoubleBackend
+ */
+public final class TensorD extends Tensor {
+
+	private final double[] data;
+
+	/**
+	 * Creates a TensorD of size zeros.
+	 * 
+	 * @param size number of elements
+	 */
+	public TensorD(int size) {
+		this.data = new double[size];
+	}
+
+	/**
+	 * Creates a TensorD backed by data, which is used as it is and not copied.
+	 * 
+	 * @param data the elements of the tensor
+	 */
+	public TensorD(double[] data) {
+		this.data = data;
+	}
+
+	/**
+	 * Returns the array backing this tensor, not a copy.
+	 * 
+	 * @return this.data
+	 */
+	public double[] array() {
+		return data;
+	}
+
+	public int size() {
+		return data.length;
+	}
+
+	public double get(int index) {
+		return data[index];
+	}
+
+	public void set(int index, double value) {
+		data[index] = value;
+	}
+
+	public Backend getBackend() {
+		return DoubleBackend.INSTANCE;
+	}
+
+}
@@ -0,0 +1,58 @@
+package backend;
+
+/**
+ * A Tensor of float, wrapping a float[] that the kernels of FloatBackend work
+ * on directly.
+ * 
+ * @author OdinhengeT
+ * @see Tensor
+ * @see FloatBackend
+ */
+public final class TensorF extends Tensor {
+
+	private final float[] data;
+
+	/**
+	 * Creates a TensorF of size zeros.
+	 * 
+	 * @param size number of elements
+	 */
+	public TensorF(int size) {
+		this.data = new float[size];
+	}
+
+	/**
+	 * Creates a TensorF backed by data, which is used as it is and not copied.
+	 * 
+	 * @param data the elements of the tensor
+	 */
+	public TensorF(float[] data) {
+		this.data = data;
+	}
+
+	/**
+	 * Returns the array backing this tensor, not a copy.
+	 * 
+	 * @return this.data
+	 */
+	public float[] array() {
+		return data;
+	}
+
+	public int size() {
+		return data.length;
+	}
+
+	public double get(int index) {
+		return data[index];
+	}
+
+	public void set(int index, double value) {
+		data[index] = (float) value;
+	}
+
+	public Backend getBackend() {
+		return FloatBackend.INSTANCE;
+	}
+
+}
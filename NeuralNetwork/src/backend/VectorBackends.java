@@ -0,0 +1,41 @@
+package backend;
+
+/**
+ * Looks up the Backends built on the Vector API, VectorFloatBackend and
+ * VectorDoubleBackend, once per JVM. They are loaded by name because they are
+ * compiled separately (for JDK 17 and the jdk.incubator.vector module) and may
+ * be missing, and because loading them fails unless the JVM was started with
+ * --add-modules jdk.incubator.vector; in any of those cases the corresponding
+ * field is null.
+ * 
+ * @author OdinhengeT
+ * @see Backend#preferred(char)
+ */
+final class VectorBackends {
+
+	/**
+	 * VectorFloatBackend.INSTANCE, or null if it can't be used.
+	 */
+	static final Backend FLOAT = load("backend.VectorFloatBackend");
+
+	/**
+	 * VectorDoubleBackend.INSTANCE, or null if it can't be used.
+	 */
+	static final Backend DOUBLE = load("backend.VectorDoubleBackend");
+
+	private VectorBackends() {
+	}
+
+	/**
+	 * Returns the INSTANCE of the class className, or null if the class is
+	 * missing, compiled for a later JDK, or needs a module that isn't enabled.
+	 */
+	private static Backend load(String className) {
+		try {
+			return (Backend) Class.forName(className).getField("INSTANCE").get(null);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+}
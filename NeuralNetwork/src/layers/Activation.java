@@ -0,0 +1,557 @@
+package layers;
+
+import java.util.Arrays;
+
+/**
+ * The activation functions a layer can apply to its inputs, working directly
+ * on double and float (no boxing). Each function has a value and a derivative,
+ * both for single inputs and for a whole layer at once. The
+ * bulk methods take the inputs of a layer as a nbrNeurons x batchSize matrix
+ * stored as a flat array in row-major order (one column per set of data, a
+ * single vector being a batch of 1), which is how the layers store them.
+ * FAST_SIGMOID and FAST_TANH trade a bounded error for cheaper evaluation.
+ * 
+ * @author OdinhengeT
+ * @see Layer
+ * @see NeuralNetworkF
+ * @see NeuralNetworkD
+ */
+public enum Activation {
+
+	/**
+	 * The identity function, leaves its input unchanged. Used by the input layer,
+	 * to which no activation function is applied.
+	 */
+	IDENTITY {
+		public double apply(double input) {
+			return input;
+		}
+
+		public float apply(float input) {
+			return input;
+		}
+
+		public double derivative(double input) {
+			return 1.0;
+		}
+
+		public float derivative(float input) {
+			return 1.0f;
+		}
+
+		public void apply(double[] input, double[] activation, int nbrNeurons, int batchSize) {
+			System.arraycopy(input, 0, activation, 0, nbrNeurons * batchSize);
+		}
+
+		public void apply(float[] input, float[] activation, int nbrNeurons, int batchSize) {
+			System.arraycopy(input, 0, activation, 0, nbrNeurons * batchSize);
+		}
+
+		public void derivative(double[] input, double[] activation, double[] derivative, int nbrNeurons,
+				int batchSize) {
+			Arrays.fill(derivative, 0, nbrNeurons * batchSize, 1.0);
+		}
+
+		public void derivative(float[] input, float[] activation, float[] derivative, int nbrNeurons,
+				int batchSize) {
+			Arrays.fill(derivative, 0, nbrNeurons * batchSize, 1.0f);
+		}
+	},
+	/**
+	 * The Sigmoid function, 1 / (1 + e^-x), the activation function used unless
+	 * another one is chosen.
+	 */
+	SIGMOID {
+		public double apply(double input) {
+			return 1.0 / (1.0 + Math.exp(-input));
+		}
+
+		public float apply(float input) {
+			return 1.0f / (1.0f + (float) Math.exp(-input));
+		}
+
+		public double derivative(double input) {
+			return sigmoidDerivative(apply(input));
+		}
+
+		public float derivative(float input) {
+			return sigmoidDerivative(apply(input));
+		}
+
+		public void apply(double[] input, double[] activation, int nbrNeurons, int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				activation[i] = 1.0 / (1.0 + Math.exp(-input[i]));
+			}
+		}
+
+		public void apply(float[] input, float[] activation, int nbrNeurons, int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				activation[i] = 1.0f / (1.0f + (float) Math.exp(-input[i]));
+			}
+		}
+
+		public void derivative(double[] input, double[] activation, double[] derivative, int nbrNeurons,
+				int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				derivative[i] = sigmoidDerivative(activation[i]);
+			}
+		}
+
+		public void derivative(float[] input, float[] activation, float[] derivative, int nbrNeurons,
+				int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				derivative[i] = sigmoidDerivative(activation[i]);
+			}
+		}
+	},
+	/**
+	 * The hyperbolic tangent, (e^x - e^-x) / (e^x + e^-x).
+	 */
+	TANH {
+		public double apply(double input) {
+			return Math.tanh(input);
+		}
+
+		public float apply(float input) {
+			return (float) Math.tanh(input);
+		}
+
+		public double derivative(double input) {
+			return tanhDerivative(Math.tanh(input));
+		}
+
+		public float derivative(float input) {
+			return tanhDerivative((float) Math.tanh(input));
+		}
+
+		public void apply(double[] input, double[] activation, int nbrNeurons, int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				activation[i] = Math.tanh(input[i]);
+			}
+		}
+
+		public void apply(float[] input, float[] activation, int nbrNeurons, int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				activation[i] = (float) Math.tanh(input[i]);
+			}
+		}
+
+		public void derivative(double[] input, double[] activation, double[] derivative, int nbrNeurons,
+				int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				derivative[i] = tanhDerivative(activation[i]);
+			}
+		}
+
+		public void derivative(float[] input, float[] activation, float[] derivative, int nbrNeurons,
+				int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				derivative[i] = tanhDerivative(activation[i]);
+			}
+		}
+	},
+	/**
+	 * An approximation of SIGMOID using a lookup table with linear interpolation,
+	 * several times cheaper than evaluating Math.exp. Differs from SIGMOID by less
+	 * than 5e-6 for double and 1e-5 for float (see FastSigmoid and
+	 * testing.TestFastActivation). Meant for inference, or for training when that
+	 * error is acceptable.
+	 */
+	FAST_SIGMOID {
+		public double apply(double input) {
+			return FastSigmoid.sigmoid(input);
+		}
+
+		public float apply(float input) {
+			return FastSigmoid.sigmoid(input);
+		}
+
+		public double derivative(double input) {
+			return sigmoidDerivative(FastSigmoid.sigmoid(input));
+		}
+
+		public float derivative(float input) {
+			return sigmoidDerivative(FastSigmoid.sigmoid(input));
+		}
+
+		public void apply(double[] input, double[] activation, int nbrNeurons, int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				activation[i] = FastSigmoid.sigmoid(input[i]);
+			}
+		}
+
+		public void apply(float[] input, float[] activation, int nbrNeurons, int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				activation[i] = FastSigmoid.sigmoid(input[i]);
+			}
+		}
+
+		public void derivative(double[] input, double[] activation, double[] derivative, int nbrNeurons,
+				int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				derivative[i] = sigmoidDerivative(activation[i]);
+			}
+		}
+
+		public void derivative(float[] input, float[] activation, float[] derivative, int nbrNeurons,
+				int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				derivative[i] = sigmoidDerivative(activation[i]);
+			}
+		}
+	},
+	/**
+	 * An approximation of TANH through the same lookup table as FAST_SIGMOID,
+	 * using tanh(x) = 2 * sigmoid(2x) - 1. Differs from TANH by less than 1e-5 for
+	 * double and 2e-5 for float.
+	 */
+	FAST_TANH {
+		public double apply(double input) {
+			return 2.0 * FastSigmoid.sigmoid(2.0 * input) - 1.0;
+		}
+
+		public float apply(float input) {
+			return 2.0f * FastSigmoid.sigmoid(2.0f * input) - 1.0f;
+		}
+
+		public double derivative(double input) {
+			return tanhDerivative(2.0 * FastSigmoid.sigmoid(2.0 * input) - 1.0);
+		}
+
+		public float derivative(float input) {
+			return tanhDerivative(2.0f * FastSigmoid.sigmoid(2.0f * input) - 1.0f);
+		}
+
+		public void apply(double[] input, double[] activation, int nbrNeurons, int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				activation[i] = 2.0 * FastSigmoid.sigmoid(2.0 * input[i]) - 1.0;
+			}
+		}
+
+		public void apply(float[] input, float[] activation, int nbrNeurons, int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				activation[i] = 2.0f * FastSigmoid.sigmoid(2.0f * input[i]) - 1.0f;
+			}
+		}
+
+		public void derivative(double[] input, double[] activation, double[] derivative, int nbrNeurons,
+				int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				derivative[i] = tanhDerivative(activation[i]);
+			}
+		}
+
+		public void derivative(float[] input, float[] activation, float[] derivative, int nbrNeurons,
+				int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				derivative[i] = tanhDerivative(activation[i]);
+			}
+		}
+	},
+	/**
+	 * The rectified linear unit, max(0, x).
+	 */
+	RELU {
+		public double apply(double input) {
+			return input > 0.0 ? input : 0.0;
+		}
+
+		public float apply(float input) {
+			return input > 0.0f ? input : 0.0f;
+		}
+
+		public double derivative(double input) {
+			return input > 0.0 ? 1.0 : 0.0;
+		}
+
+		public float derivative(float input) {
+			return input > 0.0f ? 1.0f : 0.0f;
+		}
+
+		public void apply(double[] input, double[] activation, int nbrNeurons, int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				activation[i] = input[i] > 0.0 ? input[i] : 0.0;
+			}
+		}
+
+		public void apply(float[] input, float[] activation, int nbrNeurons, int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				activation[i] = input[i] > 0.0f ? input[i] : 0.0f;
+			}
+		}
+
+		public void derivative(double[] input, double[] activation, double[] derivative, int nbrNeurons,
+				int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				derivative[i] = input[i] > 0.0 ? 1.0 : 0.0;
+			}
+		}
+
+		public void derivative(float[] input, float[] activation, float[] derivative, int nbrNeurons,
+				int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				derivative[i] = input[i] > 0.0f ? 1.0f : 0.0f;
+			}
+		}
+	},
+	/**
+	 * The leaky rectified linear unit, x for positive x and LEAKY_RELU_SLOPE * x
+	 * otherwise.
+	 */
+	LEAKY_RELU {
+		public double apply(double input) {
+			return input > 0.0 ? input : LEAKY_RELU_SLOPE * input;
+		}
+
+		public float apply(float input) {
+			return input > 0.0f ? input : (float) LEAKY_RELU_SLOPE * input;
+		}
+
+		public double derivative(double input) {
+			return input > 0.0 ? 1.0 : LEAKY_RELU_SLOPE;
+		}
+
+		public float derivative(float input) {
+			return input > 0.0f ? 1.0f : (float) LEAKY_RELU_SLOPE;
+		}
+
+		public void apply(double[] input, double[] activation, int nbrNeurons, int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				activation[i] = input[i] > 0.0 ? input[i] : LEAKY_RELU_SLOPE * input[i];
+			}
+		}
+
+		public void apply(float[] input, float[] activation, int nbrNeurons, int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				activation[i] = input[i] > 0.0f ? input[i] : (float) LEAKY_RELU_SLOPE * input[i];
+			}
+		}
+
+		public void derivative(double[] input, double[] activation, double[] derivative, int nbrNeurons,
+				int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				derivative[i] = input[i] > 0.0 ? 1.0 : LEAKY_RELU_SLOPE;
+			}
+		}
+
+		public void derivative(float[] input, float[] activation, float[] derivative, int nbrNeurons,
+				int batchSize) {
+			for (int i = 0; i < nbrNeurons * batchSize; i++) {
+				derivative[i] = input[i] > 0.0f ? 1.0f : (float) LEAKY_RELU_SLOPE;
+			}
+		}
+	},
+	/**
+	 * The Softmax function, e^x_i / sum_j(e^x_j), which turns all the inputs of a
+	 * layer into a probability distribution. Since it is not applied to each input
+	 * on its own, it may only be used for the output layer, where it is paired
+	 * with the cross-entropy error so that no derivative is needed. Only the bulk
+	 * apply methods are supported.
+	 */
+	SOFTMAX {
+		public double apply(double input) {
+			throw new UnsupportedOperationException("Softmax is only defined on whole layers");
+		}
+
+		public float apply(float input) {
+			throw new UnsupportedOperationException("Softmax is only defined on whole layers");
+		}
+
+		public double derivative(double input) {
+			throw new UnsupportedOperationException("Softmax is only defined on whole layers");
+		}
+
+		public float derivative(float input) {
+			throw new UnsupportedOperationException("Softmax is only defined on whole layers");
+		}
+
+		public void apply(double[] input, double[] activation, int nbrNeurons, int batchSize) {
+			for (int set = 0; set < batchSize; set++) {
+				double max = Double.NEGATIVE_INFINITY;
+				for (int neuron = 0; neuron < nbrNeurons; neuron++) {
+					max = Math.max(max, input[neuron * batchSize + set]);
+				}
+				double sum = 0.0;
+				for (int neuron = 0; neuron < nbrNeurons; neuron++) {
+					double e = Math.exp(input[neuron * batchSize + set] - max);
+					activation[neuron * batchSize + set] = e;
+					sum += e;
+				}
+				for (int neuron = 0; neuron < nbrNeurons; neuron++) {
+					activation[neuron * batchSize + set] /= sum;
+				}
+			}
+		}
+
+		public void apply(float[] input, float[] activation, int nbrNeurons, int batchSize) {
+			for (int set = 0; set < batchSize; set++) {
+				float max = Float.NEGATIVE_INFINITY;
+				for (int neuron = 0; neuron < nbrNeurons; neuron++) {
+					max = Math.max(max, input[neuron * batchSize + set]);
+				}
+				float sum = 0.0f;
+				for (int neuron = 0; neuron < nbrNeurons; neuron++) {
+					float e = (float) Math.exp(input[neuron * batchSize + set] - max);
+					activation[neuron * batchSize + set] = e;
+					sum += e;
+				}
+				for (int neuron = 0; neuron < nbrNeurons; neuron++) {
+					activation[neuron * batchSize + set] /= sum;
+				}
+			}
+		}
+
+		public void derivative(double[] input, double[] activation, double[] derivative, int nbrNeurons,
+				int batchSize) {
+			throw new UnsupportedOperationException("Softmax has no elementwise derivative");
+		}
+
+		public void derivative(float[] input, float[] activation, float[] derivative, int nbrNeurons,
+				int batchSize) {
+			throw new UnsupportedOperationException("Softmax has no elementwise derivative");
+		}
+	};
+
+	/**
+	 * Slope of LEAKY_RELU for negative inputs.
+	 */
+	public static final double LEAKY_RELU_SLOPE = 0.01;
+
+	/**
+	 * Applies the activation function to a single input.
+	 * 
+	 * @param input the input
+	 * @return the activation of input
+	 * @throws UnsupportedOperationException if the function is not defined on
+	 *                                       single inputs (SOFTMAX)
+	 */
+	public abstract double apply(double input);
+
+	/**
+	 * Applies the activation function to a single input.
+	 * 
+	 * @param input the input
+	 * @return the activation of input
+	 * @throws UnsupportedOperationException if the function is not defined on
+	 *                                       single inputs (SOFTMAX)
+	 */
+	public abstract float apply(float input);
+
+	/**
+	 * Returns the derivative of the activation function at input.
+	 * 
+	 * @param input the input
+	 * @return the derivative at input
+	 * @throws UnsupportedOperationException if the function is not defined on
+	 *                                       single inputs (SOFTMAX)
+	 */
+	public abstract double derivative(double input);
+
+	/**
+	 * Returns the derivative of the activation function at input.
+	 * 
+	 * @param input the input
+	 * @return the derivative at input
+	 * @throws UnsupportedOperationException if the function is not defined on
+	 *                                       single inputs (SOFTMAX)
+	 */
+	public abstract float derivative(float input);
+
+	/**
+	 * Applies the activation function to all inputs of a layer, given as a
+	 * nbrNeurons x batchSize matrix, and stores the result in activation.
+	 * 
+	 * @param input      the inputs to activate
+	 * @param activation receives the activation of each input
+	 * @param nbrNeurons number of neurons in the layer (rows)
+	 * @param batchSize  number of sets of data (columns)
+	 */
+	public abstract void apply(double[] input, double[] activation, int nbrNeurons, int batchSize);
+
+	/**
+	 * Applies the activation function to all inputs of a layer, given as a
+	 * nbrNeurons x batchSize matrix, and stores the result in activation.
+	 * 
+	 * @param input      the inputs to activate
+	 * @param activation receives the activation of each input
+	 * @param nbrNeurons number of neurons in the layer (rows)
+	 * @param batchSize  number of sets of data (columns)
+	 */
+	public abstract void apply(float[] input, float[] activation, int nbrNeurons, int batchSize);
+
+	/**
+	 * Calculates the derivative of the activation function for all inputs of a
+	 * layer, given as a nbrNeurons x batchSize matrix, and stores the result in
+	 * derivative. activation must already hold the result of apply on the same
+	 * input, so functions whose derivative can be expressed through their value
+	 * (such as SIGMOID and TANH) are derived without being evaluated again.
+	 * 
+	 * @param input      the inputs of the layer
+	 * @param activation the activation of each input, as given by apply
+	 * @param derivative receives the derivative at each input
+	 * @param nbrNeurons number of neurons in the layer (rows)
+	 * @param batchSize  number of sets of data (columns)
+	 * @throws UnsupportedOperationException if the function has no elementwise
+	 *                                       derivative (SOFTMAX)
+	 */
+	public abstract void derivative(double[] input, double[] activation, double[] derivative, int nbrNeurons,
+			int batchSize);
+
+	/**
+	 * Calculates the derivative of the activation function for all inputs of a
+	 * layer, given as a nbrNeurons x batchSize matrix, and stores the result in
+	 * derivative. activation must already hold the result of apply on the same
+	 * input, so functions whose derivative can be expressed through their value
+	 * (such as SIGMOID and TANH) are derived without being evaluated again.
+	 * 
+	 * @param input      the inputs of the layer
+	 * @param activation the activation of each input, as given by apply
+	 * @param derivative receives the derivative at each input
+	 * @param nbrNeurons number of neurons in the layer (rows)
+	 * @param batchSize  number of sets of data (columns)
+	 * @throws UnsupportedOperationException if the function has no elementwise
+	 *                                       derivative (SOFTMAX)
+	 */
+	public abstract void derivative(float[] input, float[] activation, float[] derivative, int nbrNeurons,
+			int batchSize);
+
+	/**
+	 * Returns whether the activation of each input only depends on that input,
+	 * so that it may be applied to any part of a layer on its own (as the fused
+	 * kernels of MatrixOperations do). True for every function but SOFTMAX.
+	 * 
+	 * @return false for SOFTMAX, else true
+	 */
+	public boolean isElementwise() {
+		return this != SOFTMAX;
+	}
+
+	/**
+	 * Derivative of the Sigmoid function expressed through its value.
+	 */
+	private static double sigmoidDerivative(double sigmoid) {
+		return sigmoid * (1.0 - sigmoid);
+	}
+
+	/**
+	 * Derivative of the Sigmoid function expressed through its value.
+	 */
+	private static float sigmoidDerivative(float sigmoid) {
+		return sigmoid * (1.0f - sigmoid);
+	}
+
+	/**
+	 * Derivative of the hyperbolic tangent expressed through its value.
+	 */
+	private static double tanhDerivative(double tanh) {
+		return 1.0 - tanh * tanh;
+	}
+
+	/**
+	 * Derivative of the hyperbolic tangent expressed through its value.
+	 */
+	private static float tanhDerivative(float tanh) {
+		return 1.0f - tanh * tanh;
+	}
+
+}
@@ -0,0 +1,408 @@
+package layers;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import backend.Backend;
+import backend.Tensor;
+
+/**
+ * A layer in a NeuralNetwork, computed with the kernels of a Backend so that
+ * the same class is used whether the network calculates with float or double.
+ * The implementation is based on expressing the weights & biases as matrices
+ * instead of as instances of some 'Neuron' class, stored as flat Tensors in
+ * row-major order.
+ * <p>
+ * A layer only holds its parameters: the inputs and activations passed between
+ * layers are owned by the caller (an inference context or training workspace
+ * of the network), so the forward methods only read the layer and may be
+ * called by several threads at once. The last layer of a network has no links
+ * and thus no weights or biases.
+ * 
+ * @author OdinhengeT
+ * @see TensorNetwork
+ * @see Backend
+ * @see MatrixOperations
+ */
+public class Layer {
+	/**
+	 * The Backend computing this layer.
+	 */
+	protected final Backend backend;
+	/**
+	 * Number of neurons in this layer, also the row stride of weights.
+	 */
+	protected final int nbrNeurons;
+	/**
+	 * Number of links from this layer, equal to the number of neurons in the next
+	 * layer in the network, 0 for the output layer.
+	 */
+	protected final int nbrLinks;
+	/**
+	 * Weights linking this layer to the next one in the network, a nbrLinks x
+	 * nbrNeurons matrix stored in row-major order. Weights on the same row link to
+	 * the same neuron in the next layer, so the weight from neuron to link is
+	 * found at index link * nbrNeurons + neuron. Null for the output layer.
+	 */
+	protected final Tensor weights;
+	/**
+	 * Biases of the neurons in the next layer in the network, a colon-vector of
+	 * length nbrLinks. Null for the output layer.
+	 */
+	protected final Tensor bias;
+	/**
+	 * The activation function applied to the inputs of this layer.
+	 */
+	protected final Activation activationFunction;
+
+	/**
+	 * Constructs a Layer with nbrNeurons neurons and nbrLinks links (the next
+	 * layer in the network has nbrLinks neurons). Initiates all the weights and
+	 * biases with random values (following a gaussian distribution with mean 0 and
+	 * standard deviation 1), divided by the square root of the number of neurons
+	 * in the layer.
+	 * 
+	 * @param backend            the Backend to compute with
+	 * @param nbrNeurons         number of neurons
+	 * @param nbrLinks           number of links, 0 for the output layer
+	 * @param activationFunction activation function applied to the inputs
+	 */
+	public Layer(Backend backend, int nbrNeurons, int nbrLinks, Activation activationFunction) {
+		this(backend, nbrNeurons, nbrLinks, activationFunction, randomTensor(backend, nbrLinks * nbrNeurons,
+				nbrNeurons), randomTensor(backend, nbrLinks, nbrNeurons));
+	}
+
+	/**
+	 * Constructs a Layer with nbrNeurons neurons and nbrLinks links, using the
+	 * given Tensors as its weights and biases instead of random values. The
+	 * Tensors are not copied, so the layer keeps (and trains) them as they are.
+	 * 
+	 * @param backend            the Backend to compute with
+	 * @param nbrNeurons         number of neurons
+	 * @param nbrLinks           number of links, 0 for the output layer
+	 * @param activationFunction activation function applied to the inputs
+	 * @param weights            a nbrLinks x nbrNeurons matrix stored in
+	 *                           row-major order, null for the output layer
+	 * @param bias               a colon-vector of length nbrLinks, null for the
+	 *                           output layer
+	 * @throws IllegalArgumentException if weights or bias is of wrong length, or
+	 *                                  of another precision than backend
+	 */
+	public Layer(Backend backend, int nbrNeurons, int nbrLinks, Activation activationFunction, Tensor weights,
+			Tensor bias) {
+		if (nbrLinks == 0 ? weights != null || bias != null
+				: weights.size() != nbrLinks * nbrNeurons || bias.size() != nbrLinks) {
+			throw new IllegalArgumentException("Weights or bias is of wrong Dimension");
+		}
+		char unit = backend.getBasicCalculationUnit();
+		if (weights != null && (weights.getBackend().getBasicCalculationUnit() != unit
+				|| bias.getBackend().getBasicCalculationUnit() != unit)) {
+			throw new IllegalArgumentException("Weights and bias must be of the precision of " + backend);
+		}
+		this.backend = backend;
+		this.nbrNeurons = nbrNeurons;
+		this.nbrLinks = nbrLinks;
+		this.activationFunction = activationFunction;
+		this.weights = weights;
+		this.bias = bias;
+	}
+
+	/**
+	 * Returns a Tensor of size values drawn from a gaussian distribution with mean
+	 * 0 and standard deviation 1, divided by the square root of nbrNeurons, or
+	 * null if size is 0 (the output layer).
+	 */
+	private static Tensor randomTensor(Backend backend, int size, int nbrNeurons) {
+		if (size == 0) {
+			return null;
+		}
+		Random rand = new Random();
+		Tensor tensor = backend.allocate(size);
+		double scale = Math.sqrt(nbrNeurons);
+		for (int i = 0; i < size; i++) {
+			tensor.set(i, rand.nextGaussian() / scale);
+		}
+		return tensor;
+	}
+
+	/**
+	 * Returns the weight that connects the neuron at index neuron in this layer
+	 * with the neuron at index link in the next layer.
+	 * 
+	 * @param link   index of neuron in next layer
+	 * @param neuron index of neuron in this layer
+	 * @return weight from neuron to link
+	 */
+	public double getWeightAt(int link, int neuron) {
+		return this.weights.get(link * nbrNeurons + neuron);
+	}
+
+	/**
+	 * Returns the weights of this layer, a nbrLinks x nbrNeurons matrix stored in
+	 * row-major order. This is the layer's own Tensor and not a copy, null for an
+	 * output layer.
+	 * 
+	 * @return this.weights
+	 */
+	public Tensor getWeights() {
+		return this.weights;
+	}
+
+	/**
+	 * Returns the biases of the neurons in the next layer, a colon-vector of
+	 * length nbrLinks. This is the layer's own Tensor and not a copy, null for an
+	 * output layer.
+	 * 
+	 * @return this.bias
+	 */
+	public Tensor getBias() {
+		return this.bias;
+	}
+
+	/**
+	 * Returns the Backend computing this layer.
+	 * 
+	 * @return this.backend
+	 */
+	public Backend getBackend() {
+		return this.backend;
+	}
+
+	/**
+	 * Returns the number of neurons in this layer.
+	 * 
+	 * @return this.nbrNeurons
+	 */
+	public int getNbrNeurons() {
+		return this.nbrNeurons;
+	}
+
+	/**
+	 * Returns the number of links from this layer (neurons in the next layer).
+	 * 
+	 * @return this.nbrLinks
+	 */
+	public int getNbrLinks() {
+		return this.nbrLinks;
+	}
+
+	/**
+	 * Returns the activation function applied to the inputs of this layer.
+	 * 
+	 * @return this.activationFunction
+	 */
+	public Activation getActivationFunction() {
+		return this.activationFunction;
+	}
+
+	/**
+	 * Updates the weights and biases of the layer by step times the given
+	 * gradients, as weights += step * weightGradient and bias += step *
+	 * biasGradient.
+	 * 
+	 * @param weightGradient a nbrLinks x nbrNeurons matrix stored in row-major
+	 *                       order
+	 * @param biasGradient   a colon-vector of length nbrLinks
+	 * @param step           factor to scale the gradients with, negative to
+	 *                       descend
+	 * @throws IllegalArgumentException if weightGradient or biasGradient is of
+	 *                                  wrong length
+	 */
+	public void update(Tensor weightGradient, Tensor biasGradient, double step) {
+		backend.axpy(step, weightGradient, weights);
+		backend.axpy(step, biasGradient, bias);
+	}
+
+	/**
+	 * Applies the activation function to a whole batch of inputs and stores the
+	 * result in activation.
+	 * 
+	 * @param input      nbrNeurons x batchSize matrix of inputs to activate
+	 * @param activation nbrNeurons x batchSize matrix receiving the activation of
+	 *                   each input
+	 * @param batchSize  number of sets of data in the batch
+	 */
+	public void activate(Tensor input, Tensor activation, int batchSize) {
+		backend.activate(activationFunction, input, activation, nbrNeurons, batchSize);
+	}
+
+	/**
+	 * Applies the activation function to a whole batch of inputs and stores the
+	 * result in activation, then stores the derivative of the activation function
+	 * at each input in derivative, so that backpropagation can reuse both instead
+	 * of evaluating the activation function again.
+	 * 
+	 * @param input      nbrNeurons x batchSize matrix of inputs to activate
+	 * @param activation nbrNeurons x batchSize matrix receiving the activation of
+	 *                   each input
+	 * @param derivative nbrNeurons x batchSize matrix receiving the derivative at
+	 *                   each input
+	 * @param batchSize  number of sets of data in the batch
+	 */
+	public void activate(Tensor input, Tensor activation, Tensor derivative, int batchSize) {
+		backend.activate(activationFunction, input, activation, nbrNeurons, batchSize);
+		backend.derivative(activationFunction, input, activation, derivative, nbrNeurons, batchSize);
+	}
+
+	/**
+	 * Calculates the input to the next layer for a single set of data, as
+	 * nextInput = weights * activation + bias.
+	 * 
+	 * @param activation vector of length nbrNeurons, the activation of this layer
+	 * @param nextInput  vector of length nbrLinks receiving the input to the next
+	 *                   layer
+	 */
+	public void forward(Tensor activation, Tensor nextInput) {
+		backend.gemv(weights, activation, bias, nextInput, nbrLinks, nbrNeurons);
+	}
+
+	/**
+	 * Calculates the input to the next layer for a single set of data like
+	 * forward(Tensor, Tensor), but splits the rows of weights between the threads
+	 * of pool if the layer is large enough (see Backend.gemv).
+	 * 
+	 * @param activation vector of length nbrNeurons, the activation of this layer
+	 * @param nextInput  vector of length nbrLinks receiving the input to the next
+	 *                   layer
+	 * @param pool       the ForkJoinPool to compute on, or null
+	 */
+	public void forward(Tensor activation, Tensor nextInput, ForkJoinPool pool) {
+		backend.gemv(weights, activation, bias, nextInput, nbrLinks, nbrNeurons, pool);
+	}
+
+	/**
+	 * Calculates the input to the next layer for a whole batch at once, as
+	 * nextInput = weights * activation + bias (with the bias added to every
+	 * column), using one matrix multiplication.
+	 * 
+	 * @param activation nbrNeurons x batchSize matrix, one column per set of
+	 *                   data
+	 * @param nextInput  nbrLinks x batchSize matrix receiving the input to the
+	 *                   next layer
+	 * @param batchSize  number of sets of data in the batch
+	 */
+	public void forwardBatch(Tensor activation, Tensor nextInput, int batchSize) {
+		backend.gemm(weights, activation, nextInput, nbrLinks, nbrNeurons, batchSize);
+		backend.addBias(nextInput, bias, nbrLinks, batchSize);
+	}
+
+	/**
+	 * Calculates the input to the next layer for a whole batch at once like
+	 * forwardBatch(Tensor, Tensor, int), but splits the matrix multiplication
+	 * between the threads of pool if it is large enough (see Backend.gemm).
+	 * 
+	 * @param activation nbrNeurons x batchSize matrix, one column per set of
+	 *                   data
+	 * @param nextInput  nbrLinks x batchSize matrix receiving the input to the
+	 *                   next layer
+	 * @param batchSize  number of sets of data in the batch
+	 * @param pool       the ForkJoinPool to compute on, or null
+	 */
+	public void forwardBatch(Tensor activation, Tensor nextInput, int batchSize, ForkJoinPool pool) {
+		backend.gemm(weights, activation, nextInput, nbrLinks, nbrNeurons, batchSize, pool);
+		backend.addBias(nextInput, bias, nbrLinks, batchSize);
+	}
+
+	/**
+	 * Calculates the activation of the next layer for a single set of data, as
+	 * nextActivation = function(weights * activation + bias), in one kernel that
+	 * activates each value as it is computed (see Backend.gemvActivate), so the
+	 * input to the next layer is never stored. Used for inference, where the
+	 * input is not needed afterwards.
+	 * 
+	 * @param activation     vector of length nbrNeurons, the activation of this
+	 *                       layer
+	 * @param nextActivation vector of length nbrLinks receiving the activation of
+	 *                       the next layer
+	 * @param function       the activation function of the next layer
+	 * @param pool           the ForkJoinPool to compute on, or null
+	 */
+	public void forwardActivate(Tensor activation, Tensor nextActivation, Activation function, ForkJoinPool pool) {
+		backend.gemvActivate(function, weights, activation, bias, nextActivation, nbrLinks, nbrNeurons, pool);
+	}
+
+	/**
+	 * Calculates the activation of the next layer for a whole batch at once, as
+	 * nextActivation = function(weights * activation + bias), in one kernel that
+	 * adds the bias and activates each part of the product as soon as it is
+	 * computed (see Backend.gemmActivate).
+	 * 
+	 * @param activation     nbrNeurons x batchSize matrix, one column per set of
+	 *                       data
+	 * @param nextActivation nbrLinks x batchSize matrix receiving the activation
+	 *                       of the next layer
+	 * @param function       the activation function of the next layer
+	 * @param batchSize      number of sets of data in the batch
+	 * @param pool           the ForkJoinPool to compute on, or null
+	 */
+	public void forwardBatchActivate(Tensor activation, Tensor nextActivation, Activation function, int batchSize,
+			ForkJoinPool pool) {
+		backend.gemmActivate(function, weights, activation, bias, nextActivation, nbrLinks, nbrNeurons, batchSize,
+				pool);
+	}
+
+	/**
+	 * Backpropagates the error of the next layer through this layer for a whole
+	 * batch at once. Calculates the gradient of the weights (nextError *
+	 * transpose(activation)) and biases (row sums of nextError) summed over the
+	 * batch, and, if error is not null, the error with respect to the activation
+	 * of this layer (transpose(weights) * nextError). The latter still has to be
+	 * multiplied by the derivative of the activation function by the caller.
+	 * 
+	 * @param activation     nbrNeurons x batchSize matrix used in forwardBatch
+	 * @param nextError      nbrLinks x batchSize matrix, the error of the next
+	 *                       layer
+	 * @param weightGradient nbrLinks x nbrNeurons matrix receiving the gradient of
+	 *                       the weights
+	 * @param biasGradient   vector of length nbrLinks receiving the gradient of
+	 *                       the biases
+	 * @param error          nbrNeurons x batchSize matrix receiving the error of
+	 *                       this layer, or null if it is not needed
+	 * @param batchSize      number of sets of training data in the batch
+	 */
+	public void backwardBatch(Tensor activation, Tensor nextError, Tensor weightGradient, Tensor biasGradient,
+			Tensor error, int batchSize) {
+		backend.gemm(false, true, nextError, activation, weightGradient, nbrLinks, batchSize, nbrNeurons);
+		backend.sumRows(nextError, biasGradient, nbrLinks, batchSize);
+		if (error != null) {
+			backend.gemm(true, false, weights, nextError, error, nbrNeurons, nbrLinks, batchSize);
+		}
+	}
+
+	/**
+	 * Backpropagates the error of the next layer through this layer for a single
+	 * set of data and updates the weights and biases in place, without storing
+	 * the gradient: the error with respect to the activation of this layer
+	 * (transpose(weights) * nextError) is computed first, if error is not null,
+	 * then weights += step * nextError * transpose(activation) is added as an
+	 * outer product (Backend.ger) and bias += step * nextError. The error still
+	 * has to be multiplied by the derivative of the activation function by the
+	 * caller.
+	 * 
+	 * @param activation vector of length nbrNeurons used in the forward pass
+	 * @param nextError  vector of length nbrLinks, the error of the next layer
+	 * @param error      vector of length nbrNeurons receiving the error of this
+	 *                   layer, or null if it is not needed
+	 * @param step       factor to scale the gradient with, negative to descend
+	 */
+	public void backward(Tensor activation, Tensor nextError, Tensor error, double step) {
+		if (error != null) {
+			backend.gemm(true, false, weights, nextError, error, nbrNeurons, nbrLinks, 1);
+		}
+		backend.ger(step, nextError, activation, weights, nbrLinks, nbrNeurons);
+		backend.axpy(step, nextError, bias);
+	}
+
+	/**
+	 * Returns a string representation of this layer.
+	 * 
+	 * @return String representation of layer
+	 */
+	public String toString() {
+		if (nbrLinks == 0) {
+			return "Layer: " + nbrNeurons + " neurons without links, " + activationFunction;
+		}
+		return "Layer: " + nbrNeurons + " neurons with " + nbrLinks + " links, " + activationFunction;
+	}
+
+}
@@ -1,17 +1,75 @@
 package layers;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Simple class defining some simple matrix operations such as matrix
- * multiplication (dot-product) of two float[][] or two double[][[]
+ * multiplication (dot-product) of two float[][] or two double[][[]. Also
+ * contains the same operations for matrices stored as flat float[] or double[]
+ * in row-major order (element (row, col) of a matrix with cols columns is found
+ * at index row * cols + col), which is how the layers store their parameters.
  * 
  * @author OdinhengeT
  * @date 14th November 2020
- * @see LayerF
- * @see LayerD
+ * @see Layer
+ * @see backend.Backend
  *
  */
 public class MatrixOperations {
 
+	/**
+	 * Number of columns of m1 (rows of m2) handled per block in gemm, chosen so
+	 * that a block of m2 stays in the L2 cache while it is reused for every row of
+	 * m1.
+	 */
+	private static final int BLOCK_INNER = 128;
+
+	/**
+	 * Number of columns of m2 (and of the result) handled per block in gemm,
+	 * chosen so that one row of the result block stays in the L1 cache.
+	 */
+	private static final int BLOCK_COLS = 256;
+
+	/**
+	 * Smallest number of multiply-adds (rows x inner x cols) of a product that the
+	 * parallel variants of gemm and gemv split between threads. Smaller products,
+	 * such as every layer of the XOR network, are computed on the calling thread
+	 * without creating any task.
+	 */
+	public static final long PARALLEL_THRESHOLD = 1L << 18;
+
+	/**
+	 * Smallest number of multiply-adds in a block computed by one task of
+	 * forEachBlock.
+	 */
+	private static final long MIN_BLOCK_WORK = 1L << 15;
+
+	/**
+	 * Blocks of forEachBlock are split between columns that are multiples of this,
+	 * so every block starts on a cache line and covers whole vectors.
+	 */
+	private static final int BLOCK_ALIGNMENT = 64;
+
+	/**
+	 * Computes a block of a product, see forEachBlock.
+	 */
+	@FunctionalInterface
+	public interface BlockKernel {
+		/**
+		 * Computes the rows fromRow to toRow - 1 and columns fromCol to toCol - 1 of
+		 * the result, writing to no other element of it.
+		 * 
+		 * @param fromRow first row of the block
+		 * @param toRow   row after the last row of the block
+		 * @param fromCol first column of the block
+		 * @param toCol   column after the last column of the block
+		 */
+		void compute(int fromRow, int toRow, int fromCol, int toCol);
+	}
+
 	/**
 	 * Checks if two float[][] (or float matrices) are of the exact same shape
 	 * 
@@ -93,14 +151,14 @@ public class MatrixOperations {
 					"The two matrices do not have a defined dot-product in the given multiplication order");
 		}
 		float[][] result = new float[m1.length][m2[0].length];
-		float temp = 0;
 		for (int row_m1 = 0; row_m1 < m1.length; row_m1++) {
-			for (int col_m2 = 0; col_m2 < m2[0].length; col_m2++) {
-				temp = 0;
-				for (int i = 0; i < m2.length; i++) {
-					temp += m1[row_m1][i] * m2[i][col_m2];
+			float[] resultRow = result[row_m1];
+			for (int i = 0; i < m2.length; i++) {
+				float temp = m1[row_m1][i];
+				float[] m2Row = m2[i];
+				for (int col_m2 = 0; col_m2 < resultRow.length; col_m2++) {
+					resultRow[col_m2] += temp * m2Row[col_m2];
 				}
-				result[row_m1][col_m2] = temp;
 			}
 		}
 		return result;
@@ -121,17 +179,1428 @@ public class MatrixOperations {
 					"The two matrices do not have a defined dot-product in the given multiplication order");
 		}
 		double[][] result = new double[m1.length][m2[0].length];
-		double temp = 0;
 		for (int row_m1 = 0; row_m1 < m1.length; row_m1++) {
-			for (int col_m2 = 0; col_m2 < m2[0].length; col_m2++) {
-				temp = 0;
-				for (int i = 0; i < m2.length; i++) {
-					temp += m1[row_m1][i] * m2[i][col_m2];
+			double[] resultRow = result[row_m1];
+			for (int i = 0; i < m2.length; i++) {
+				double temp = m1[row_m1][i];
+				double[] m2Row = m2[i];
+				for (int col_m2 = 0; col_m2 < resultRow.length; col_m2++) {
+					resultRow[col_m2] += temp * m2Row[col_m2];
 				}
-				result[row_m1][col_m2] = temp;
 			}
 		}
 		return result;
 	}
 
+	/**
+	 * Checks if the flat float[] (float matrices in row-major order) are dot
+	 * multipliable (in the m1 * m2 order), where m1 is a rows x inner matrix and m2
+	 * is a inner x cols matrix.
+	 * 
+	 * @param m1    flat float[] "matrix" number 1
+	 * @param m2    flat float[] "matrix" number 2
+	 * @param rows  number of rows of m1
+	 * @param inner number of columns of m1 and rows of m2
+	 * @param cols  number of columns of m2
+	 * @return true if m1 and m2 are of the given shapes
+	 */
+	public static boolean areMatMultF(float[] m1, float[] m2, int rows, int inner, int cols) {
+		return m1.length == rows * inner && m2.length == inner * cols;
+	}
+
+	/**
+	 * Checks if the flat double[] (double matrices in row-major order) are dot
+	 * multipliable (in the m1 * m2 order), where m1 is a rows x inner matrix and m2
+	 * is a inner x cols matrix.
+	 * 
+	 * @param m1    flat double[] "matrix" number 1
+	 * @param m2    flat double[] "matrix" number 2
+	 * @param rows  number of rows of m1
+	 * @param inner number of columns of m1 and rows of m2
+	 * @param cols  number of columns of m2
+	 * @return true if m1 and m2 are of the given shapes
+	 */
+	public static boolean areMatMultD(double[] m1, double[] m2, int rows, int inner, int cols) {
+		return m1.length == rows * inner && m2.length == inner * cols;
+	}
+
+	/**
+	 * Multiplies the flat rows x inner matrix m1 with the flat inner x cols matrix
+	 * m2 (in that order) if possible, throws IllegalArgumentException if not. The
+	 * result is allocated by this method, use gemm to reuse an existing buffer.
+	 * 
+	 * @param m1    flat float[] "matrix" number 1
+	 * @param m2    flat float[] "matrix" number 2
+	 * @param rows  number of rows of m1
+	 * @param inner number of columns of m1 and rows of m2
+	 * @param cols  number of columns of m2
+	 * @return result of m1 * m2 as a flat rows x cols float[]
+	 * @throws IllegalArgumentException if m1 * m2 is not defined
+	 */
+	public static float[] matMultF(float[] m1, float[] m2, int rows, int inner, int cols) {
+		if (!areMatMultF(m1, m2, rows, inner, cols)) {
+			throw new IllegalArgumentException(
+					"The two matrices do not have a defined dot-product in the given multiplication order");
+		}
+		float[] result = new float[rows * cols];
+		gemmF(m1, m2, result, rows, inner, cols);
+		return result;
+	}
+
+	/**
+	 * Multiplies the flat rows x inner matrix m1 with the flat inner x cols matrix
+	 * m2 (in that order) if possible, throws IllegalArgumentException if not. The
+	 * result is allocated by this method, use gemm to reuse an existing buffer.
+	 * 
+	 * @param m1    flat double[] "matrix" number 1
+	 * @param m2    flat double[] "matrix" number 2
+	 * @param rows  number of rows of m1
+	 * @param inner number of columns of m1 and rows of m2
+	 * @param cols  number of columns of m2
+	 * @return result of m1 * m2 as a flat rows x cols double[]
+	 * @throws IllegalArgumentException if m1 * m2 is not defined
+	 */
+	public static double[] matMultD(double[] m1, double[] m2, int rows, int inner, int cols) {
+		if (!areMatMultD(m1, m2, rows, inner, cols)) {
+			throw new IllegalArgumentException(
+					"The two matrices do not have a defined dot-product in the given multiplication order");
+		}
+		double[] result = new double[rows * cols];
+		gemmD(m1, m2, result, rows, inner, cols);
+		return result;
+	}
+
+	/**
+	 * Returns whether forEachBlock splits a rows x cols product with inner
+	 * multiply-adds per element between the threads of pool: if pool isn't null,
+	 * has more than one thread, and the product has at least PARALLEL_THRESHOLD
+	 * multiply-adds.
+	 * 
+	 * @param pool  the ForkJoinPool to compute on, may be null
+	 * @param rows  number of rows of the result
+	 * @param inner number of multiply-adds per element of the result
+	 * @param cols  number of columns of the result
+	 * @return true if the product is computed in parallel
+	 */
+	public static boolean isParallel(ForkJoinPool pool, int rows, int inner, int cols) {
+		return pool != null && pool.getParallelism() > 1 && (long) rows * inner * cols >= PARALLEL_THRESHOLD;
+	}
+
+	/**
+	 * Computes a rows x cols result, each element of which takes inner
+	 * multiply-adds, by calling kernel on blocks of rows and columns that together
+	 * cover the result exactly once. If isParallel(pool, rows, inner, cols) the
+	 * result is split in halves (along its rows, or its columns when it has more
+	 * columns than rows or a single row) until there are about four blocks per
+	 * thread, and the blocks are computed on the threads of pool; otherwise kernel
+	 * is called once for the whole result on the calling thread. Returns when
+	 * every block has been computed.
+	 * 
+	 * @param pool   the ForkJoinPool to compute on, or null to compute on the
+	 *               calling thread
+	 * @param rows   number of rows of the result
+	 * @param inner  number of multiply-adds per element of the result
+	 * @param cols   number of columns of the result
+	 * @param kernel computes a block of the result
+	 */
+	public static void forEachBlock(ForkJoinPool pool, int rows, int inner, int cols, BlockKernel kernel) {
+		if (!isParallel(pool, rows, inner, cols)) {
+			kernel.compute(0, rows, 0, cols);
+			return;
+		}
+		long work = (long) rows * inner * cols;
+		long grain = Math.max(MIN_BLOCK_WORK, work / (4L * pool.getParallelism()));
+		BlockTask task = new BlockTask(kernel, 0, rows, 0, cols, inner, grain);
+		if (ForkJoinTask.getPool() == pool) {
+			// Already running on pool, for instance in a task training a part of a batch
+			task.invoke();
+		} else {
+			pool.invoke(task);
+		}
+	}
+
+	/**
+	 * Computes a block of the result of forEachBlock, splitting it in halves while
+	 * it takes more than grain multiply-adds.
+	 */
+	@SuppressWarnings("serial")
+	private static final class BlockTask extends RecursiveAction {
+		private final BlockKernel kernel;
+		private final int fromRow;
+		private final int toRow;
+		private final int fromCol;
+		private final int toCol;
+		private final int inner;
+		private final long grain;
+
+		private BlockTask(BlockKernel kernel, int fromRow, int toRow, int fromCol, int toCol, int inner, long grain) {
+			this.kernel = kernel;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+			this.fromCol = fromCol;
+			this.toCol = toCol;
+			this.inner = inner;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			int nbrRows = toRow - fromRow;
+			int nbrCols = toCol - fromCol;
+			boolean canSplitCols = nbrCols >= 2 * BLOCK_ALIGNMENT;
+			if ((long) nbrRows * inner * nbrCols <= grain || (nbrRows < 2 && !canSplitCols)) {
+				kernel.compute(fromRow, toRow, fromCol, toCol);
+			} else if (canSplitCols && (nbrCols > nbrRows || nbrRows < 2)) {
+				int middle = fromCol + nbrCols / 2 / BLOCK_ALIGNMENT * BLOCK_ALIGNMENT;
+				invokeAll(new BlockTask(kernel, fromRow, toRow, fromCol, middle, inner, grain),
+						new BlockTask(kernel, fromRow, toRow, middle, toCol, inner, grain));
+			} else {
+				int middle = (fromRow + toRow) >>> 1;
+				invokeAll(new BlockTask(kernel, fromRow, middle, fromCol, toCol, inner, grain),
+						new BlockTask(kernel, middle, toRow, fromCol, toCol, inner, grain));
+			}
+		}
+	}
+
+	/**
+	 * Checks that the flat buffers given to gemm are large enough to hold a rows x
+	 * inner, a inner x cols and a rows x cols matrix respectively. Public so that
+	 * other implementations of the gemm kernels validate their arguments the same
+	 * way.
+	 * 
+	 * @param m1Length     length of the first factor
+	 * @param m2Length     length of the second factor
+	 * @param resultLength length of the result buffer
+	 * @param rows         number of rows of the product
+	 * @param inner        length of the dot-products
+	 * @param cols         number of columns of the product
+	 * @throws IllegalArgumentException if any buffer is too small
+	 */
+	public static void checkGemmDimensions(int m1Length, int m2Length, int resultLength, int rows, int inner,
+			int cols) {
+		if (m1Length < rows * inner || m2Length < inner * cols) {
+			throw new IllegalArgumentException(
+					"The two matrices do not have a defined dot-product in the given multiplication order");
+		}
+		if (resultLength < rows * cols) {
+			throw new IllegalArgumentException("The result buffer is too small to hold the dot-product");
+		}
+	}
+
+	/**
+	 * Multiplies the flat rows x inner matrix m1 with the flat inner x cols matrix
+	 * m2 (in that order) and writes the result into the flat rows x cols matrix
+	 * result, overwriting its previous content. Nothing is allocated.
+	 * <p>
+	 * The product is computed block by block (BLOCK_INNER x BLOCK_COLS blocks of
+	 * m2) so that the part of m2 in use stays in cache, and the innermost loop
+	 * walks a row of m2 and a row of result with unit stride, which lets the JIT
+	 * auto-vectorize it. Four columns of m1 are folded into each pass over a
+	 * result row, so every load and store of result is shared by four
+	 * multiply-adds.
+	 * 
+	 * @param m1     flat float[] "matrix" number 1
+	 * @param m2     flat float[] "matrix" number 2
+	 * @param result flat float[] receiving m1 * m2
+	 * @param rows   number of rows of m1
+	 * @param inner  number of columns of m1 and rows of m2
+	 * @param cols   number of columns of m2
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemmF(float[] m1, float[] m2, float[] result, int rows, int inner, int cols) {
+		checkGemmDimensions(m1.length, m2.length, result.length, rows, inner, cols);
+		gemmBlockF(m1, 0, m2, result, 0, rows, 0, cols, inner, cols, null, 0, null);
+	}
+
+	/**
+	 * Multiplies m1 with m2 like gemmF(float[], float[], float[], int, int, int), but
+	 * splits result into blocks of rows and columns that are computed on the
+	 * threads of pool (see forEachBlock) if the product is large enough. Every
+	 * element is computed exactly as by the sequential gemmF, so the result does
+	 * not depend on how the product was split.
+	 * 
+	 * @param m1     flat float[] "matrix" number 1
+	 * @param m2     flat float[] "matrix" number 2
+	 * @param result flat float[] receiving m1 * m2
+	 * @param rows   number of rows of m1
+	 * @param inner  number of columns of m1 and rows of m2
+	 * @param cols   number of columns of m2
+	 * @param pool   the ForkJoinPool to compute on, or null to compute on the
+	 *               calling thread
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemmF(float[] m1, float[] m2, float[] result, int rows, int inner, int cols,
+			ForkJoinPool pool) {
+		checkGemmDimensions(m1.length, m2.length, result.length, rows, inner, cols);
+		if (!isParallel(pool, rows, inner, cols)) {
+			gemmBlockF(m1, 0, m2, result, 0, rows, 0, cols, inner, cols, null, 0, null);
+			return;
+		}
+		forEachBlock(pool, rows, inner, cols, (fromRow, toRow, fromCol, toCol) -> gemmBlockF(m1, 0, m2, result,
+				fromRow, toRow, fromCol, toCol, inner, cols, null, 0, null));
+	}
+
+	/**
+	 * Computes function(m1 * m2 + bias) into result in one pass, like
+	 * gemmActivateF with both offsets 0.
+	 * 
+	 * @param function activation function to apply, or null to only add bias
+	 * @param m1       flat float[] "matrix" of size rows x inner
+	 * @param m2       flat float[] "matrix" of size inner x cols
+	 * @param bias     float[] vector of length rows, or null to add no bias
+	 * @param result   flat float[] receiving function(m1 * m2 + bias)
+	 * @param rows     number of rows of m1
+	 * @param inner    number of columns of m1 and rows of m2
+	 * @param cols     number of columns of m2
+	 * @param pool     the ForkJoinPool to compute on, or null to compute on the
+	 *                 calling thread
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemmActivateF(Activation function, float[] m1, float[] m2, float[] bias, float[] result,
+			int rows, int inner, int cols, ForkJoinPool pool) {
+		gemmActivateF(function, m1, 0, m2, bias, 0, result, rows, inner, cols, pool);
+	}
+
+	/**
+	 * Computes function(m1 * m2 + bias) into result in one pass, bias being added
+	 * to every column: the forward pass of a layer for a batch, with the
+	 * activation function of the next layer. The product is computed like
+	 * gemmF, and each segment of a row of result gets its bias added and is
+	 * activated as soon as it is done, while it is still in cache, instead of in
+	 * two more passes over result. SOFTMAX, which needs a whole column, is
+	 * applied after the product. Every element is the same as by gemmF,
+	 * addBiasF and function.apply in turn. The offsets let m1 and bias be slices
+	 * of one larger buffer, such as the packed parameters of an InferencePlan.
+	 * 
+	 * @param function   activation function to apply, or null to only add bias
+	 * @param m1         flat float[] "matrix" of size rows x inner
+	 * @param m1Offset   index of the first element of the matrix in m1
+	 * @param m2         flat float[] "matrix" of size inner x cols
+	 * @param bias       float[] vector of length rows, or null to add no bias
+	 * @param biasOffset index of the first element of the vector in bias
+	 * @param result     flat float[] receiving function(m1 * m2 + bias)
+	 * @param rows       number of rows of m1
+	 * @param inner      number of columns of m1 and rows of m2
+	 * @param cols       number of columns of m2
+	 * @param pool       the ForkJoinPool to compute on, or null to compute on the
+	 *                   calling thread
+	 * @throws IllegalArgumentException if an offset is negative or any buffer is
+	 *                                  too small for the given dimensions
+	 */
+	public static void gemmActivateF(Activation function, float[] m1, int m1Offset, float[] m2, float[] bias,
+			int biasOffset, float[] result, int rows, int inner, int cols, ForkJoinPool pool) {
+		if (m1Offset < 0 || biasOffset < 0) {
+			throw new IllegalArgumentException("An offset is negative");
+		}
+		checkGemmDimensions(m1.length - m1Offset, m2.length, result.length, rows, inner, cols);
+		if (bias != null && bias.length - biasOffset < rows) {
+			throw new IllegalArgumentException("The bias is too short for the dot-product");
+		}
+		Activation elementwise = function != null && function.isElementwise() ? function : null;
+		if (!isParallel(pool, rows, inner, cols)) {
+			gemmBlockF(m1, m1Offset, m2, result, 0, rows, 0, cols, inner, cols, bias, biasOffset, elementwise);
+		} else {
+			forEachBlock(pool, rows, inner, cols, (fromRow, toRow, fromCol, toCol) -> gemmBlockF(m1, m1Offset, m2,
+					result, fromRow, toRow, fromCol, toCol, inner, cols, bias, biasOffset, elementwise));
+		}
+		if (function != null && elementwise == null) {
+			function.apply(result, result, rows, cols);
+		}
+	}
+
+	/**
+	 * Computes the rows fromRow to toRow - 1 and columns fromCol to toCol - 1 of
+	 * the product of the flat rows x inner matrix m1 and the flat inner x cols
+	 * matrix m2 into result, overwriting that block of result and nothing else.
+	 * If bias or function is not null, bias[biasOffset + row] is added to and
+	 * function applied to each segment of a row as soon as its last block of inner
+	 * is done. m1 starts at m1Offset. The dimensions must have been checked by
+	 * the caller.
+	 */
+	private static void gemmBlockF(float[] m1, int m1Offset, float[] m2, float[] result, int fromRow, int toRow,
+			int fromCol, int toCol, int inner, int cols, float[] bias, int biasOffset, Activation function) {
+		for (int row = fromRow; row < toRow; row++) {
+			Arrays.fill(result, row * cols + fromCol, row * cols + toCol, 0.0f);
+		}
+		for (int blockInner = 0; blockInner < inner; blockInner += BLOCK_INNER) {
+			int endInner = Math.min(blockInner + BLOCK_INNER, inner);
+			for (int blockCol = fromCol; blockCol < toCol; blockCol += BLOCK_COLS) {
+				int endCol = Math.min(blockCol + BLOCK_COLS, toCol);
+				for (int row = fromRow; row < toRow; row++) {
+					int m1Row = m1Offset + row * inner;
+					int resultRow = row * cols;
+					int i = blockInner;
+					for (; i + 3 < endInner; i += 4) {
+						float a0 = m1[m1Row + i];
+						float a1 = m1[m1Row + i + 1];
+						float a2 = m1[m1Row + i + 2];
+						float a3 = m1[m1Row + i + 3];
+						int m2Row0 = i * cols;
+						int m2Row1 = m2Row0 + cols;
+						int m2Row2 = m2Row1 + cols;
+						int m2Row3 = m2Row2 + cols;
+						for (int col = blockCol; col < endCol; col++) {
+							result[resultRow + col] += a0 * m2[m2Row0 + col] + a1 * m2[m2Row1 + col]
+									+ a2 * m2[m2Row2 + col] + a3 * m2[m2Row3 + col];
+						}
+					}
+					for (; i < endInner; i++) {
+						float a = m1[m1Row + i];
+						int m2Row = i * cols;
+						for (int col = blockCol; col < endCol; col++) {
+							result[resultRow + col] += a * m2[m2Row + col];
+						}
+					}
+					if (endInner == inner) {
+						epilogueF(result, resultRow + blockCol, resultRow + endCol, bias, biasOffset + row, function);
+					}
+				}
+			}
+		}
+		if (inner == 0) {
+			for (int row = fromRow; row < toRow; row++) {
+				epilogueF(result, row * cols + fromCol, row * cols + toCol, bias, biasOffset + row, function);
+			}
+		}
+	}
+
+	/**
+	 * Adds bias[biasIndex] to the elements from to to - 1 of result and applies
+	 * function to them, in place, while they are still in cache after being
+	 * computed. Either may be null to skip it.
+	 */
+	private static void epilogueF(float[] result, int from, int to, float[] bias, int biasIndex,
+			Activation function) {
+		if (bias == null && function == null) {
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			float value = bias == null ? result[i] : result[i] + bias[biasIndex];
+			result[i] = function == null ? value : function.apply(value);
+		}
+	}
+
+	/**
+	 * Multiplies the flat rows x inner matrix m1 with the flat inner x cols matrix
+	 * m2 (in that order) and writes the result into the flat rows x cols matrix
+	 * result, overwriting its previous content. Nothing is allocated.
+	 * <p>
+	 * Blocked and unrolled in the same way as gemmF.
+	 * 
+	 * @param m1     flat double[] "matrix" number 1
+	 * @param m2     flat double[] "matrix" number 2
+	 * @param result flat double[] receiving m1 * m2
+	 * @param rows   number of rows of m1
+	 * @param inner  number of columns of m1 and rows of m2
+	 * @param cols   number of columns of m2
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemmD(double[] m1, double[] m2, double[] result, int rows, int inner, int cols) {
+		checkGemmDimensions(m1.length, m2.length, result.length, rows, inner, cols);
+		gemmBlockD(m1, 0, m2, result, 0, rows, 0, cols, inner, cols, null, 0, null);
+	}
+
+	/**
+	 * Multiplies m1 with m2 like gemmD(double[], double[], double[], int, int, int), but
+	 * splits result into blocks of rows and columns that are computed on the
+	 * threads of pool (see forEachBlock) if the product is large enough. Every
+	 * element is computed exactly as by the sequential gemmD, so the result does
+	 * not depend on how the product was split.
+	 * 
+	 * @param m1     flat double[] "matrix" number 1
+	 * @param m2     flat double[] "matrix" number 2
+	 * @param result flat double[] receiving m1 * m2
+	 * @param rows   number of rows of m1
+	 * @param inner  number of columns of m1 and rows of m2
+	 * @param cols   number of columns of m2
+	 * @param pool   the ForkJoinPool to compute on, or null to compute on the
+	 *               calling thread
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemmD(double[] m1, double[] m2, double[] result, int rows, int inner, int cols,
+			ForkJoinPool pool) {
+		checkGemmDimensions(m1.length, m2.length, result.length, rows, inner, cols);
+		if (!isParallel(pool, rows, inner, cols)) {
+			gemmBlockD(m1, 0, m2, result, 0, rows, 0, cols, inner, cols, null, 0, null);
+			return;
+		}
+		forEachBlock(pool, rows, inner, cols, (fromRow, toRow, fromCol, toCol) -> gemmBlockD(m1, 0, m2, result,
+				fromRow, toRow, fromCol, toCol, inner, cols, null, 0, null));
+	}
+
+	/**
+	 * Computes function(m1 * m2 + bias) into result in one pass, like
+	 * gemmActivateD with both offsets 0.
+	 * 
+	 * @param function activation function to apply, or null to only add bias
+	 * @param m1       flat double[] "matrix" of size rows x inner
+	 * @param m2       flat double[] "matrix" of size inner x cols
+	 * @param bias     double[] vector of length rows, or null to add no bias
+	 * @param result   flat double[] receiving function(m1 * m2 + bias)
+	 * @param rows     number of rows of m1
+	 * @param inner    number of columns of m1 and rows of m2
+	 * @param cols     number of columns of m2
+	 * @param pool     the ForkJoinPool to compute on, or null to compute on the
+	 *                 calling thread
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemmActivateD(Activation function, double[] m1, double[] m2, double[] bias, double[] result,
+			int rows, int inner, int cols, ForkJoinPool pool) {
+		gemmActivateD(function, m1, 0, m2, bias, 0, result, rows, inner, cols, pool);
+	}
+
+	/**
+	 * Computes function(m1 * m2 + bias) into result in one pass, bias being added
+	 * to every column: the forward pass of a layer for a batch, with the
+	 * activation function of the next layer. The product is computed like
+	 * gemmD, and each segment of a row of result gets its bias added and is
+	 * activated as soon as it is done, while it is still in cache, instead of in
+	 * two more passes over result. SOFTMAX, which needs a whole column, is
+	 * applied after the product. Every element is the same as by gemmD,
+	 * addBiasD and function.apply in turn. The offsets let m1 and bias be slices
+	 * of one larger buffer, such as the packed parameters of an InferencePlan.
+	 * 
+	 * @param function   activation function to apply, or null to only add bias
+	 * @param m1         flat double[] "matrix" of size rows x inner
+	 * @param m1Offset   index of the first element of the matrix in m1
+	 * @param m2         flat double[] "matrix" of size inner x cols
+	 * @param bias       double[] vector of length rows, or null to add no bias
+	 * @param biasOffset index of the first element of the vector in bias
+	 * @param result     flat double[] receiving function(m1 * m2 + bias)
+	 * @param rows       number of rows of m1
+	 * @param inner      number of columns of m1 and rows of m2
+	 * @param cols       number of columns of m2
+	 * @param pool       the ForkJoinPool to compute on, or null to compute on the
+	 *                   calling thread
+	 * @throws IllegalArgumentException if an offset is negative or any buffer is
+	 *                                  too small for the given dimensions
+	 */
+	public static void gemmActivateD(Activation function, double[] m1, int m1Offset, double[] m2, double[] bias,
+			int biasOffset, double[] result, int rows, int inner, int cols, ForkJoinPool pool) {
+		if (m1Offset < 0 || biasOffset < 0) {
+			throw new IllegalArgumentException("An offset is negative");
+		}
+		checkGemmDimensions(m1.length - m1Offset, m2.length, result.length, rows, inner, cols);
+		if (bias != null && bias.length - biasOffset < rows) {
+			throw new IllegalArgumentException("The bias is too short for the dot-product");
+		}
+		Activation elementwise = function != null && function.isElementwise() ? function : null;
+		if (!isParallel(pool, rows, inner, cols)) {
+			gemmBlockD(m1, m1Offset, m2, result, 0, rows, 0, cols, inner, cols, bias, biasOffset, elementwise);
+		} else {
+			forEachBlock(pool, rows, inner, cols, (fromRow, toRow, fromCol, toCol) -> gemmBlockD(m1, m1Offset, m2,
+					result, fromRow, toRow, fromCol, toCol, inner, cols, bias, biasOffset, elementwise));
+		}
+		if (function != null && elementwise == null) {
+			function.apply(result, result, rows, cols);
+		}
+	}
+
+	/**
+	 * Computes the rows fromRow to toRow - 1 and columns fromCol to toCol - 1 of
+	 * the product of the flat rows x inner matrix m1 and the flat inner x cols
+	 * matrix m2 into result, overwriting that block of result and nothing else.
+	 * If bias or function is not null, bias[biasOffset + row] is added to and
+	 * function applied to each segment of a row as soon as its last block of inner
+	 * is done. m1 starts at m1Offset. The dimensions must have been checked by
+	 * the caller.
+	 */
+	private static void gemmBlockD(double[] m1, int m1Offset, double[] m2, double[] result, int fromRow, int toRow,
+			int fromCol, int toCol, int inner, int cols, double[] bias, int biasOffset, Activation function) {
+		for (int row = fromRow; row < toRow; row++) {
+			Arrays.fill(result, row * cols + fromCol, row * cols + toCol, 0.0);
+		}
+		for (int blockInner = 0; blockInner < inner; blockInner += BLOCK_INNER) {
+			int endInner = Math.min(blockInner + BLOCK_INNER, inner);
+			for (int blockCol = fromCol; blockCol < toCol; blockCol += BLOCK_COLS) {
+				int endCol = Math.min(blockCol + BLOCK_COLS, toCol);
+				for (int row = fromRow; row < toRow; row++) {
+					int m1Row = m1Offset + row * inner;
+					int resultRow = row * cols;
+					int i = blockInner;
+					for (; i + 3 < endInner; i += 4) {
+						double a0 = m1[m1Row + i];
+						double a1 = m1[m1Row + i + 1];
+						double a2 = m1[m1Row + i + 2];
+						double a3 = m1[m1Row + i + 3];
+						int m2Row0 = i * cols;
+						int m2Row1 = m2Row0 + cols;
+						int m2Row2 = m2Row1 + cols;
+						int m2Row3 = m2Row2 + cols;
+						for (int col = blockCol; col < endCol; col++) {
+							result[resultRow + col] += a0 * m2[m2Row0 + col] + a1 * m2[m2Row1 + col]
+									+ a2 * m2[m2Row2 + col] + a3 * m2[m2Row3 + col];
+						}
+					}
+					for (; i < endInner; i++) {
+						double a = m1[m1Row + i];
+						int m2Row = i * cols;
+						for (int col = blockCol; col < endCol; col++) {
+							result[resultRow + col] += a * m2[m2Row + col];
+						}
+					}
+					if (endInner == inner) {
+						epilogueD(result, resultRow + blockCol, resultRow + endCol, bias, biasOffset + row, function);
+					}
+				}
+			}
+		}
+		if (inner == 0) {
+			for (int row = fromRow; row < toRow; row++) {
+				epilogueD(result, row * cols + fromCol, row * cols + toCol, bias, biasOffset + row, function);
+			}
+		}
+	}
+
+	/**
+	 * Adds bias[biasIndex] to the elements from to to - 1 of result and applies
+	 * function to them, in place, while they are still in cache after being
+	 * computed. Either may be null to skip it.
+	 */
+	private static void epilogueD(double[] result, int from, int to, double[] bias, int biasIndex,
+			Activation function) {
+		if (bias == null && function == null) {
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			double value = bias == null ? result[i] : result[i] + bias[biasIndex];
+			result[i] = function == null ? value : function.apply(value);
+		}
+	}
+
+	/**
+	 * Multiplies the transpose of the flat inner x rows matrix m1 with the flat
+	 * inner x cols matrix m2 and writes the rows x cols result into result,
+	 * overwriting its previous content. m1 is read in place, no transposed copy is
+	 * made: every row of m1 and m2 is visited once and its contribution is spread
+	 * over the rows of result with unit stride.
+	 * 
+	 * @param m1     flat float[] "matrix" of size inner x rows
+	 * @param m2     flat float[] "matrix" of size inner x cols
+	 * @param result flat float[] receiving transpose(m1) * m2
+	 * @param rows   number of columns of m1
+	 * @param inner  number of rows of m1 and m2
+	 * @param cols   number of columns of m2
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemmTransposeM1F(float[] m1, float[] m2, float[] result, int rows, int inner, int cols) {
+		checkGemmDimensions(m1.length, m2.length, result.length, rows, inner, cols);
+		Arrays.fill(result, 0, rows * cols, 0.0f);
+		for (int blockCol = 0; blockCol < cols; blockCol += BLOCK_COLS) {
+			int endCol = Math.min(blockCol + BLOCK_COLS, cols);
+			for (int i = 0; i < inner; i++) {
+				int m1Row = i * rows;
+				int m2Row = i * cols;
+				for (int row = 0; row < rows; row++) {
+					float a = m1[m1Row + row];
+					int resultRow = row * cols;
+					for (int col = blockCol; col < endCol; col++) {
+						result[resultRow + col] += a * m2[m2Row + col];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Multiplies the flat rows x inner matrix m1 with the transpose of the flat
+	 * cols x inner matrix m2 and writes the rows x cols result into result,
+	 * overwriting its previous content. m2 is read in place, no transposed copy is
+	 * made: each entry of result is a dot-product between a row of m1 and a row of
+	 * m2, both of which are contiguous.
+	 * 
+	 * @param m1     flat float[] "matrix" of size rows x inner
+	 * @param m2     flat float[] "matrix" of size cols x inner
+	 * @param result flat float[] receiving m1 * transpose(m2)
+	 * @param rows   number of rows of m1
+	 * @param inner  number of columns of m1 and m2
+	 * @param cols   number of rows of m2
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemmTransposeM2F(float[] m1, float[] m2, float[] result, int rows, int inner, int cols) {
+		checkGemmDimensions(m1.length, m2.length, result.length, rows, inner, cols);
+		for (int row = 0; row < rows; row++) {
+			int m1Row = row * inner;
+			int resultRow = row * cols;
+			for (int col = 0; col < cols; col++) {
+				int m2Row = col * inner;
+				float sum0 = 0.0f, sum1 = 0.0f, sum2 = 0.0f, sum3 = 0.0f;
+				int i = 0;
+				for (; i + 3 < inner; i += 4) {
+					sum0 += m1[m1Row + i] * m2[m2Row + i];
+					sum1 += m1[m1Row + i + 1] * m2[m2Row + i + 1];
+					sum2 += m1[m1Row + i + 2] * m2[m2Row + i + 2];
+					sum3 += m1[m1Row + i + 3] * m2[m2Row + i + 3];
+				}
+				for (; i < inner; i++) {
+					sum0 += m1[m1Row + i] * m2[m2Row + i];
+				}
+				result[resultRow + col] = (sum0 + sum1) + (sum2 + sum3);
+			}
+		}
+	}
+
+	/**
+	 * Multiplies the transpose of the flat inner x rows matrix m1 with the flat
+	 * inner x cols matrix m2 and writes the rows x cols result into result,
+	 * overwriting its previous content. m1 is read in place, no transposed copy is
+	 * made: every row of m1 and m2 is visited once and its contribution is spread
+	 * over the rows of result with unit stride.
+	 * 
+	 * @param m1     flat double[] "matrix" of size inner x rows
+	 * @param m2     flat double[] "matrix" of size inner x cols
+	 * @param result flat double[] receiving transpose(m1) * m2
+	 * @param rows   number of columns of m1
+	 * @param inner  number of rows of m1 and m2
+	 * @param cols   number of columns of m2
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemmTransposeM1D(double[] m1, double[] m2, double[] result, int rows, int inner, int cols) {
+		checkGemmDimensions(m1.length, m2.length, result.length, rows, inner, cols);
+		Arrays.fill(result, 0, rows * cols, 0.0);
+		for (int blockCol = 0; blockCol < cols; blockCol += BLOCK_COLS) {
+			int endCol = Math.min(blockCol + BLOCK_COLS, cols);
+			for (int i = 0; i < inner; i++) {
+				int m1Row = i * rows;
+				int m2Row = i * cols;
+				for (int row = 0; row < rows; row++) {
+					double a = m1[m1Row + row];
+					int resultRow = row * cols;
+					for (int col = blockCol; col < endCol; col++) {
+						result[resultRow + col] += a * m2[m2Row + col];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Multiplies the flat rows x inner matrix m1 with the transpose of the flat
+	 * cols x inner matrix m2 and writes the rows x cols result into result,
+	 * overwriting its previous content. m2 is read in place, no transposed copy is
+	 * made: each entry of result is a dot-product between a row of m1 and a row of
+	 * m2, both of which are contiguous.
+	 * 
+	 * @param m1     flat double[] "matrix" of size rows x inner
+	 * @param m2     flat double[] "matrix" of size cols x inner
+	 * @param result flat double[] receiving m1 * transpose(m2)
+	 * @param rows   number of rows of m1
+	 * @param inner  number of columns of m1 and m2
+	 * @param cols   number of rows of m2
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemmTransposeM2D(double[] m1, double[] m2, double[] result, int rows, int inner, int cols) {
+		checkGemmDimensions(m1.length, m2.length, result.length, rows, inner, cols);
+		for (int row = 0; row < rows; row++) {
+			int m1Row = row * inner;
+			int resultRow = row * cols;
+			for (int col = 0; col < cols; col++) {
+				int m2Row = col * inner;
+				double sum0 = 0.0, sum1 = 0.0, sum2 = 0.0, sum3 = 0.0;
+				int i = 0;
+				for (; i + 3 < inner; i += 4) {
+					sum0 += m1[m1Row + i] * m2[m2Row + i];
+					sum1 += m1[m1Row + i + 1] * m2[m2Row + i + 1];
+					sum2 += m1[m1Row + i + 2] * m2[m2Row + i + 2];
+					sum3 += m1[m1Row + i + 3] * m2[m2Row + i + 3];
+				}
+				for (; i < inner; i++) {
+					sum0 += m1[m1Row + i] * m2[m2Row + i];
+				}
+				result[resultRow + col] = (sum0 + sum1) + (sum2 + sum3);
+			}
+		}
+	}
+
+	/**
+	 * Multiplies m1, or its transpose if transposeM1, with m2, or its transpose if
+	 * transposeM2, and writes the rows x cols result into result, overwriting its
+	 * previous content. No transposed copy of either matrix is made: the flags
+	 * select gemmF, gemmTransposeM1F or gemmTransposeM2F, and the product of
+	 * two transposes is computed as dot-products reading m2 with unit stride.
+	 * 
+	 * @param transposeM1 if m1 is stored as an inner x rows matrix to be
+	 *                    transposed
+	 * @param transposeM2 if m2 is stored as a cols x inner matrix to be
+	 *                    transposed
+	 * @param m1          flat float[] "matrix" of size rows x inner, or inner x rows
+	 * @param m2          flat float[] "matrix" of size inner x cols, or cols x inner
+	 * @param result      flat float[] receiving the rows x cols product
+	 * @param rows        number of rows of the product
+	 * @param inner       length of the dot-products
+	 * @param cols        number of columns of the product
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemmF(boolean transposeM1, boolean transposeM2, float[] m1, float[] m2, float[] result,
+			int rows, int inner, int cols) {
+		if (!transposeM1 && !transposeM2) {
+			gemmF(m1, m2, result, rows, inner, cols);
+		} else if (!transposeM2) {
+			gemmTransposeM1F(m1, m2, result, rows, inner, cols);
+		} else if (!transposeM1) {
+			gemmTransposeM2F(m1, m2, result, rows, inner, cols);
+		} else {
+			checkGemmDimensions(m1.length, m2.length, result.length, rows, inner, cols);
+			for (int row = 0; row < rows; row++) {
+				int resultRow = row * cols;
+				for (int col = 0; col < cols; col++) {
+					int m2Row = col * inner;
+					float sum = 0.0f;
+					for (int i = 0; i < inner; i++) {
+						sum += m1[i * rows + row] * m2[m2Row + i];
+					}
+					result[resultRow + col] = sum;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds alpha times the outer product of x and y to the flat rows x cols matrix
+	 * m in place, as m += alpha * x * transpose(y) (the BLAS ger). This is the
+	 * gradient of the weights for a single set of data, so a layer can be updated
+	 * without storing the gradient first. Each row of m gets y scaled by one
+	 * factor added to it with unit stride.
+	 * 
+	 * @param alpha factor to scale the outer product with
+	 * @param x     float[] vector of length rows
+	 * @param y     float[] vector of length cols
+	 * @param m     flat float[] "matrix" of size rows x cols to add to
+	 * @param rows  number of rows of m
+	 * @param cols  number of columns of m
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gerF(float alpha, float[] x, float[] y, float[] m, int rows, int cols) {
+		if (x.length < rows || y.length < cols || m.length < rows * cols) {
+			throw new IllegalArgumentException("The vectors and matrix are too small for the outer product");
+		}
+		for (int row = 0; row < rows; row++) {
+			float a = alpha * x[row];
+			int mRow = row * cols;
+			for (int col = 0; col < cols; col++) {
+				m[mRow + col] += a * y[col];
+			}
+		}
+	}
+
+	/**
+	 * Multiplies m1, or its transpose if transposeM1, with m2, or its transpose if
+	 * transposeM2, and writes the rows x cols result into result, overwriting its
+	 * previous content. No transposed copy of either matrix is made: the flags
+	 * select gemmD, gemmTransposeM1D or gemmTransposeM2D, and the product of
+	 * two transposes is computed as dot-products reading m2 with unit stride.
+	 * 
+	 * @param transposeM1 if m1 is stored as an inner x rows matrix to be
+	 *                    transposed
+	 * @param transposeM2 if m2 is stored as a cols x inner matrix to be
+	 *                    transposed
+	 * @param m1          flat double[] "matrix" of size rows x inner, or inner x rows
+	 * @param m2          flat double[] "matrix" of size inner x cols, or cols x inner
+	 * @param result      flat double[] receiving the rows x cols product
+	 * @param rows        number of rows of the product
+	 * @param inner       length of the dot-products
+	 * @param cols        number of columns of the product
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemmD(boolean transposeM1, boolean transposeM2, double[] m1, double[] m2, double[] result,
+			int rows, int inner, int cols) {
+		if (!transposeM1 && !transposeM2) {
+			gemmD(m1, m2, result, rows, inner, cols);
+		} else if (!transposeM2) {
+			gemmTransposeM1D(m1, m2, result, rows, inner, cols);
+		} else if (!transposeM1) {
+			gemmTransposeM2D(m1, m2, result, rows, inner, cols);
+		} else {
+			checkGemmDimensions(m1.length, m2.length, result.length, rows, inner, cols);
+			for (int row = 0; row < rows; row++) {
+				int resultRow = row * cols;
+				for (int col = 0; col < cols; col++) {
+					int m2Row = col * inner;
+					double sum = 0.0;
+					for (int i = 0; i < inner; i++) {
+						sum += m1[i * rows + row] * m2[m2Row + i];
+					}
+					result[resultRow + col] = sum;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds alpha times the outer product of x and y to the flat rows x cols matrix
+	 * m in place, as m += alpha * x * transpose(y) (the BLAS ger). This is the
+	 * gradient of the weights for a single set of data, so a layer can be updated
+	 * without storing the gradient first. Each row of m gets y scaled by one
+	 * factor added to it with unit stride.
+	 * 
+	 * @param alpha factor to scale the outer product with
+	 * @param x     double[] vector of length rows
+	 * @param y     double[] vector of length cols
+	 * @param m     flat double[] "matrix" of size rows x cols to add to
+	 * @param rows  number of rows of m
+	 * @param cols  number of columns of m
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gerD(double alpha, double[] x, double[] y, double[] m, int rows, int cols) {
+		if (x.length < rows || y.length < cols || m.length < rows * cols) {
+			throw new IllegalArgumentException("The vectors and matrix are too small for the outer product");
+		}
+		for (int row = 0; row < rows; row++) {
+			double a = alpha * x[row];
+			int mRow = row * cols;
+			for (int col = 0; col < cols; col++) {
+				m[mRow + col] += a * y[col];
+			}
+		}
+	}
+
+	/**
+	 * Checks that the flat buffers given to gemv are large enough to hold a rows x
+	 * cols matrix, a vector of length cols and two vectors of length rows.
+	 * 
+	 * @param mLength      length of the matrix
+	 * @param vLength      length of the vector
+	 * @param biasLength   length of the bias (rows if there is none)
+	 * @param resultLength length of the result vector
+	 * @param rows         number of rows of the matrix
+	 * @param cols         number of columns of the matrix
+	 * @throws IllegalArgumentException if any buffer is too small
+	 */
+	public static void checkGemvDimensions(int mLength, int vLength, int biasLength, int resultLength, int rows,
+			int cols) {
+		if (mLength < rows * cols || vLength < cols) {
+			throw new IllegalArgumentException(
+					"The matrix and vector do not have a defined dot-product in the given multiplication order");
+		}
+		if (biasLength < rows || resultLength < rows) {
+			throw new IllegalArgumentException("The bias or result vector is too short for the dot-product");
+		}
+	}
+
+	/**
+	 * Multiplies the flat rows x cols matrix m with the vector v and adds bias,
+	 * writing m * v + bias into result. This is the single-sample counterpart to
+	 * gemmF: each entry of result is one dot-product between a row of m and v,
+	 * computed with four independent partial sums so consecutive multiply-adds do
+	 * not wait on each other, after which the bias is added before the value is
+	 * stored. Nothing is allocated.
+	 * 
+	 * @param m      flat float[] "matrix" of size rows x cols
+	 * @param v      float[] vector of length cols
+	 * @param bias   float[] vector of length rows added to the product, or null to
+	 *               only compute m * v
+	 * @param result float[] vector of length rows receiving m * v + bias
+	 * @param rows   number of rows of m
+	 * @param cols   number of columns of m
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemvF(float[] m, float[] v, float[] bias, float[] result, int rows, int cols) {
+		checkGemvDimensions(m.length, v.length, bias == null ? rows : bias.length, result.length, rows, cols);
+		gemvRowsF(m, 0, v, bias, 0, result, 0, rows, cols, null);
+	}
+
+	/**
+	 * Multiplies m with v and adds bias like gemvF(float[], float[], float[], float[], int,
+	 * int), but splits the rows between the threads of pool (see forEachBlock) if
+	 * the product is large enough, which lets a single input through a wide layer
+	 * use several cores. Every row is computed exactly as by the sequential
+	 * gemvF.
+	 * 
+	 * @param m      flat float[] "matrix" of size rows x cols
+	 * @param v      float[] vector of length cols
+	 * @param bias   float[] vector of length rows added to the product, or null to
+	 *               only compute m * v
+	 * @param result float[] vector of length rows receiving m * v + bias
+	 * @param rows   number of rows of m
+	 * @param cols   number of columns of m
+	 * @param pool   the ForkJoinPool to compute on, or null to compute on the
+	 *               calling thread
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemvF(float[] m, float[] v, float[] bias, float[] result, int rows, int cols,
+			ForkJoinPool pool) {
+		checkGemvDimensions(m.length, v.length, bias == null ? rows : bias.length, result.length, rows, cols);
+		if (!isParallel(pool, rows, cols, 1)) {
+			gemvRowsF(m, 0, v, bias, 0, result, 0, rows, cols, null);
+			return;
+		}
+		forEachBlock(pool, rows, cols, 1, (fromRow, toRow, fromCol, toCol) -> gemvRowsF(m, 0, v, bias, 0, result,
+				fromRow, toRow, cols, null));
+	}
+
+	/**
+	 * Computes function(m * v + bias) into result in one pass, like
+	 * gemvActivateF with both offsets 0.
+	 * 
+	 * @param function activation function to apply, or null to only add bias
+	 * @param m        flat float[] "matrix" of size rows x cols
+	 * @param v        float[] vector of length cols
+	 * @param bias     float[] vector of length rows, or null to add no bias
+	 * @param result   float[] vector of length rows receiving function(m * v + bias)
+	 * @param rows     number of rows of m
+	 * @param cols     number of columns of m
+	 * @param pool     the ForkJoinPool to compute on, or null to compute on the
+	 *                 calling thread
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemvActivateF(Activation function, float[] m, float[] v, float[] bias, float[] result,
+			int rows, int cols, ForkJoinPool pool) {
+		gemvActivateF(function, m, 0, v, bias, 0, result, rows, cols, pool);
+	}
+
+	/**
+	 * Computes function(m * v + bias) into result in one pass: the forward pass of
+	 * a layer for a single input, with the activation function of the next
+	 * layer. Each value is activated as soon as its dot-product and bias are
+	 * summed, before it is stored, instead of in a second pass over result.
+	 * SOFTMAX, which needs the whole vector, is applied after the product. The
+	 * rows are split between the threads of pool like gemvF. The offsets let m
+	 * and bias be slices of one larger buffer, such as the packed parameters of an
+	 * InferencePlan.
+	 * 
+	 * @param function   activation function to apply, or null to only add bias
+	 * @param m          flat float[] "matrix" of size rows x cols
+	 * @param mOffset    index of the first element of the matrix in m
+	 * @param v          float[] vector of length cols
+	 * @param bias       float[] vector of length rows, or null to add no bias
+	 * @param biasOffset index of the first element of the vector in bias
+	 * @param result     float[] vector of length rows receiving function(m * v + bias)
+	 * @param rows       number of rows of m
+	 * @param cols       number of columns of m
+	 * @param pool       the ForkJoinPool to compute on, or null to compute on the
+	 *                   calling thread
+	 * @throws IllegalArgumentException if an offset is negative or any buffer is
+	 *                                  too small for the given dimensions
+	 */
+	public static void gemvActivateF(Activation function, float[] m, int mOffset, float[] v, float[] bias,
+			int biasOffset, float[] result, int rows, int cols, ForkJoinPool pool) {
+		if (mOffset < 0 || biasOffset < 0) {
+			throw new IllegalArgumentException("An offset is negative");
+		}
+		checkGemvDimensions(m.length - mOffset, v.length, bias == null ? rows : bias.length - biasOffset,
+				result.length, rows, cols);
+		Activation elementwise = function != null && function.isElementwise() ? function : null;
+		if (!isParallel(pool, rows, cols, 1)) {
+			gemvRowsF(m, mOffset, v, bias, biasOffset, result, 0, rows, cols, elementwise);
+		} else {
+			forEachBlock(pool, rows, cols, 1, (fromRow, toRow, fromCol, toCol) -> gemvRowsF(m, mOffset, v, bias,
+					biasOffset, result, fromRow, toRow, cols, elementwise));
+		}
+		if (function != null && elementwise == null) {
+			function.apply(result, result, rows, 1);
+		}
+	}
+
+	/**
+	 * Computes the rows fromRow to toRow - 1 of m * v + bias into result, m and
+	 * bias starting at mOffset and biasOffset, applying function (if not null) to
+	 * each value before it is stored. The dimensions must have been checked by the
+	 * caller.
+	 */
+	private static void gemvRowsF(float[] m, int mOffset, float[] v, float[] bias, int biasOffset, float[] result,
+			int fromRow, int toRow, int cols, Activation function) {
+		for (int row = fromRow; row < toRow; row++) {
+			int mRow = mOffset + row * cols;
+			float sum0 = 0.0f, sum1 = 0.0f, sum2 = 0.0f, sum3 = 0.0f;
+			int col = 0;
+			for (; col + 3 < cols; col += 4) {
+				sum0 += m[mRow + col] * v[col];
+				sum1 += m[mRow + col + 1] * v[col + 1];
+				sum2 += m[mRow + col + 2] * v[col + 2];
+				sum3 += m[mRow + col + 3] * v[col + 3];
+			}
+			for (; col < cols; col++) {
+				sum0 += m[mRow + col] * v[col];
+			}
+			float sum = (sum0 + sum1) + (sum2 + sum3);
+			float value = bias == null ? sum : sum + bias[biasOffset + row];
+			result[row] = function == null ? value : function.apply(value);
+		}
+	}
+
+	/**
+	 * Multiplies the flat rows x cols matrix m with the vector v and adds bias,
+	 * writing m * v + bias into result. This is the single-sample counterpart to
+	 * gemmD: each entry of result is one dot-product between a row of m and v,
+	 * computed with four independent partial sums so consecutive multiply-adds do
+	 * not wait on each other, after which the bias is added before the value is
+	 * stored. Nothing is allocated.
+	 * 
+	 * @param m      flat double[] "matrix" of size rows x cols
+	 * @param v      double[] vector of length cols
+	 * @param bias   double[] vector of length rows added to the product, or null to
+	 *               only compute m * v
+	 * @param result double[] vector of length rows receiving m * v + bias
+	 * @param rows   number of rows of m
+	 * @param cols   number of columns of m
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemvD(double[] m, double[] v, double[] bias, double[] result, int rows, int cols) {
+		checkGemvDimensions(m.length, v.length, bias == null ? rows : bias.length, result.length, rows, cols);
+		gemvRowsD(m, 0, v, bias, 0, result, 0, rows, cols, null);
+	}
+
+	/**
+	 * Multiplies m with v and adds bias like gemvD(double[], double[], double[], double[], int,
+	 * int), but splits the rows between the threads of pool (see forEachBlock) if
+	 * the product is large enough, which lets a single input through a wide layer
+	 * use several cores. Every row is computed exactly as by the sequential
+	 * gemvD.
+	 * 
+	 * @param m      flat double[] "matrix" of size rows x cols
+	 * @param v      double[] vector of length cols
+	 * @param bias   double[] vector of length rows added to the product, or null to
+	 *               only compute m * v
+	 * @param result double[] vector of length rows receiving m * v + bias
+	 * @param rows   number of rows of m
+	 * @param cols   number of columns of m
+	 * @param pool   the ForkJoinPool to compute on, or null to compute on the
+	 *               calling thread
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemvD(double[] m, double[] v, double[] bias, double[] result, int rows, int cols,
+			ForkJoinPool pool) {
+		checkGemvDimensions(m.length, v.length, bias == null ? rows : bias.length, result.length, rows, cols);
+		if (!isParallel(pool, rows, cols, 1)) {
+			gemvRowsD(m, 0, v, bias, 0, result, 0, rows, cols, null);
+			return;
+		}
+		forEachBlock(pool, rows, cols, 1, (fromRow, toRow, fromCol, toCol) -> gemvRowsD(m, 0, v, bias, 0, result,
+				fromRow, toRow, cols, null));
+	}
+
+	/**
+	 * Computes function(m * v + bias) into result in one pass, like
+	 * gemvActivateD with both offsets 0.
+	 * 
+	 * @param function activation function to apply, or null to only add bias
+	 * @param m        flat double[] "matrix" of size rows x cols
+	 * @param v        double[] vector of length cols
+	 * @param bias     double[] vector of length rows, or null to add no bias
+	 * @param result   double[] vector of length rows receiving function(m * v + bias)
+	 * @param rows     number of rows of m
+	 * @param cols     number of columns of m
+	 * @param pool     the ForkJoinPool to compute on, or null to compute on the
+	 *                 calling thread
+	 * @throws IllegalArgumentException if any buffer is too small for the given
+	 *                                  dimensions
+	 */
+	public static void gemvActivateD(Activation function, double[] m, double[] v, double[] bias, double[] result,
+			int rows, int cols, ForkJoinPool pool) {
+		gemvActivateD(function, m, 0, v, bias, 0, result, rows, cols, pool);
+	}
+
+	/**
+	 * Computes function(m * v + bias) into result in one pass: the forward pass of
+	 * a layer for a single input, with the activation function of the next
+	 * layer. Each value is activated as soon as its dot-product and bias are
+	 * summed, before it is stored, instead of in a second pass over result.
+	 * SOFTMAX, which needs the whole vector, is applied after the product. The
+	 * rows are split between the threads of pool like gemvD. The offsets let m
+	 * and bias be slices of one larger buffer, such as the packed parameters of an
+	 * InferencePlan.
+	 * 
+	 * @param function   activation function to apply, or null to only add bias
+	 * @param m          flat double[] "matrix" of size rows x cols
+	 * @param mOffset    index of the first element of the matrix in m
+	 * @param v          double[] vector of length cols
+	 * @param bias       double[] vector of length rows, or null to add no bias
+	 * @param biasOffset index of the first element of the vector in bias
+	 * @param result     double[] vector of length rows receiving function(m * v + bias)
+	 * @param rows       number of rows of m
+	 * @param cols       number of columns of m
+	 * @param pool       the ForkJoinPool to compute on, or null to compute on the
+	 *                   calling thread
+	 * @throws IllegalArgumentException if an offset is negative or any buffer is
+	 *                                  too small for the given dimensions
+	 */
+	public static void gemvActivateD(Activation function, double[] m, int mOffset, double[] v, double[] bias,
+			int biasOffset, double[] result, int rows, int cols, ForkJoinPool pool) {
+		if (mOffset < 0 || biasOffset < 0) {
+			throw new IllegalArgumentException("An offset is negative");
+		}
+		checkGemvDimensions(m.length - mOffset, v.length, bias == null ? rows : bias.length - biasOffset,
+				result.length, rows, cols);
+		Activation elementwise = function != null && function.isElementwise() ? function : null;
+		if (!isParallel(pool, rows, cols, 1)) {
+			gemvRowsD(m, mOffset, v, bias, biasOffset, result, 0, rows, cols, elementwise);
+		} else {
+			forEachBlock(pool, rows, cols, 1, (fromRow, toRow, fromCol, toCol) -> gemvRowsD(m, mOffset, v, bias,
+					biasOffset, result, fromRow, toRow, cols, elementwise));
+		}
+		if (function != null && elementwise == null) {
+			function.apply(result, result, rows, 1);
+		}
+	}
+
+	/**
+	 * Computes the rows fromRow to toRow - 1 of m * v + bias into result, m and
+	 * bias starting at mOffset and biasOffset, applying function (if not null) to
+	 * each value before it is stored. The dimensions must have been checked by the
+	 * caller.
+	 */
+	private static void gemvRowsD(double[] m, int mOffset, double[] v, double[] bias, int biasOffset, double[] result,
+			int fromRow, int toRow, int cols, Activation function) {
+		for (int row = fromRow; row < toRow; row++) {
+			int mRow = mOffset + row * cols;
+			double sum0 = 0.0, sum1 = 0.0, sum2 = 0.0, sum3 = 0.0;
+			int col = 0;
+			for (; col + 3 < cols; col += 4) {
+				sum0 += m[mRow + col] * v[col];
+				sum1 += m[mRow + col + 1] * v[col + 1];
+				sum2 += m[mRow + col + 2] * v[col + 2];
+				sum3 += m[mRow + col + 3] * v[col + 3];
+			}
+			for (; col < cols; col++) {
+				sum0 += m[mRow + col] * v[col];
+			}
+			double sum = (sum0 + sum1) + (sum2 + sum3);
+			double value = bias == null ? sum : sum + bias[biasOffset + row];
+			result[row] = function == null ? value : function.apply(value);
+		}
+	}
+
+	/**
+	 * Adds m2 to m1 elementwise, storing the result in m1.
+	 * 
+	 * @param m1 flat float[] to add to
+	 * @param m2 flat float[] to add, of the same length as m1
+	 * @throws IllegalArgumentException if m1 and m2 are of different length
+	 */
+	public static void addF(float[] m1, float[] m2) {
+		if (m1.length != m2.length) {
+			throw new IllegalArgumentException("The two matrices are not of the same length");
+		}
+		for (int i = 0; i < m1.length; i++) {
+			m1[i] += m2[i];
+		}
+	}
+
+	/**
+	 * Adds m2 to m1 elementwise, storing the result in m1.
+	 * 
+	 * @param m1 flat double[] to add to
+	 * @param m2 flat double[] to add, of the same length as m1
+	 * @throws IllegalArgumentException if m1 and m2 are of different length
+	 */
+	public static void addD(double[] m1, double[] m2) {
+		if (m1.length != m2.length) {
+			throw new IllegalArgumentException("The two matrices are not of the same length");
+		}
+		for (int i = 0; i < m1.length; i++) {
+			m1[i] += m2[i];
+		}
+	}
+
+	/**
+	 * Multiplies every element of m by factor, storing the result in m.
+	 * 
+	 * @param m      flat float[] to scale
+	 * @param factor factor to scale with
+	 */
+	public static void scaleF(float[] m, float factor) {
+		for (int i = 0; i < m.length; i++) {
+			m[i] *= factor;
+		}
+	}
+
+	/**
+	 * Multiplies every element of m by factor, storing the result in m.
+	 * 
+	 * @param m      flat double[] to scale
+	 * @param factor factor to scale with
+	 */
+	public static void scaleD(double[] m, double factor) {
+		for (int i = 0; i < m.length; i++) {
+			m[i] *= factor;
+		}
+	}
+
+	/**
+	 * Multiplies the first length elements of m1 with those of m2 elementwise,
+	 * storing the result in m1.
+	 * 
+	 * @param m1     flat float[] to multiply into
+	 * @param m2     flat float[] to multiply with
+	 * @param length number of elements to multiply
+	 */
+	public static void multiplyF(float[] m1, float[] m2, int length) {
+		for (int i = 0; i < length; i++) {
+			m1[i] *= m2[i];
+		}
+	}
+
+	/**
+	 * Multiplies the first length elements of m1 with those of m2 elementwise,
+	 * storing the result in m1.
+	 * 
+	 * @param m1     flat double[] to multiply into
+	 * @param m2     flat double[] to multiply with
+	 * @param length number of elements to multiply
+	 */
+	public static void multiplyD(double[] m1, double[] m2, int length) {
+		for (int i = 0; i < length; i++) {
+			m1[i] *= m2[i];
+		}
+	}
+
+	/**
+	 * Adds alpha * x to y elementwise, storing the result in y (the BLAS axpy).
+	 * 
+	 * @param alpha factor to scale x with
+	 * @param x     flat float[] to add
+	 * @param y     flat float[] to add to, of the same length as x
+	 * @throws IllegalArgumentException if x and y are of different length
+	 */
+	public static void axpyF(float alpha, float[] x, float[] y) {
+		if (x.length != y.length) {
+			throw new IllegalArgumentException("The two matrices are not of the same length");
+		}
+		for (int i = 0; i < x.length; i++) {
+			y[i] += alpha * x[i];
+		}
+	}
+
+	/**
+	 * Adds alpha * x to y elementwise, storing the result in y (the BLAS axpy).
+	 * 
+	 * @param alpha factor to scale x with
+	 * @param x     flat double[] to add
+	 * @param y     flat double[] to add to, of the same length as x
+	 * @throws IllegalArgumentException if x and y are of different length
+	 */
+	public static void axpyD(double alpha, double[] x, double[] y) {
+		if (x.length != y.length) {
+			throw new IllegalArgumentException("The two matrices are not of the same length");
+		}
+		for (int i = 0; i < x.length; i++) {
+			y[i] += alpha * x[i];
+		}
+	}
+
+	/**
+	 * Subtracts the first length elements of m2 from those of m1 elementwise,
+	 * storing the result in result (which may be m1 or m2).
+	 * 
+	 * @param m1     flat float[] to subtract from
+	 * @param m2     flat float[] to subtract
+	 * @param result flat float[] receiving m1 - m2
+	 * @param length number of elements to subtract
+	 */
+	public static void subtractF(float[] m1, float[] m2, float[] result, int length) {
+		for (int i = 0; i < length; i++) {
+			result[i] = m1[i] - m2[i];
+		}
+	}
+
+	/**
+	 * Subtracts the first length elements of m2 from those of m1 elementwise,
+	 * storing the result in result (which may be m1 or m2).
+	 * 
+	 * @param m1     flat double[] to subtract from
+	 * @param m2     flat double[] to subtract
+	 * @param result flat double[] receiving m1 - m2
+	 * @param length number of elements to subtract
+	 */
+	public static void subtractD(double[] m1, double[] m2, double[] result, int length) {
+		for (int i = 0; i < length; i++) {
+			result[i] = m1[i] - m2[i];
+		}
+	}
+
+	/**
+	 * Adds bias[row] to every element on row row of the flat rows x cols matrix
+	 * m, that is adds the colon-vector bias to every column of m.
+	 * 
+	 * @param m    flat float[] "matrix" of size rows x cols
+	 * @param bias float[] vector of length rows
+	 * @param rows number of rows of m
+	 * @param cols number of columns of m
+	 */
+	public static void addBiasF(float[] m, float[] bias, int rows, int cols) {
+		for (int row = 0; row < rows; row++) {
+			float b = bias[row];
+			int mRow = row * cols;
+			for (int col = 0; col < cols; col++) {
+				m[mRow + col] += b;
+			}
+		}
+	}
+
+	/**
+	 * Adds bias[row] to every element on row row of the flat rows x cols matrix
+	 * m, that is adds the colon-vector bias to every column of m.
+	 * 
+	 * @param m    flat double[] "matrix" of size rows x cols
+	 * @param bias double[] vector of length rows
+	 * @param rows number of rows of m
+	 * @param cols number of columns of m
+	 */
+	public static void addBiasD(double[] m, double[] bias, int rows, int cols) {
+		for (int row = 0; row < rows; row++) {
+			double b = bias[row];
+			int mRow = row * cols;
+			for (int col = 0; col < cols; col++) {
+				m[mRow + col] += b;
+			}
+		}
+	}
+
+	/**
+	 * Sums each row of the flat rows x cols matrix m into result.
+	 * 
+	 * @param m      flat float[] "matrix" of size rows x cols
+	 * @param result float[] vector of length rows receiving the row sums
+	 * @param rows   number of rows of m
+	 * @param cols   number of columns of m
+	 */
+	public static void sumRowsF(float[] m, float[] result, int rows, int cols) {
+		for (int row = 0; row < rows; row++) {
+			float sum = 0.0f;
+			int mRow = row * cols;
+			for (int col = 0; col < cols; col++) {
+				sum += m[mRow + col];
+			}
+			result[row] = sum;
+		}
+	}
+
+	/**
+	 * Sums each row of the flat rows x cols matrix m into result.
+	 * 
+	 * @param m      flat double[] "matrix" of size rows x cols
+	 * @param result double[] vector of length rows receiving the row sums
+	 * @param rows   number of rows of m
+	 * @param cols   number of columns of m
+	 */
+	public static void sumRowsD(double[] m, double[] result, int rows, int cols) {
+		for (int row = 0; row < rows; row++) {
+			double sum = 0.0;
+			int mRow = row * cols;
+			for (int col = 0; col < cols; col++) {
+				sum += m[mRow + col];
+			}
+			result[row] = sum;
+		}
+	}
+
 }
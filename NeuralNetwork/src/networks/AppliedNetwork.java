@@ -2,6 +2,9 @@ package networks;
 
 import networks.NeuralNetwork;
 import applications.Application;
+import applications.DataLoader;
+import applications.EvaluationResult;
+import applications.Evaluator;
 
 /**
  * This class is used to simplify the usage of a NeuralNetwork by combineing it
@@ -24,6 +27,16 @@ public class AppliedNetwork {
 	 */
 	private Application application;
 
+	/**
+	 * Number of rounds of training data prepared ahead of the training.
+	 */
+	public static final int PREFETCH = 2;
+
+	/**
+	 * The DataLoader used by the last call to train.
+	 */
+	private DataLoader lastDataLoader;
+
 	/**
 	 * Constructs an AppliedNetwork.
 	 * 
@@ -34,7 +47,7 @@ public class AppliedNetwork {
 		// Fixa så nn alltid har rätt mängd input och output neurons för application
 		this.network = network;
 		this.application = application;
-		application.load(network);
+		application.load();
 	}
 
 	/**
@@ -58,26 +71,37 @@ public class AppliedNetwork {
 	/**
 	 * Trains the network on the problem defined by the application (usecase), and
 	 * does so nbrRounds time with nbrSetsPerRound sets of training data each round.
+	 * The training data is prepared by a DataLoader on a background thread, up to
+	 * PREFETCH rounds ahead of the training.
 	 * 
 	 * @param nbrTrainingSets number of sets of trainig data to go through before
 	 *                        updating the weights & biases
 	 */
 	public void train(int nbrRounds, int nbrSetsPerRound) {
-		if (network.getBasicCalculationUnit() == 'f') {
-			for (int round = 0; round < nbrRounds; round++) {
-				float[][][] trainingData = application.getTrainingDataF(nbrSetsPerRound);
-				network.train(trainingData[0], trainingData[1]);
-			}
-		} else if (network.getBasicCalculationUnit() == 'd') {
+		DataLoader dataLoader = new DataLoader(application, network, nbrSetsPerRound, PREFETCH, nbrRounds);
+		lastDataLoader = dataLoader;
+		dataLoader.start();
+		try {
 			for (int round = 0; round < nbrRounds; round++) {
-				double[][][] trainingData = application.getTrainingDataD(nbrSetsPerRound);
-				network.train(trainingData[0], trainingData[1]);
+				DataLoader.Batch batch = dataLoader.next();
+				network.train(batch.input, batch.target);
+				dataLoader.release(batch);
 			}
-		} else {
-			throw new IllegalArgumentException("The NeuralNetwork uses no known basic calculation unit.");
+		} finally {
+			dataLoader.close();
 		}
 	}
 
+	/**
+	 * Returns the DataLoader used by the last call to train, whose metrics show
+	 * whether training had to wait for data.
+	 * 
+	 * @return the last DataLoader, null if train hasn't been called
+	 */
+	public DataLoader getLastDataLoader() {
+		return this.lastDataLoader;
+	}
+
 	/**
 	 * Runs a diagnostic on the network to check on its progress, defined by the
 	 * Application.
@@ -88,6 +112,17 @@ public class AppliedNetwork {
 		return application.runDiagnostic(network);
 	}
 
+	/**
+	 * Scores the network on all of the Application's evaluation data, in parallel,
+	 * see Evaluator.
+	 * 
+	 * @return accuracy, per-class precision & recall, confusion matrix, loss and
+	 *         timing of the evaluation
+	 */
+	public EvaluationResult evaluate() {
+		return Evaluator.evaluate(network, application);
+	}
+
 	/**
 	 * Runs a quick diagnostic on the network to check on its progress, defined by
 	 * the Application. Might be more usefull for large Applications where a regular
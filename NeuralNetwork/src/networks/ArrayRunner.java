@@ -0,0 +1,157 @@
+package networks;
+
+import java.util.function.Supplier;
+
+import backend.Backend;
+import backend.Tensor;
+
+/**
+ * Runs float[] and double[] inputs through a TensorNetwork or an InferencePlan,
+ * by copying them into an InferenceContext owned by the calling thread, calling
+ * the Tensor-level run or runBatch of the network or plan, and copying the
+ * result back out. Batches are run TensorNetwork.BATCH_SIZE inputs at a time,
+ * so the context never needs to hold more than that.
+ * 
+ * @author OdinhengeT
+ * @see TensorNetwork
+ * @see InferencePlan
+ */
+final class ArrayRunner {
+
+	/**
+	 * The Tensor-level run of a network or plan, see TensorNetwork.run(Tensor,
+	 * InferenceContext).
+	 */
+	interface SinglePass {
+		Tensor run(Tensor input, InferenceContext context);
+	}
+
+	/**
+	 * The Tensor-level runBatch of a network or plan, see
+	 * TensorNetwork.runBatch(Tensor, int, InferenceContext).
+	 */
+	interface BatchPass {
+		Tensor runBatch(Tensor input, int batchSize, InferenceContext context);
+	}
+
+	private final Backend backend;
+	private final int[] layerStruct;
+	private final SinglePass single;
+	private final BatchPass batch;
+
+	/**
+	 * Context used on each thread, created by the network or plan.
+	 */
+	private final ThreadLocal<InferenceContext> contexts;
+
+	/**
+	 * Creates an ArrayRunner for a network or plan computed by backend, with the
+	 * given layerStruct.
+	 * 
+	 * @param backend     the Backend of the network or plan
+	 * @param layerStruct number of neurons in each layer
+	 * @param single      the Tensor-level run of the network or plan
+	 * @param batch       the Tensor-level runBatch of the network or plan
+	 * @param newContext  newInferenceContext() of the network or plan
+	 */
+	ArrayRunner(Backend backend, int[] layerStruct, SinglePass single, BatchPass batch,
+			Supplier<InferenceContext> newContext) {
+		this.backend = backend;
+		this.layerStruct = layerStruct;
+		this.single = single;
+		this.batch = batch;
+		this.contexts = ThreadLocal.withInitial(newContext);
+	}
+
+	/**
+	 * Calculates the output for an input vector (double).
+	 * 
+	 * @param input a double[] of input values
+	 * @returns a double[] containing the output
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons
+	 */
+	double[] run(double[] input) {
+		checkLength(input.length);
+		InferenceContext context = contexts.get();
+		backend.copy(input, context.input);
+		double[] output = new double[layerStruct[layerStruct.length - 1]];
+		backend.copy(single.run(context.input, context), output);
+		return output;
+	}
+
+	/**
+	 * Calculates the output for an input vector (float).
+	 * 
+	 * @param input a float[] of input values
+	 * @returns a float[] containing the output
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons
+	 */
+	float[] run(float[] input) {
+		checkLength(input.length);
+		InferenceContext context = contexts.get();
+		backend.copy(input, context.input);
+		float[] output = new float[layerStruct[layerStruct.length - 1]];
+		backend.copy(single.run(context.input, context), output);
+		return output;
+	}
+
+	/**
+	 * Calculates the output for multiple input vectors (double), in batches of
+	 * up to TensorNetwork.BATCH_SIZE. Every input is checked before any batch is
+	 * run, so a wrong input is reported without computing the others.
+	 * 
+	 * @param input multiple vector inputs (double) gathered in an array
+	 * @returns a double[][] containing the output for each input
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons for any
+	 *                                  of the input vectors
+	 */
+	double[][] runBatch(double[][] input) {
+		for (double[] set : input) {
+			checkLength(set.length);
+		}
+		InferenceContext context = contexts.get();
+		int nbrOutputs = layerStruct[layerStruct.length - 1];
+		double[][] output = new double[input.length][nbrOutputs];
+		for (int from = 0; from < input.length; from += TensorNetwork.BATCH_SIZE) {
+			int batchSize = Math.min(TensorNetwork.BATCH_SIZE, input.length - from);
+			context.ensureBatchCapacity(batchSize);
+			backend.pack(input, from, batchSize, layerStruct[0], context.batchInput);
+			Tensor result = batch.runBatch(context.batchInput, batchSize, context);
+			backend.unpack(result, batchSize, nbrOutputs, output, from);
+		}
+		return output;
+	}
+
+	/**
+	 * Calculates the output for multiple input vectors (float), like
+	 * runBatch(double[][]).
+	 * 
+	 * @param input multiple vector inputs (float) gathered in an array
+	 * @returns a float[][] containing the output for each input
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons for any
+	 *                                  of the input vectors
+	 */
+	float[][] runBatch(float[][] input) {
+		for (float[] set : input) {
+			checkLength(set.length);
+		}
+		InferenceContext context = contexts.get();
+		int nbrOutputs = layerStruct[layerStruct.length - 1];
+		float[][] output = new float[input.length][nbrOutputs];
+		for (int from = 0; from < input.length; from += TensorNetwork.BATCH_SIZE) {
+			int batchSize = Math.min(TensorNetwork.BATCH_SIZE, input.length - from);
+			context.ensureBatchCapacity(batchSize);
+			backend.pack(input, from, batchSize, layerStruct[0], context.batchInput);
+			Tensor result = batch.runBatch(context.batchInput, batchSize, context);
+			backend.unpack(result, batchSize, nbrOutputs, output, from);
+		}
+		return output;
+	}
+
+	private void checkLength(int length) {
+		if (length != layerStruct[0]) {
+			throw new IllegalArgumentException("Input of wrong length");
+		}
+	}
+
+}
@@ -0,0 +1,90 @@
+package networks;
+
+import backend.Backend;
+import backend.Tensor;
+
+/**
+ * The buffers a TensorNetwork needs to run inputs through the network, kept
+ * outside of the network so that its weights and biases are only ever read
+ * during inference. Each thread running the network at the same time needs its
+ * own InferenceContext, created by TensorNetwork.newInferenceContext(), which
+ * may then be reused for any number of calls to TensorNetwork.run(Tensor,
+ * InferenceContext) and TensorNetwork.runBatch(Tensor, int, InferenceContext).
+ * An InferencePlan uses its own contexts in the same way, created by
+ * InferencePlan.newInferenceContext().
+ * 
+ * @author OdinhengeT
+ * @see TensorNetwork
+ * @see InferencePlan
+ */
+public class InferenceContext {
+	/**
+	 * The layerStruct of the network or plan this context was created for.
+	 */
+	final int[] layerStruct;
+	/**
+	 * The Backend the buffers were allocated by.
+	 */
+	final Backend backend;
+	/**
+	 * Input of the network, a vector of length layerStruct[0]. The inputs to the
+	 * other layers are not stored, each layer being activated as it is computed
+	 * (see Layer.forwardActivate).
+	 */
+	final Tensor input;
+	/**
+	 * Activation of each layer, unused for the input layer. Each is the Tensor
+	 * the next layer reads from, and the activation of the output layer is the
+	 * output of the network.
+	 */
+	final Tensor[] activation;
+	/**
+	 * Largest number of sets of data the batch buffers can hold, 0 until
+	 * runBatch is first used with this context.
+	 */
+	int batchCapacity;
+	/**
+	 * Input of the network for a whole batch, layerStruct[0] x batchCapacity.
+	 */
+	Tensor batchInput;
+	/**
+	 * Activation of each layer for a whole batch, layerStruct[layer] x
+	 * batchCapacity, unused for the input layer.
+	 */
+	Tensor[] batchActivation;
+
+	/**
+	 * Allocates the buffers for a network with the given layerStruct.
+	 * 
+	 * @param backend     the Backend of the network
+	 * @param layerStruct number of neurons per layer of the network
+	 */
+	InferenceContext(Backend backend, int[] layerStruct) {
+		this.backend = backend;
+		this.layerStruct = layerStruct;
+		input = backend.allocate(layerStruct[0]);
+		activation = new Tensor[layerStruct.length];
+		for (int layer = 1; layer < layerStruct.length; layer++) {
+			activation[layer] = backend.allocate(layerStruct[layer]);
+		}
+	}
+
+	/**
+	 * Makes sure the batch buffers can hold batchSize sets of data, replacing
+	 * them if they can't.
+	 * 
+	 * @param batchSize number of sets of data the buffers must hold
+	 */
+	void ensureBatchCapacity(int batchSize) {
+		if (batchCapacity >= batchSize) {
+			return;
+		}
+		batchInput = backend.allocate(layerStruct[0] * batchSize);
+		batchActivation = new Tensor[layerStruct.length];
+		for (int layer = 1; layer < layerStruct.length; layer++) {
+			batchActivation[layer] = backend.allocate(layerStruct[layer] * batchSize);
+		}
+		batchCapacity = batchSize;
+	}
+
+}
@@ -0,0 +1,275 @@
+package networks;
+
+import backend.Backend;
+import backend.Tensor;
+import layers.Activation;
+
+/**
+ * InferencePlan is a frozen copy of a trained TensorNetwork that can only be
+ * run, created by compile. The weights and biases of every layer are packed
+ * into one contiguous Tensor, each layer's weights followed by its bias, whose
+ * offsets are computed from the layerStruct once when the plan is compiled.
+ * Running the plan is a fixed sequence of one fused kernel per layer
+ * (Backend.gemvActivate for a single input, Backend.gemmActivate for a batch)
+ * reading its parameters straight out of the packed Tensor, so no Layer is
+ * involved and nothing is looked up per call.
+ * <p>
+ * The packed parameters are written once, by compile, and only read after
+ * that, so a plan is immutable and may be shared by any number of threads,
+ * each running it with its own InferenceContext. Training the network it was
+ * compiled from afterwards doesn't change the plan. A plan computes everything
+ * on the calling thread, the parallelism of the network is not used.
+ * 
+ * @author OdinhengeT
+ * @see TensorNetwork
+ * @see InferenceContext
+ */
+public final class InferencePlan {
+
+	/**
+	 * The Backend computing the plan, the one of the compiled network.
+	 */
+	private final Backend backend;
+
+	/**
+	 * Number of neurons in each layer, a copy of the one of the compiled network.
+	 */
+	private final int[] layerStruct;
+
+	/**
+	 * activation[layer] is the activation function of layer + 1, applied to the
+	 * output of the kernel of layer.
+	 */
+	private final Activation[] activation;
+
+	/**
+	 * The weights and biases of every layer but the output layer, in the order
+	 * weights of layer 0, bias of layer 0, weights of layer 1 and so on. Never
+	 * written after compile.
+	 */
+	private final Tensor parameters;
+
+	/**
+	 * weightOffset[layer] is the index in parameters of the first weight of
+	 * layer, a layerStruct[layer + 1] x layerStruct[layer] matrix.
+	 */
+	private final int[] weightOffset;
+
+	/**
+	 * biasOffset[layer] is the index in parameters of the first bias of layer, a
+	 * vector of length layerStruct[layer + 1].
+	 */
+	private final int[] biasOffset;
+
+	/**
+	 * Runs the arrays given to run and runBatch through the plan, with one
+	 * context per thread calling them.
+	 */
+	private final ArrayRunner arrays;
+
+	/**
+	 * Packs the weights and biases of network into a Tensor of its Backend.
+	 * 
+	 * @param network the network to compile
+	 */
+	private InferencePlan(TensorNetwork network) {
+		backend = network.getBackend();
+		layerStruct = network.getLayerStruct();
+		int nbrLayers = layerStruct.length - 1;
+		activation = new Activation[nbrLayers];
+		weightOffset = new int[nbrLayers];
+		biasOffset = new int[nbrLayers];
+		int size = 0;
+		for (int layer = 0; layer < nbrLayers; layer++) {
+			activation[layer] = network.getLayer(layer + 1).getActivationFunction();
+			weightOffset[layer] = size;
+			size += layerStruct[layer + 1] * layerStruct[layer];
+			biasOffset[layer] = size;
+			size += layerStruct[layer + 1];
+		}
+		parameters = backend.allocate(size);
+		for (int layer = 0; layer < nbrLayers; layer++) {
+			copy(network.getLayer(layer).getWeights(), weightOffset[layer]);
+			copy(network.getLayer(layer).getBias(), biasOffset[layer]);
+		}
+		arrays = new ArrayRunner(backend, layerStruct, this::run, this::runBatch, this::newInferenceContext);
+	}
+
+	/**
+	 * Copies source into parameters, starting at offset. Both are of the same
+	 * precision, so no value is changed on the way.
+	 */
+	private void copy(Tensor source, int offset) {
+		for (int i = 0; i < source.size(); i++) {
+			parameters.set(offset + i, source.get(i));
+		}
+	}
+
+	/**
+	 * Compiles network into an InferencePlan computing the same outputs with the
+	 * weights and biases the network has now.
+	 * 
+	 * @param network a TensorNetwork, such as a NeuralNetworkD or NeuralNetworkF
+	 * @return a new InferencePlan
+	 * @throws IllegalArgumentException if network is of some other type
+	 */
+	public static InferencePlan compile(NeuralNetwork network) {
+		if (!(network instanceof TensorNetwork)) {
+			throw new IllegalArgumentException("Can only compile a TensorNetwork");
+		}
+		return new InferencePlan((TensorNetwork) network);
+	}
+
+	/**
+	 * Returns the basic calculation unit of the plan, that of the compiled
+	 * network.
+	 * 
+	 * @return 'f' for float or 'd' for double
+	 */
+	public char getBasicCalculationUnit() {
+		return backend.getBasicCalculationUnit();
+	}
+
+	/**
+	 * Returns the Backend computing this plan.
+	 * 
+	 * @return this.backend
+	 */
+	public Backend getBackend() {
+		return this.backend;
+	}
+
+	/**
+	 * Returns the number of neurons in each layer, starting with the input layer.
+	 * 
+	 * @return a copy of this.layerStruct
+	 */
+	public int[] getLayerStruct() {
+		return layerStruct.clone();
+	}
+
+	/**
+	 * Calculates the output of the compiled network for an input vector (double),
+	 * using a context owned by the calling thread.
+	 * 
+	 * @param input a double[] of input values
+	 * @returns a double[] containing the output of the network
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons
+	 */
+	public double[] run(double[] input) {
+		return arrays.run(input);
+	}
+
+	/**
+	 * Calculates the output of the compiled network for an input vector (float),
+	 * like run(double[]).
+	 * 
+	 * @param input a float[] of input values
+	 * @returns a float[] containing the output of the network
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons
+	 */
+	public float[] run(float[] input) {
+		return arrays.run(input);
+	}
+
+	/**
+	 * Calculates the output of the compiled network for an input vector, keeping
+	 * all intermediate results in context, like TensorNetwork.run(Tensor,
+	 * InferenceContext). Nothing is allocated.
+	 * 
+	 * @param input   a Tensor of input values, created by the Backend of the plan
+	 * @param context buffers to use, created by newInferenceContext()
+	 * @returns a Tensor containing the output of the network, owned by context
+	 *          and overwritten by its next use
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons, or if
+	 *                                  context was created by another plan
+	 */
+	public Tensor run(Tensor input, InferenceContext context) {
+		if (input.size() != layerStruct[0]) {
+			throw new IllegalArgumentException("Input of wrong length");
+		}
+		if (context.layerStruct != layerStruct) {
+			throw new IllegalArgumentException("The context was created for another plan");
+		}
+		Tensor in = input;
+		for (int layer = 0; layer < layerStruct.length - 1; layer++) {
+			Tensor out = context.activation[layer + 1];
+			backend.gemvActivate(activation[layer], parameters, weightOffset[layer], in, parameters,
+					biasOffset[layer], out, layerStruct[layer + 1], layerStruct[layer], null);
+			in = out;
+		}
+		return in;
+	}
+
+	/**
+	 * Calculates the output of the compiled network for multiple input vectors
+	 * (double), in batches of up to TensorNetwork.BATCH_SIZE, like
+	 * TensorNetwork.runBatch(double[][]).
+	 * 
+	 * @param input multiple vector inputs (double) gathered in an array
+	 * @returns a double[][] containing the output of the network for each input
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons for any
+	 *                                  of the input vectors
+	 */
+	public double[][] runBatch(double[][] input) {
+		return arrays.runBatch(input);
+	}
+
+	/**
+	 * Calculates the output of the compiled network for multiple input vectors
+	 * (float), like runBatch(double[][]).
+	 * 
+	 * @param input multiple vector inputs (float) gathered in an array
+	 * @returns a float[][] containing the output of the network for each input
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons for any
+	 *                                  of the input vectors
+	 */
+	public float[][] runBatch(float[][] input) {
+		return arrays.runBatch(input);
+	}
+
+	/**
+	 * Calculates the output of the compiled network for a batch of inputs packed
+	 * into a matrix, keeping all intermediate results in context, like
+	 * TensorNetwork.runBatch(Tensor, int, InferenceContext).
+	 * 
+	 * @param input     layerStruct[0] x batchSize matrix of inputs, one column
+	 *                  per input
+	 * @param batchSize number of inputs in the batch
+	 * @param context   buffers to use, created by newInferenceContext()
+	 * @returns a nbrOutputs x batchSize matrix containing the output of the
+	 *          network for each input, owned by context and overwritten by its
+	 *          next use
+	 * @throws IllegalArgumentException if input is too short, or if context was
+	 *                                  created by another plan
+	 */
+	public Tensor runBatch(Tensor input, int batchSize, InferenceContext context) {
+		if (input.size() < layerStruct[0] * batchSize) {
+			throw new IllegalArgumentException("Input of wrong length");
+		}
+		if (context.layerStruct != layerStruct) {
+			throw new IllegalArgumentException("The context was created for another plan");
+		}
+		context.ensureBatchCapacity(batchSize);
+		Tensor in = input;
+		for (int layer = 0; layer < layerStruct.length - 1; layer++) {
+			Tensor out = context.batchActivation[layer + 1];
+			backend.gemmActivate(activation[layer], parameters, weightOffset[layer], in, parameters,
+					biasOffset[layer], out, layerStruct[layer + 1], layerStruct[layer], batchSize, null);
+			in = out;
+		}
+		return in;
+	}
+
+	/**
+	 * Creates a new context for run(Tensor, InferenceContext) and runBatch(Tensor,
+	 * int, InferenceContext), holding the buffers needed to run inputs through
+	 * this plan.
+	 * 
+	 * @return a new InferenceContext for this plan
+	 */
+	public InferenceContext newInferenceContext() {
+		return new InferenceContext(backend, layerStruct);
+	}
+
+}
@@ -0,0 +1,275 @@
+package networks;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import backend.Tensor;
+import backend.TensorD;
+import backend.TensorF;
+import layers.Activation;
+
+/**
+ * Saves and loads trained NeuralNetworkD and NeuralNetworkF (any TensorNetwork
+ * when saving) in a versioned binary format. Files are written through a
+ * FileChannel, and read by memory mapping the file and copying each weight and
+ * bias block straight into the arrays of the new network, so loading costs
+ * about as much as reading the file.
+ * <p>
+ * Format (version 1), all values little-endian:
+ * 
+ * <pre>
+ * int      MAGIC ("NNMF")
+ * int      VERSION
+ * int      precision, 'd' or 'f'
+ * int      nbrLayers
+ * int[]    layerStruct, nbrLayers values
+ * for each layer after the input layer:
+ *   short  length of the name of the activation function
+ *   byte[] name of the activation function (ASCII)
+ * double   learningRate
+ * padding  zeros up to a multiple of 8 bytes
+ * for each layer except the output layer:
+ *   weights, nbrLinks x nbrNeurons values in row-major order
+ *   bias, nbrLinks values
+ * </pre>
+ * 
+ * Weights and biases are stored as doubles or floats depending on precision.
+ * 
+ * @author OdinhengeT
+ * @see NeuralNetworkD
+ * @see NeuralNetworkF
+ */
+public final class ModelFile {
+
+	/**
+	 * First four bytes of every model file, "NNMF" in ASCII.
+	 */
+	public static final int MAGIC = 0x464D4E4E;
+	/**
+	 * Version of the format written by save.
+	 */
+	public static final int VERSION = 1;
+
+	private ModelFile() {
+	}
+
+	/**
+	 * Saves network to the file at path, replacing it if it exists.
+	 * 
+	 * @param network a TensorNetwork, such as a NeuralNetworkD or NeuralNetworkF
+	 * @param path    file to write to
+	 * @throws IllegalArgumentException if network is of some other type
+	 * @throws IOException              if the file can't be written
+	 */
+	public static void save(NeuralNetwork network, Path path) throws IOException {
+		if (!(network instanceof TensorNetwork)) {
+			throw new IllegalArgumentException("Can only save a TensorNetwork");
+		}
+		TensorNetwork tensorNetwork = (TensorNetwork) network;
+		int[] layerStruct = network.getLayerStruct();
+		Activation[] activations = new Activation[layerStruct.length - 1];
+		for (int layer = 1; layer < layerStruct.length; layer++) {
+			activations[layer - 1] = tensorNetwork.getLayer(layer).getActivationFunction();
+		}
+		double learningRate = tensorNetwork.getLearningRate();
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(headerLength(layerStruct, activations))
+					.order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC);
+			header.putInt(VERSION);
+			header.putInt(network.getBasicCalculationUnit());
+			header.putInt(layerStruct.length);
+			for (int neurons : layerStruct) {
+				header.putInt(neurons);
+			}
+			for (Activation activation : activations) {
+				byte[] name = activation.name().getBytes(StandardCharsets.US_ASCII);
+				header.putShort((short) name.length);
+				header.put(name);
+			}
+			header.putDouble(learningRate);
+			header.position(header.capacity());
+			writeFully(channel, header.flip());
+
+			ByteBuffer block = ByteBuffer.allocateDirect(largestBlock(layerStruct) * Double.BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			for (int layer = 0; layer < layerStruct.length - 1; layer++) {
+				writeBlock(channel, block, tensorNetwork.getLayer(layer).getWeights());
+				writeBlock(channel, block, tensorNetwork.getLayer(layer).getBias());
+			}
+		}
+	}
+
+	/**
+	 * Loads a network saved by save, with the precision it was saved with.
+	 * 
+	 * @param path file to read from
+	 * @return a NeuralNetworkD or NeuralNetworkF
+	 * @throws IOException if the file can't be read, isn't a model file, is of an
+	 *                     unsupported version or is truncated
+	 */
+	public static NeuralNetwork load(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			try {
+				// map throws IllegalArgumentException for files of 2 GB or more
+				MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				return read(mapped.order(ByteOrder.LITTLE_ENDIAN));
+			} catch (BufferUnderflowException | IllegalArgumentException e) {
+				throw new IOException("Malformed model file: " + path, e);
+			}
+		}
+	}
+
+	/**
+	 * Loads a network saved by save from a NeuralNetworkD.
+	 * 
+	 * @param path file to read from
+	 * @return the saved NeuralNetworkD
+	 * @throws IOException if the file can't be read, isn't a model file, or holds
+	 *                     a NeuralNetworkF
+	 */
+	public static NeuralNetworkD loadD(Path path) throws IOException {
+		NeuralNetwork network = load(path);
+		if (!(network instanceof NeuralNetworkD)) {
+			throw new IOException("The model file holds a float-based network: " + path);
+		}
+		return (NeuralNetworkD) network;
+	}
+
+	/**
+	 * Loads a network saved by save from a NeuralNetworkF.
+	 * 
+	 * @param path file to read from
+	 * @return the saved NeuralNetworkF
+	 * @throws IOException if the file can't be read, isn't a model file, or holds
+	 *                     a NeuralNetworkD
+	 */
+	public static NeuralNetworkF loadF(Path path) throws IOException {
+		NeuralNetwork network = load(path);
+		if (!(network instanceof NeuralNetworkF)) {
+			throw new IOException("The model file holds a double-based network: " + path);
+		}
+		return (NeuralNetworkF) network;
+	}
+
+	private static NeuralNetwork read(ByteBuffer buffer) throws IOException {
+		if (buffer.getInt() != MAGIC) {
+			throw new IOException("Not a model file");
+		}
+		int version = buffer.getInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported model file version: " + version);
+		}
+		int precision = buffer.getInt();
+		int nbrLayers = buffer.getInt();
+		if (nbrLayers < 2) {
+			throw new IOException("A network needs at least 2 layers, got " + nbrLayers);
+		}
+		// Each layer takes at least an int, so a count the file can't hold is
+		// rejected before it is allocated
+		if (nbrLayers > buffer.remaining() / Integer.BYTES) {
+			throw new IOException("The model file is truncated");
+		}
+		int[] layerStruct = new int[nbrLayers];
+		for (int layer = 0; layer < nbrLayers; layer++) {
+			layerStruct[layer] = buffer.getInt();
+			if (layerStruct[layer] < 1) {
+				throw new IOException("Layer " + layer + " has no neurons");
+			}
+		}
+		Activation[] activations = new Activation[nbrLayers - 1];
+		for (int layer = 0; layer < activations.length; layer++) {
+			byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+			buffer.get(name);
+			activations[layer] = Activation.valueOf(new String(name, StandardCharsets.US_ASCII));
+		}
+		double learningRate = buffer.getDouble();
+		buffer.position(headerLength(layerStruct, activations));
+		long nbrValues = 0;
+		for (int layer = 0; layer < nbrLayers - 1; layer++) {
+			nbrValues += (long) layerStruct[layer + 1] * (layerStruct[layer] + 1);
+		}
+		if (nbrValues * (precision == 'f' ? Float.BYTES : Double.BYTES) > buffer.remaining()) {
+			throw new IOException("The model file is truncated");
+		}
+
+		if (precision == 'd') {
+			double[][] weights = new double[nbrLayers - 1][];
+			double[][] bias = new double[nbrLayers - 1][];
+			for (int layer = 0; layer < nbrLayers - 1; layer++) {
+				weights[layer] = new double[layerStruct[layer + 1] * layerStruct[layer]];
+				bias[layer] = new double[layerStruct[layer + 1]];
+				buffer.asDoubleBuffer().get(weights[layer]).get(bias[layer]);
+				buffer.position(buffer.position() + (weights[layer].length + bias[layer].length) * Double.BYTES);
+			}
+			return new NeuralNetworkD(layerStruct, activations, learningRate, weights, bias);
+		} else if (precision == 'f') {
+			float[][] weights = new float[nbrLayers - 1][];
+			float[][] bias = new float[nbrLayers - 1][];
+			for (int layer = 0; layer < nbrLayers - 1; layer++) {
+				weights[layer] = new float[layerStruct[layer + 1] * layerStruct[layer]];
+				bias[layer] = new float[layerStruct[layer + 1]];
+				buffer.asFloatBuffer().get(weights[layer]).get(bias[layer]);
+				buffer.position(buffer.position() + (weights[layer].length + bias[layer].length) * Float.BYTES);
+			}
+			return new NeuralNetworkF(layerStruct, activations, (float) learningRate, weights, bias);
+		} else {
+			throw new IOException("Unknown precision: " + precision);
+		}
+	}
+
+	/**
+	 * Returns the length of the header in bytes, including the padding that
+	 * aligns the first weight block.
+	 */
+	private static int headerLength(int[] layerStruct, Activation[] activations) {
+		int length = 4 * Integer.BYTES + layerStruct.length * Integer.BYTES + Double.BYTES;
+		for (Activation activation : activations) {
+			length += Short.BYTES + activation.name().length();
+		}
+		return (length + 7) & ~7;
+	}
+
+	/**
+	 * Returns the number of values in the largest weight matrix.
+	 */
+	private static int largestBlock(int[] layerStruct) {
+		int largest = 0;
+		for (int layer = 0; layer < layerStruct.length - 1; layer++) {
+			largest = Math.max(largest, layerStruct[layer + 1] * layerStruct[layer]);
+		}
+		return largest;
+	}
+
+	/**
+	 * Writes the values of tensor to channel through block, which must be large
+	 * enough to hold them.
+	 */
+	private static void writeBlock(FileChannel channel, ByteBuffer block, Tensor tensor) throws IOException {
+		block.clear();
+		if (tensor instanceof TensorD) {
+			block.asDoubleBuffer().put(((TensorD) tensor).array());
+			block.limit(tensor.size() * Double.BYTES);
+		} else {
+			block.asFloatBuffer().put(((TensorF) tensor).array());
+			block.limit(tensor.size() * Float.BYTES);
+		}
+		writeFully(channel, block);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+}
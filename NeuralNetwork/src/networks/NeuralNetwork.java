@@ -1,74 +1,120 @@
-package networks;
-
-/**
- * This is an interface containing the basic abstract methods needed in order to
- * operate a NeuralNetwork. It supports using either float or double
- * (java primitives) as the basic calculation unit.
- * 
- * @author OdinhengeT
- * @date 14th November 2020
- * @see NeuralNetworkF
- * @see NeuralNetworkD
- */
-public interface NeuralNetwork {
-
-	public abstract char getBasicCalculationUnit();
-
-	/**
-	 * The NeuralNetwork is given an input vector (double), and calculates an output
-	 * vector (double) by passing its values through the NeuralNetwork.
-	 * 
-	 * @param input a double[] of input values to the NeuralNetwork
-	 * @returns a double[] containing the output of the NeuralNetwork
-	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons
-	 * @throws IllegalCallerException   if the NeuralNetwork doesn't accept inputs
-	 *                                  of type double
-	 */
-	public abstract double[] run(double[] input);
-
-	/**
-	 * The NeuralNetwork is given an input vector (float), and calculates an output
-	 * vector (float) by passing its values through the NeuralNetwork.
-	 * 
-	 * @param input a float[] of input values to the NeuralNetwork
-	 * @returns a float[] containing the output of the NeuralNetwork
-	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons
-	 * @throws IllegalCallerException   if the NeuralNetwork doesn't accept inputs
-	 *                                  of type float
-	 */
-	public abstract float[] run(float[] input);
-
-	/**
-	 * Trains the network with multiple vector inputs (double) and their
-	 * corresponding target vectors (double).
-	 * 
-	 * @param input,  multiple vector inputs (double) gathered in an array
-	 * @param target, multiple vector targets (double) corresponding to the input
-	 *                vectors in input
-	 * @throws IllegalArgumentException if input and target are of different length
-	 * @throws IllegalCallerException   if the NeuralNetwork doesn't accept inputs
-	 *                                  of type double
-	 */
-	public abstract void train(double[][] input, double[][] target);
-
-	/**
-	 * Trains the network with multiple vector inputs (float) and their
-	 * corresponding target vectors (float).
-	 * 
-	 * @param input,  multiple vector inputs (float) gathered in an array
-	 * @param target, multiple vector targets (float) corresponding to the input
-	 *                vectors in input
-	 * @throws IllegalArgumentException if input and target are of different length
-	 * @throws IllegalCallerException   if the NeuralNetwork doesn't accept inputs
-	 *                                  of type float
-	 */
-	public abstract void train(float[][] input, float[][] target);
-
-	/**
-	 * Returns a String representation of the NeuralNetwork.
-	 * 
-	 * @returns a String describing the NeuralNetwork
-	 */
-	public abstract String toString();
-
-}
+package networks;
+
+/**
+ * This is an interface containing the basic abstract methods needed in order to
+ * operate a NeuralNetwork. It supports using either float or double
+ * (java primitives) as the basic calculation unit. Every NeuralNetwork accepts
+ * inputs and targets of both types, converting them to its basic calculation
+ * unit, and returns outputs of the type it was given.
+ * 
+ * @author OdinhengeT
+ * @date 14th November 2020
+ * @see NeuralNetworkF
+ * @see NeuralNetworkD
+ */
+public interface NeuralNetwork {
+
+	public abstract char getBasicCalculationUnit();
+
+	/**
+	 * The NeuralNetwork is given an input vector (double), and calculates an output
+	 * vector (double) by passing its values through the NeuralNetwork.
+	 * 
+	 * @param input a double[] of input values to the NeuralNetwork
+	 * @returns a double[] containing the output of the NeuralNetwork
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons
+	 */
+	public abstract double[] run(double[] input);
+
+	/**
+	 * The NeuralNetwork is given an input vector (float), and calculates an output
+	 * vector (float) by passing its values through the NeuralNetwork.
+	 * 
+	 * @param input a float[] of input values to the NeuralNetwork
+	 * @returns a float[] containing the output of the NeuralNetwork
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons
+	 */
+	public abstract float[] run(float[] input);
+
+	/**
+	 * The NeuralNetwork is given multiple input vectors (double), and calculates
+	 * an output vector (double) for each of them, running them through the
+	 * NeuralNetwork in batches.
+	 * 
+	 * @param input multiple vector inputs (double) gathered in an array
+	 * @returns a double[][] containing the output of the NeuralNetwork for each
+	 *          input
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons
+	 */
+	public abstract double[][] runBatch(double[][] input);
+
+	/**
+	 * The NeuralNetwork is given multiple input vectors (float), and calculates
+	 * an output vector (float) for each of them, running them through the
+	 * NeuralNetwork in batches.
+	 * 
+	 * @param input multiple vector inputs (float) gathered in an array
+	 * @returns a float[][] containing the output of the NeuralNetwork for each
+	 *          input
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons
+	 */
+	public abstract float[][] runBatch(float[][] input);
+
+	/**
+	 * Trains the network with multiple vector inputs (double) and their
+	 * corresponding target vectors (double).
+	 * 
+	 * @param input,  multiple vector inputs (double) gathered in an array
+	 * @param target, multiple vector targets (double) corresponding to the input
+	 *                vectors in input
+	 * @throws IllegalArgumentException if input and target are of different length
+	 */
+	public abstract void train(double[][] input, double[][] target);
+
+	/**
+	 * Trains the network with multiple vector inputs (float) and their
+	 * corresponding target vectors (float).
+	 * 
+	 * @param input,  multiple vector inputs (float) gathered in an array
+	 * @param target, multiple vector targets (float) corresponding to the input
+	 *                vectors in input
+	 * @throws IllegalArgumentException if input and target are of different length
+	 */
+	public abstract void train(float[][] input, float[][] target);
+
+	/**
+	 * Sets the number of threads the NeuralNetwork uses when training, and when
+	 * running inputs through layers large enough to split their matrix products,
+	 * where 1 means computing everything on the calling thread. Each network has
+	 * its own parallelism, so that for instance a network serving requests and
+	 * one being trained can be given different shares of the cores.
+	 * 
+	 * @param parallelism number of threads to compute with
+	 * @throws IllegalArgumentException if parallelism is less than 1
+	 */
+	public abstract void setParallelism(int parallelism);
+
+	/**
+	 * Returns the number of threads the NeuralNetwork uses when training or
+	 * running inputs.
+	 * 
+	 * @return number of threads used by train, run and runBatch
+	 */
+	public abstract int getParallelism();
+
+	/**
+	 * Returns the number of neurons in each layer of the NeuralNetwork, starting
+	 * with the input layer.
+	 * 
+	 * @return a copy of the NeuralNetwork's layerStruct
+	 */
+	public abstract int[] getLayerStruct();
+
+	/**
+	 * Returns a String representation of the NeuralNetwork.
+	 * 
+	 * @returns a String describing the NeuralNetwork
+	 */
+	public abstract String toString();
+
+}
@@ -1,195 +1,91 @@
 package networks;
 
-import java.util.function.Function;
-import layers.double_based.*;
+import backend.Backend;
+import backend.Tensor;
+import backend.TensorD;
+import layers.Activation;
 
 /**
- * NeuralNetworkF is a simple implementation of a neural network using matrices.
- * Uses double as basic calculation unit.
+ * NeuralNetworkD is a simple implementation of a neural network using matrices.
+ * Uses double as basic calculation unit, being a TensorNetwork computed by the
+ * Backend given by Backend.preferred('d'): VectorDoubleBackend if the JVM was
+ * started with --add-modules jdk.incubator.vector, otherwise DoubleBackend.
  * 
  * @author OdinhengeT
  * @date 14th November 2020
  * @see NeuralNetwork
  * @see NeuralNetworkF
- * @see LayerD
+ * @see TensorNetwork
  */
-public class NeuralNetworkD implements NeuralNetwork {
-
-	/**
-	 * The Sigmoid function, used as the non-linear activation function.
-	 */
-	protected static final Function<Double, Double> activationFunction = a -> 1.0 / (1.0 + Math.exp(-1 * a));
-
-	/**
-	 * Derivative of the Sigmoid function (above).
-	 */
-	protected static final Function<Double, Double> derivativeOfActivationFunction = a -> activationFunction.apply(a)
-			* (1 - activationFunction.apply(a));
-	
-	/**
-	 * The rate of learning of the network
-	 */
-	private double learningRate;
-
-	/**
-	 * Number of layers and neurons per Layer in this Network
-	 */
-	protected int[] layerStruct;
-
-	/**
-	 * The layers (LayerD) in the NeuralNetwork.
-	 */
-	private LayerD[] network;
+public class NeuralNetworkD extends TensorNetwork {
 
 	/**
 	 * Creates a NeuralNetwork with nbrLayers Layers with nbrLinks and nbrNeurons as
 	 * provided by argument. The first Layer is an InputMatrixLayer, the last Layer
 	 * is an OutputMatrixLayer and the Layers in between are InnerMatrixLayers. The
-	 * Network has a learningRate defined in argument.
+	 * Network has a learningRate defined in argument. All layers use the Sigmoid
+	 * function as activation function.
 	 * 
-	 * @param learningRate the NeuralNetworkF's rate of learning
+	 * @param learningRate the NeuralNetworkD's rate of learning
 	 * 
 	 * @param layerStruct  an int[] with length equal to the number of Layers of the
 	 *                     NeuralNetwork, and values equal to the number of Neurons
 	 *                     (excluding eventual BiasNeurons)
 	 */
 	public NeuralNetworkD(int[] layerStruct, double learningRate) {
-		this.learningRate = learningRate;
-		this.layerStruct = layerStruct;
-		network = new LayerD[layerStruct.length];
-		network[0] = new LayerInputD(layerStruct[0], layerStruct[1]);
-		for (int L = 1; L < layerStruct.length - 1; L++) {
-			network[L] = new LayerInnerD(layerStruct[L], layerStruct[L + 1]);
-		}
-		network[layerStruct.length - 1] = new LayerOutputD(layerStruct[layerStruct.length - 1]);
-	}
-
-	/**
-	 * Returns 'd' signifying that this NeuralNetwork has double as its basic
-	 * calculation unit.
-	 * 
-	 * @return 'd'
-	 */
-	public char getBasicCalculationUnit() {
-		return 'd';
-	}
-
-	/**
-	 * The NeuralNetwork is given an input vector (double), and calculates an output
-	 * vector (double) by passing its values through the NeuralNetwork.
-	 * 
-	 * @param input a double[] of input values to the NeuralNetwork
-	 * @returns a double[] containing the output of the NeuralNetwork
-	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons
-	 */
-	public double[] run(double[] input) {
-		if (input.length != layerStruct[0]) {
-			throw new IllegalArgumentException("Input of wrong length");
-		}
-		for (int i = 0; i < layerStruct.length; i++) {
-			network[i].input(input);
-			input = network[i].getOutput();
-		}
-		return input;
+		super(Backend.preferred('d'), layerStruct, learningRate);
 	}
 
 	/**
-	 * Trains the NeuralNetwork, using multiple vector inputs (double) and their
-	 * corresponding target vectors (double), by updating the weights and biases in
-	 * its MatrixLayers using backpropagation and gradient descent.
+	 * Creates a NeuralNetwork like NeuralNetworkD(int[], double), but with the
+	 * activation function of each layer (except the input layer, whose inputs are
+	 * never activated) given by activations.
 	 * 
-	 * @param input,  multiple vector inputs (double) gathered in an array
-	 * @param target, multiple vector targets (double) corresponding to the input
-	 *                vectors in input
-	 * @throws IllegalArgumentException if input and target are of different length
+	 * @param layerStruct  an int[] with length equal to the number of Layers of the
+	 *                     NeuralNetwork, and values equal to the number of Neurons
+	 *                     (excluding eventual BiasNeurons)
+	 * @param activations  the activation function of each layer after the input
+	 *                     layer, activations[i] is used by layer i + 1
+	 * @param learningRate the NeuralNetworkD's rate of learning
+	 * @throws IllegalArgumentException if activations isn't one shorter than
+	 *                                  layerStruct, or if SOFTMAX is used for any
+	 *                                  other layer than the output layer
 	 */
-	public void train(double[][] input, double[][] target) {
-		if (input.length != target.length) {
-			throw new IllegalArgumentException("input and target not of same length");
-		}
-
-		int nbrTrainingSets = input.length;
-		double[] result = new double[layerStruct[layerStruct.length - 1]];
-
-		double[][][] deltaWeights = new double[layerStruct.length - 1][1][1];
-		double[][] deltaBias = new double[layerStruct.length - 1][1];
-		for (int layer = 0; layer < layerStruct.length - 1; layer++) {
-			deltaWeights[layer] = new double[layerStruct[layer + 1]][layerStruct[layer]];
-			deltaBias[layer] = new double[layerStruct[layer + 1]];
-		}
-
-		for (int trainingSet = 0; trainingSet < nbrTrainingSets; trainingSet++) {
-			if (input[trainingSet].length != layerStruct[0]) {
-				throw new IllegalArgumentException("input array of incorrect length");
-			}
-			if (target[trainingSet].length != layerStruct[layerStruct.length - 1]) {
-				throw new IllegalArgumentException("target array of incorrect length");
-			}
-
-			double[][] tempBias = new double[2][1];
-
-			result = run(input[trainingSet]);
-			tempBias[1] = new double[target[trainingSet].length];
-			for (int neuron = 0; neuron < target[trainingSet].length; neuron++) {
-				tempBias[1][neuron] = (result[neuron] - target[trainingSet][neuron])
-						* derivativeOfActivationFunction.apply(network[layerStruct.length - 1].getInputTo(neuron));
-			}
-
-			for (int layer = layerStruct.length - 2; layer >= 0; layer--) {
-				tempBias[0] = new double[layerStruct[layer]];
-
-				for (int link = 0; link < layerStruct[layer + 1]; link++) {
-					for (int neuron = 0; neuron < layerStruct[layer]; neuron++) {
-						tempBias[0][neuron] += tempBias[1][link] * network[layer].getWeightAt(link, neuron)
-								* derivativeOfActivationFunction.apply(network[layer].getInputTo(neuron));
-
-						deltaWeights[layer][link][neuron] -= tempBias[1][link]
-								* activationFunction.apply(network[layer].getInputTo(neuron)) * learningRate
-								/ nbrTrainingSets;
-					}
-					deltaBias[layer][link] -= tempBias[1][link] * learningRate / nbrTrainingSets;
-				}
-				tempBias[1] = tempBias[0];
-			}
-		}
-
-		for (int layer = 0; layer < layerStruct.length - 1; layer++) {
-			network[layer].updateBias(deltaBias[layer]);
-			network[layer].updateWeights(deltaWeights[layer]);
-		}
+	public NeuralNetworkD(int[] layerStruct, Activation[] activations, double learningRate) {
+		super(Backend.preferred('d'), layerStruct, activations, learningRate);
 	}
 
 	/**
-	 * run(float[]) is set to throw IllegalCallerException, double-based
-	 * implementation.
+	 * Creates a NeuralNetwork like NeuralNetworkD(int[], Activation[], double), but
+	 * with the given weights and biases instead of random ones (used by ModelFile
+	 * when loading a saved network). The arrays are used as they are, not copied.
 	 * 
-	 * @throws IllegalCallerException when called
+	 * @param layerStruct  number of neurons in each layer
+	 * @param activations  the activation function of each layer after the input
+	 *                     layer
+	 * @param learningRate the NeuralNetworkD's rate of learning
+	 * @param weights      weights[layer] is the weight matrix of layer (all but
+	 *                     the output layer)
+	 * @param bias         bias[layer] is the bias vector of layer
+	 * @throws IllegalArgumentException if activations isn't one shorter than
+	 *                                  layerStruct, if SOFTMAX is used for any
+	 *                                  other layer than the output layer, or if
+	 *                                  any weights or biases are of wrong length
 	 */
-	public float[] run(float[] input) {
-		throw new IllegalCallerException();
+	NeuralNetworkD(int[] layerStruct, Activation[] activations, double learningRate, double[][] weights,
+			double[][] bias) {
+		super(Backend.preferred('d'), layerStruct, activations, learningRate, wrap(weights), wrap(bias));
 	}
 
 	/**
-	 * train(float[][], float[][]) is set to throw IllegalCallerException,
-	 * double-based implementation.
-	 * 
-	 * @throws IllegalCallerException when called
-	 */
-	public void train(float[][] input, float[][] target) {
-		throw new IllegalCallerException();
-	}
-	
-	/**
-	 * Returns a String representation of the NeuralNetwork.
-	 * 
-	 * @returns a String describing the NeuralNetwork
+	 * Wraps each array in a TensorD.
 	 */
-	public String toString() {
-		StringBuilder sb = new StringBuilder("==NeuralNetwork(d)==" + System.lineSeparator());
-		for (int i = 0; i < layerStruct.length; i++) {
-			sb.append(network[i].toString() + System.lineSeparator());
+	private static Tensor[] wrap(double[][] arrays) {
+		Tensor[] tensors = new Tensor[arrays.length];
+		for (int i = 0; i < arrays.length; i++) {
+			tensors[i] = new TensorD(arrays[i]);
 		}
-		return sb.toString();
+		return tensors;
 	}
 
 }
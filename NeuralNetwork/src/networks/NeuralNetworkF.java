@@ -1,53 +1,30 @@
 package networks;
 
-import java.util.function.Function;
-import layers.float_based.*;
+import backend.Backend;
+import backend.Tensor;
+import backend.TensorF;
+import layers.Activation;
 
 /**
  * NeuralNetworkF is a simple implementation of a neural network using matrices.
- * Uses float as basic calculation unit.
+ * Uses float as basic calculation unit, being a TensorNetwork computed by the
+ * Backend given by Backend.preferred('f'): VectorFloatBackend if the JVM was
+ * started with --add-modules jdk.incubator.vector, otherwise FloatBackend.
  * 
  * @author OdinhengeT
  * @date 14th November 2020
  * @see NeuralNetwork
  * @see NeuralNetworkD
- * @see LayerF
+ * @see TensorNetwork
  */
-public class NeuralNetworkF implements NeuralNetwork {
-
-	/**
-	 * The non-linear activation function, in this implementation the Sigmoid
-	 * function is used.
-	 */
-	protected static final Function<Float, Float> activationFunction = a -> 1.0f / (1.0f + (float) Math.exp(-1 * a));
-
-	/**
-	 * Derivative of the activation function, in this implementation the derivative
-	 * of the Sigmoid function..
-	 */
-	protected static final Function<Float, Float> derivativeOfActivationFunction = a -> activationFunction.apply(a)
-			* (1 - activationFunction.apply(a));
-
-	/**
-	 * The rate of learning of the network
-	 */
-	private float learningRate;
-
-	/**
-	 * Number of layers and neurons per Layer in this Network
-	 */
-	protected int[] layerStruct;
-
-	/**
-	 * The layers (LayerF) in the NeuralNetwork.
-	 */
-	private LayerF[] network;
+public class NeuralNetworkF extends TensorNetwork {
 
 	/**
 	 * Creates a NeuralNetwork with nbrLayers Layers with nbrLinks and nbrNeurons as
 	 * provided by argument. The first Layer is an InputMatrixLayer, the last Layer
 	 * is an OutputMatrixLayer and the Layers in between are InnerMatrixLayers. The
-	 * Network has a learningRate defined in argument.
+	 * Network has a learningRate defined in argument. All layers use the Sigmoid
+	 * function as activation function.
 	 * 
 	 * @param learningRate the NeuralNetworkF's rate of learning
 	 * 
@@ -56,143 +33,59 @@ public class NeuralNetworkF implements NeuralNetwork {
 	 *                     (excluding eventual BiasNeurons)
 	 */
 	public NeuralNetworkF(int[] layerStruct, float learningRate) {
-		this.learningRate = learningRate;
-		this.layerStruct = layerStruct;
-		network = new LayerF[layerStruct.length];
-		network[0] = new LayerInputF(layerStruct[0], layerStruct[1]);
-		for (int L = 1; L < layerStruct.length - 1; L++) {
-			network[L] = new LayerInnerF(layerStruct[L], layerStruct[L + 1]);
-		}
-		network[layerStruct.length - 1] = new LayerOutputF(layerStruct[layerStruct.length - 1]);
-	}
-
-	/**
-	 * Returns 'f' signifying that this NeuralNetwork has float as its basic
-	 * calculation unit.
-	 * 
-	 * @return 'f'
-	 */
-	public char getBasicCalculationUnit() {
-		return 'f';
+		super(Backend.preferred('f'), layerStruct, learningRate);
 	}
 
 	/**
-	 * The NeuralNetwork is given an input vector (float), and calculates an output
-	 * vector (float) by passing its values through the NeuralNetwork.
+	 * Creates a NeuralNetwork like NeuralNetworkF(int[], float), but with the
+	 * activation function of each layer (except the input layer, whose inputs are
+	 * never activated) given by activations.
 	 * 
-	 * @param input a float[] of input values to the NeuralNetwork
-	 * @returns a float[] containing the output of the NeuralNetwork
-	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons
-	 */
-	public float[] run(float[] input) {
-		if (input.length != layerStruct[0]) {
-			throw new IllegalArgumentException("Input of wrong length");
-		}
-		for (int i = 0; i < layerStruct.length; i++) {
-			network[i].input(input);
-			input = network[i].getOutput();
-		}
-		return input;
-	}
-
-	/**
-	 * Trains the NeuralNetwork, using multiple vector inputs (float) and their
-	 * corresponding target vectors (float), by updating the weights and biases in
-	 * its MatrixLayers using backpropagation and gradient descent.
-	 * 
-	 * @param input,  multiple vector inputs (float) gathered in an array
-	 * @param target, multiple vector targets (float) corresponding to the input
-	 *                vectors in input
-	 * @throws IllegalArgumentException if input and target are of different length
-	 */
-	public void train(float[][] input, float[][] target) {
-		if (input.length != target.length) {
-			throw new IllegalArgumentException("input and target not of same length");
-		}
-
-		int nbrTrainingSets = input.length;
-		float[] result = new float[layerStruct[layerStruct.length - 1]];
-
-		float[][][] deltaWeights = new float[layerStruct.length - 1][1][1];
-		float[][] deltaBias = new float[layerStruct.length - 1][1];
-		for (int layer = 0; layer < layerStruct.length - 1; layer++) {
-			deltaWeights[layer] = new float[layerStruct[layer + 1]][layerStruct[layer]];
-			deltaBias[layer] = new float[layerStruct[layer + 1]];
-		}
-
-		for (int trainingSet = 0; trainingSet < nbrTrainingSets; trainingSet++) {
-			if (input[trainingSet].length != layerStruct[0]) {
-				throw new IllegalArgumentException("input array of incorrect length");
-			}
-			if (target[trainingSet].length != layerStruct[layerStruct.length - 1]) {
-				throw new IllegalArgumentException("target array of incorrect length");
-			}
-
-			float[][] tempBias = new float[2][1];
-
-			result = run(input[trainingSet]);
-			tempBias[1] = new float[target[trainingSet].length];
-			for (int neuron = 0; neuron < target[trainingSet].length; neuron++) {
-				tempBias[1][neuron] = (result[neuron] - target[trainingSet][neuron])
-						* derivativeOfActivationFunction.apply(network[layerStruct.length - 1].getInputTo(neuron));
-			}
-
-			for (int layer = layerStruct.length - 2; layer >= 0; layer--) {
-				tempBias[0] = new float[layerStruct[layer]];
-
-				for (int link = 0; link < layerStruct[layer + 1]; link++) {
-					for (int neuron = 0; neuron < layerStruct[layer]; neuron++) {
-						tempBias[0][neuron] += tempBias[1][link] * network[layer].getWeightAt(link, neuron)
-								* derivativeOfActivationFunction.apply(network[layer].getInputTo(neuron));
-
-						deltaWeights[layer][link][neuron] -= tempBias[1][link]
-								* activationFunction.apply(network[layer].getInputTo(neuron)) * learningRate
-								/ nbrTrainingSets;
-					}
-					deltaBias[layer][link] -= tempBias[1][link] * learningRate / nbrTrainingSets;
-				}
-				tempBias[1] = tempBias[0];
-			}
-		}
-
-		for (int layer = 0; layer < layerStruct.length - 1; layer++) {
-			network[layer].updateBias(deltaBias[layer]);
-			network[layer].updateWeights(deltaWeights[layer]);
-		}
-
-	}
-
-	/**
-	 * run(double[]) is set to throw IllegalCallerException, float-based
-	 * implementation.
-	 * 
-	 * @throws IllegalCallerException when called
+	 * @param layerStruct  an int[] with length equal to the number of Layers of the
+	 *                     NeuralNetwork, and values equal to the number of Neurons
+	 *                     (excluding eventual BiasNeurons)
+	 * @param activations  the activation function of each layer after the input
+	 *                     layer, activations[i] is used by layer i + 1
+	 * @param learningRate the NeuralNetworkF's rate of learning
+	 * @throws IllegalArgumentException if activations isn't one shorter than
+	 *                                  layerStruct, or if SOFTMAX is used for any
+	 *                                  other layer than the output layer
 	 */
-	public double[] run(double[] input) {
-		throw new IllegalCallerException();
+	public NeuralNetworkF(int[] layerStruct, Activation[] activations, float learningRate) {
+		super(Backend.preferred('f'), layerStruct, activations, learningRate);
 	}
 
 	/**
-	 * train(double[][], double[][]) is set to throw IllegalCallerException,
-	 * float-based implementation.
+	 * Creates a NeuralNetwork like NeuralNetworkF(int[], Activation[], float), but
+	 * with the given weights and biases instead of random ones (used by ModelFile
+	 * when loading a saved network). The arrays are used as they are, not copied.
 	 * 
-	 * @throws IllegalCallerException when called
+	 * @param layerStruct  number of neurons in each layer
+	 * @param activations  the activation function of each layer after the input
+	 *                     layer
+	 * @param learningRate the NeuralNetworkF's rate of learning
+	 * @param weights      weights[layer] is the weight matrix of layer (all but
+	 *                     the output layer)
+	 * @param bias         bias[layer] is the bias vector of layer
+	 * @throws IllegalArgumentException if activations isn't one shorter than
+	 *                                  layerStruct, if SOFTMAX is used for any
+	 *                                  other layer than the output layer, or if
+	 *                                  any weights or biases are of wrong length
 	 */
-	public void train(double[][] input, double[][] target) {
-		throw new IllegalCallerException();
+	NeuralNetworkF(int[] layerStruct, Activation[] activations, float learningRate, float[][] weights,
+			float[][] bias) {
+		super(Backend.preferred('f'), layerStruct, activations, learningRate, wrap(weights), wrap(bias));
 	}
 
 	/**
-	 * Returns a String representation of the NeuralNetwork.
-	 * 
-	 * @returns a String describing the NeuralNetwork
+	 * Wraps each array in a TensorF.
 	 */
-	public String toString() {
-		StringBuilder sb = new StringBuilder("==NeuralNetwork(f)==" + System.lineSeparator());
-		for (int i = 0; i < layerStruct.length; i++) {
-			sb.append(network[i].toString() + System.lineSeparator());
+	private static Tensor[] wrap(float[][] arrays) {
+		Tensor[] tensors = new Tensor[arrays.length];
+		for (int i = 0; i < arrays.length; i++) {
+			tensors[i] = new TensorF(arrays[i]);
 		}
-		return sb.toString();
+		return tensors;
 	}
 
 }
@@ -0,0 +1,749 @@
+package networks;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import backend.Backend;
+import backend.Tensor;
+import layers.Activation;
+import layers.Layer;
+
+/**
+ * TensorNetwork is a simple implementation of a neural network using matrices,
+ * computed with the kernels of a Backend. The precision of the network (its
+ * basic calculation unit) is that of its Backend, chosen when the network is
+ * created, so the same implementation is used whether it calculates with float
+ * or double. NeuralNetworkF and NeuralNetworkD are TensorNetworks using
+ * FloatBackend and DoubleBackend.
+ * <p>
+ * Inputs and targets may be given as either float or double whatever the
+ * precision of the network, they are converted when they are copied into its
+ * buffers.
+ * 
+ * @author OdinhengeT
+ * @see NeuralNetwork
+ * @see NeuralNetworkF
+ * @see NeuralNetworkD
+ * @see Layer
+ * @see Backend
+ * @see InferencePlan
+ */
+public class TensorNetwork implements NeuralNetwork {
+
+	/**
+	 * Smallest number of sets of training data given to each thread when training
+	 * in parallel, smaller batches are trained on the calling thread.
+	 */
+	private static final int MIN_SETS_PER_TASK = 4;
+
+	/**
+	 * Largest number of inputs runBatch packs into a single batch, which bounds
+	 * the size of the buffers kept by each thread's context.
+	 */
+	public static final int BATCH_SIZE = 128;
+
+	/**
+	 * The Backend computing the network.
+	 */
+	private final Backend backend;
+
+	/**
+	 * The rate of learning of the network
+	 */
+	private double learningRate;
+
+	/**
+	 * Number of threads used when training or multiplying large matrices, see
+	 * setParallelism.
+	 */
+	private int parallelism;
+
+	/**
+	 * Pool used to train in parallel and to split large matrix products, null when
+	 * parallelism is 1.
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Runs the arrays given to run and runBatch through the network, with one
+	 * context per thread calling them.
+	 */
+	private final ArrayRunner arrays;
+
+	/**
+	 * Buffers reused by every call to train, one per thread.
+	 */
+	private TrainingWorkspace[] workspaces;
+
+	/**
+	 * Buffers used by train for a single set of training data, created the first
+	 * time it is given one.
+	 */
+	private TrainingWorkspace singleWorkspace;
+
+	/**
+	 * The training data (double) of the call to train in progress, null
+	 * otherwise so that it isn't kept alive by the network.
+	 */
+	private double[][] inputD, targetD;
+
+	/**
+	 * The training data (float) of the call to train in progress, null otherwise.
+	 */
+	private float[][] inputF, targetF;
+
+	/**
+	 * Packers of inputD/targetD and inputF/targetF, created once so that train
+	 * doesn't allocate a new one on every call.
+	 */
+	private final BatchPacker packerD = this::packD, packerF = this::packF;
+
+	/**
+	 * Number of layers and neurons per Layer in this Network
+	 */
+	protected int[] layerStruct;
+
+	/**
+	 * The layers in the NeuralNetwork.
+	 */
+	private Layer[] network;
+
+	/**
+	 * Creates a NeuralNetwork with nbrLayers Layers with nbrLinks and nbrNeurons as
+	 * provided by argument, computed by backend. The Network has a learningRate
+	 * defined in argument. All layers use the Sigmoid function as activation
+	 * function.
+	 * 
+	 * @param backend      the Backend to compute with, deciding the precision
+	 * @param layerStruct  an int[] with length equal to the number of Layers of the
+	 *                     NeuralNetwork, and values equal to the number of Neurons
+	 *                     (excluding eventual BiasNeurons)
+	 * @param learningRate the TensorNetwork's rate of learning
+	 */
+	public TensorNetwork(Backend backend, int[] layerStruct, double learningRate) {
+		this(backend, layerStruct, sigmoidEverywhere(layerStruct), learningRate);
+	}
+
+	/**
+	 * Creates a NeuralNetwork like TensorNetwork(Backend, int[], double), but with
+	 * the activation function of each layer (except the input layer, whose inputs
+	 * are never activated) given by activations.
+	 * 
+	 * @param backend      the Backend to compute with, deciding the precision
+	 * @param layerStruct  an int[] with length equal to the number of Layers of the
+	 *                     NeuralNetwork, and values equal to the number of Neurons
+	 *                     (excluding eventual BiasNeurons)
+	 * @param activations  the activation function of each layer after the input
+	 *                     layer, activations[i] is used by layer i + 1
+	 * @param learningRate the TensorNetwork's rate of learning
+	 * @throws IllegalArgumentException if activations isn't one shorter than
+	 *                                  layerStruct, or if SOFTMAX is used for any
+	 *                                  other layer than the output layer
+	 */
+	public TensorNetwork(Backend backend, int[] layerStruct, Activation[] activations, double learningRate) {
+		this(backend, layerStruct, activations, learningRate, null, null);
+	}
+
+	/**
+	 * Creates a NeuralNetwork like TensorNetwork(Backend, int[], Activation[],
+	 * double), but with the given weights and biases instead of random ones (used
+	 * by ModelFile when loading a saved network). The Tensors are used as they
+	 * are, not copied.
+	 * 
+	 * @param backend      the Backend to compute with, deciding the precision
+	 * @param layerStruct  number of neurons in each layer
+	 * @param activations  the activation function of each layer after the input
+	 *                     layer
+	 * @param learningRate the TensorNetwork's rate of learning
+	 * @param weights      weights[layer] is the weight matrix of layer (all but
+	 *                     the output layer), or null for random weights and
+	 *                     biases
+	 * @param bias         bias[layer] is the bias vector of layer, ignored if
+	 *                     weights is null
+	 * @throws IllegalArgumentException if activations isn't one shorter than
+	 *                                  layerStruct, if SOFTMAX is used for any
+	 *                                  other layer than the output layer, or if
+	 *                                  any weights or biases are of wrong length
+	 *                                  or of another precision than backend
+	 */
+	TensorNetwork(Backend backend, int[] layerStruct, Activation[] activations, double learningRate,
+			Tensor[] weights, Tensor[] bias) {
+		if (activations.length != layerStruct.length - 1) {
+			throw new IllegalArgumentException("Expected one activation function per layer after the input layer");
+		}
+		for (int i = 0; i < activations.length - 1; i++) {
+			if (activations[i] == Activation.SOFTMAX) {
+				throw new IllegalArgumentException("SOFTMAX may only be used for the output layer");
+			}
+		}
+		this.backend = backend;
+		this.learningRate = learningRate;
+		this.layerStruct = layerStruct;
+		this.parallelism = 1;
+		this.workspaces = new TrainingWorkspace[1];
+		network = new Layer[layerStruct.length];
+		for (int L = 0; L < layerStruct.length - 1; L++) {
+			// The activation function is not applied to the inputs of the input layer
+			Activation activation = L == 0 ? Activation.IDENTITY : activations[L - 1];
+			if (weights == null) {
+				network[L] = new Layer(backend, layerStruct[L], layerStruct[L + 1], activation);
+			} else {
+				network[L] = new Layer(backend, layerStruct[L], layerStruct[L + 1], activation, weights[L], bias[L]);
+			}
+		}
+		network[layerStruct.length - 1] = new Layer(backend, layerStruct[layerStruct.length - 1], 0,
+				activations[layerStruct.length - 2]);
+		arrays = new ArrayRunner(backend, layerStruct, this::run, this::runBatch, this::newInferenceContext);
+	}
+
+	/**
+	 * Returns an array using the Sigmoid function for every layer after the input
+	 * layer of a network with the given layerStruct.
+	 */
+	private static Activation[] sigmoidEverywhere(int[] layerStruct) {
+		Activation[] activations = new Activation[layerStruct.length - 1];
+		Arrays.fill(activations, Activation.SIGMOID);
+		return activations;
+	}
+
+	/**
+	 * Returns the basic calculation unit of the Backend computing this network.
+	 * 
+	 * @return 'f' for float or 'd' for double
+	 */
+	public char getBasicCalculationUnit() {
+		return backend.getBasicCalculationUnit();
+	}
+
+	/**
+	 * Returns the Backend computing this network.
+	 * 
+	 * @return this.backend
+	 */
+	public Backend getBackend() {
+		return this.backend;
+	}
+
+	/**
+	 * The NeuralNetwork is given an input vector (double), and calculates an output
+	 * vector (double) by passing its values through the NeuralNetwork. The weights
+	 * and biases are only read, and all intermediate results are kept in a
+	 * context owned by the calling thread, so any number of threads may run the
+	 * network at the same time (as long as it isn't trained meanwhile).
+	 * 
+	 * @param input a double[] of input values to the NeuralNetwork
+	 * @returns a double[] containing the output of the NeuralNetwork
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons
+	 */
+	public double[] run(double[] input) {
+		return arrays.run(input);
+	}
+
+	/**
+	 * The NeuralNetwork is given an input vector (float), and calculates an output
+	 * vector (float) by passing its values through the NeuralNetwork, like
+	 * run(double[]).
+	 * 
+	 * @param input a float[] of input values to the NeuralNetwork
+	 * @returns a float[] containing the output of the NeuralNetwork
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons
+	 */
+	public float[] run(float[] input) {
+		return arrays.run(input);
+	}
+
+	/**
+	 * The NeuralNetwork is given an input vector, and calculates an output vector
+	 * by passing its values through the NeuralNetwork, keeping all intermediate
+	 * results in context. Nothing is allocated, and since the weights and biases
+	 * are only read, several threads may run the network at the same time given
+	 * that each uses its own context (and that the network isn't trained
+	 * meanwhile). Each layer is computed straight into the activation it hands to
+	 * the next one, its bias and activation function applied as part of the
+	 * matrix-vector product. Prefer this over run(double[]) on threads that are
+	 * short lived, for instance one thread per request, where a thread-local
+	 * context would be recreated for every thread.
+	 * 
+	 * @param input   a Tensor of input values to the NeuralNetwork, created by
+	 *                the Backend of the network
+	 * @param context buffers to use, created by newInferenceContext()
+	 * @returns a Tensor containing the output of the NeuralNetwork, owned by
+	 *          context and overwritten by its next use
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons, or if
+	 *                                  context was created by another network
+	 */
+	public Tensor run(Tensor input, InferenceContext context) {
+		if (input.size() != layerStruct[0]) {
+			throw new IllegalArgumentException("Input of wrong length");
+		}
+		if (context.layerStruct != layerStruct) {
+			throw new IllegalArgumentException("The context was created for another network");
+		}
+		Tensor activation = input;
+		for (int layer = 0; layer < layerStruct.length - 1; layer++) {
+			network[layer].forwardActivate(activation, context.activation[layer + 1],
+					network[layer + 1].getActivationFunction(), pool);
+			activation = context.activation[layer + 1];
+		}
+		return activation;
+	}
+
+	/**
+	 * The NeuralNetwork is given multiple input vectors (double), and calculates an
+	 * output vector (double) for each of them. The inputs are run in batches of up
+	 * to BATCH_SIZE, packed into a matrix so that each layer does one matrix
+	 * multiplication per batch instead of one per input. Like run(double[]) this
+	 * may be called by several threads at the same time.
+	 * 
+	 * @param input multiple vector inputs (double) gathered in an array
+	 * @returns a double[][] containing the output of the NeuralNetwork for each input
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons for any
+	 *                                  of the input vectors
+	 */
+	public double[][] runBatch(double[][] input) {
+		return arrays.runBatch(input);
+	}
+
+	/**
+	 * The NeuralNetwork is given multiple input vectors (float), and calculates an
+	 * output vector (float) for each of them, like runBatch(double[][]).
+	 * 
+	 * @param input multiple vector inputs (float) gathered in an array
+	 * @returns a float[][] containing the output of the NeuralNetwork for each input
+	 * @throws IllegalArgumentException if nbr inputs != nbr InputNeurons for any
+	 *                                  of the input vectors
+	 */
+	public float[][] runBatch(float[][] input) {
+		return arrays.runBatch(input);
+	}
+
+	/**
+	 * The NeuralNetwork is given a batch of input vectors packed into a
+	 * layerStruct[0] x batchSize matrix (one column per input, stored in row-major
+	 * order), and calculates the corresponding output matrix with one matrix
+	 * multiplication per layer, whose bias and activation function are applied
+	 * as part of the same kernel. All intermediate results are kept in context,
+	 * which is only reallocated when given a larger batch than before.
+	 * 
+	 * @param input     layerStruct[0] x batchSize matrix of inputs
+	 * @param batchSize number of inputs in the batch
+	 * @param context   buffers to use, created by newInferenceContext()
+	 * @returns a nbrOutputs x batchSize matrix containing the output of the
+	 *          NeuralNetwork for each input, owned by context and overwritten by
+	 *          its next use
+	 * @throws IllegalArgumentException if input is too short, or if context was
+	 *                                  created by another network
+	 */
+	public Tensor runBatch(Tensor input, int batchSize, InferenceContext context) {
+		if (input.size() < layerStruct[0] * batchSize) {
+			throw new IllegalArgumentException("Input of wrong length");
+		}
+		if (context.layerStruct != layerStruct) {
+			throw new IllegalArgumentException("The context was created for another network");
+		}
+		context.ensureBatchCapacity(batchSize);
+		Tensor activation = input;
+		for (int layer = 0; layer < layerStruct.length - 1; layer++) {
+			network[layer].forwardBatchActivate(activation, context.batchActivation[layer + 1],
+					network[layer + 1].getActivationFunction(), batchSize, pool);
+			activation = context.batchActivation[layer + 1];
+		}
+		return activation;
+	}
+
+	/**
+	 * Creates a new context for run(Tensor, InferenceContext) and runBatch(Tensor,
+	 * int, InferenceContext), holding the buffers needed to run inputs through
+	 * this network.
+	 * 
+	 * @return a new InferenceContext for this network
+	 */
+	public InferenceContext newInferenceContext() {
+		return new InferenceContext(backend, layerStruct);
+	}
+
+	/**
+	 * Sets the number of threads used by train, run and runBatch. With a
+	 * parallelism above 1 each batch is split into up to parallelism chunks that
+	 * are backpropagated concurrently on a ForkJoinPool owned by this network,
+	 * each chunk summing its gradient into its own workspace, after which the
+	 * gradients are added together pairwise (as a tree) before the weights and
+	 * biases are updated. The same pool splits the matrix products of the forward
+	 * pass into blocks of rows and columns when a layer is large enough (at least
+	 * MatrixOperations.PARALLEL_THRESHOLD multiply-adds), so that a single input
+	 * through a wide layer uses several cores too. A parallelism of 1 (the
+	 * default) computes everything on the calling thread.
+	 * 
+	 * @param parallelism number of threads to compute with
+	 * @throws IllegalArgumentException if parallelism is less than 1
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1");
+		}
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+		this.parallelism = parallelism;
+		this.workspaces = new TrainingWorkspace[parallelism];
+		if (parallelism > 1) {
+			pool = new ForkJoinPool(parallelism);
+		}
+	}
+
+	/**
+	 * Returns the number of threads used by train, run and runBatch.
+	 * 
+	 * @return this.parallelism
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * Returns the number of neurons in each layer, starting with the input layer.
+	 * 
+	 * @return a copy of this.layerStruct
+	 */
+	public int[] getLayerStruct() {
+		return layerStruct.clone();
+	}
+
+	/**
+	 * Returns the rate of learning used by train.
+	 * 
+	 * @return this.learningRate
+	 */
+	public double getLearningRate() {
+		return this.learningRate;
+	}
+
+	/**
+	 * Returns the layer at index layer, whose weights and biases are the ones
+	 * used by the network.
+	 * 
+	 * @param layer index of the layer, 0 being the input layer
+	 * @return this.network[layer]
+	 */
+	Layer getLayer(int layer) {
+		return network[layer];
+	}
+
+	/**
+	 * Trains the NeuralNetwork, using multiple vector inputs (double) and their
+	 * corresponding target vectors (double), by updating the weights and biases in
+	 * its layers using backpropagation and gradient descent. The whole batch is
+	 * packed into a layerStruct[0] x batchSize matrix (one column per set of
+	 * training data), so that each layer does one matrix multiplication forward
+	 * and two backward per batch instead of one per set of training data. If the
+	 * parallelism is above 1, the batch is split between that many threads. A
+	 * single set of training data is backpropagated with matrix-vector products
+	 * instead, each layer being updated in place by an outer product (see
+	 * Layer.backward) without storing its gradient.
+	 * <p>
+	 * All intermediate results are kept in workspaces that are only reallocated
+	 * when a batch larger than any previous one is given, so repeated calls with
+	 * the same batch size do not allocate on the calling thread. An empty batch
+	 * leaves the network unchanged.
+	 * 
+	 * @param input,  multiple vector inputs (double) gathered in an array
+	 * @param target, multiple vector targets (double) corresponding to the input
+	 *                vectors in input
+	 * @throws IllegalArgumentException if input and target are of different length
+	 */
+	public void train(double[][] input, double[][] target) {
+		if (input.length != target.length) {
+			throw new IllegalArgumentException("input and target not of same length");
+		}
+		if (input.length == 0) {
+			return;
+		}
+		int outputLayer = layerStruct.length - 1;
+		for (int set = 0; set < input.length; set++) {
+			if (input[set].length != layerStruct[0]) {
+				throw new IllegalArgumentException("input array of incorrect length");
+			}
+			if (target[set].length != layerStruct[outputLayer]) {
+				throw new IllegalArgumentException("target array of incorrect length");
+			}
+		}
+		inputD = input;
+		targetD = target;
+		try {
+			train(input.length, packerD);
+		} finally {
+			inputD = null;
+			targetD = null;
+		}
+	}
+
+	/**
+	 * Trains the NeuralNetwork, using multiple vector inputs (float) and their
+	 * corresponding target vectors (float), like train(double[][], double[][]).
+	 * 
+	 * @param input,  multiple vector inputs (float) gathered in an array
+	 * @param target, multiple vector targets (float) corresponding to the input
+	 *                vectors in input
+	 * @throws IllegalArgumentException if input and target are of different length
+	 */
+	public void train(float[][] input, float[][] target) {
+		if (input.length != target.length) {
+			throw new IllegalArgumentException("input and target not of same length");
+		}
+		if (input.length == 0) {
+			return;
+		}
+		int outputLayer = layerStruct.length - 1;
+		for (int set = 0; set < input.length; set++) {
+			if (input[set].length != layerStruct[0]) {
+				throw new IllegalArgumentException("input array of incorrect length");
+			}
+			if (target[set].length != layerStruct[outputLayer]) {
+				throw new IllegalArgumentException("target array of incorrect length");
+			}
+		}
+		inputF = input;
+		targetF = target;
+		try {
+			train(input.length, packerF);
+		} finally {
+			inputF = null;
+			targetF = null;
+		}
+	}
+
+	/**
+	 * Copies a part of the training data given to train into a workspace.
+	 */
+	private interface BatchPacker {
+		/**
+		 * Packs the inputs of the sets of training data from to from + batchSize -
+		 * 1 into workspace.layerInput[0], and their targets into the error of the
+		 * output layer.
+		 */
+		void pack(TrainingWorkspace workspace, int from, int batchSize);
+	}
+
+	/**
+	 * Packs the training data in inputD and targetD, see BatchPacker.
+	 */
+	private void packD(TrainingWorkspace workspace, int from, int batchSize) {
+		int outputLayer = layerStruct.length - 1;
+		backend.pack(inputD, from, batchSize, layerStruct[0], workspace.layerInput[0]);
+		backend.pack(targetD, from, batchSize, layerStruct[outputLayer], workspace.error[outputLayer]);
+	}
+
+	/**
+	 * Packs the training data in inputF and targetF, see BatchPacker.
+	 */
+	private void packF(TrainingWorkspace workspace, int from, int batchSize) {
+		int outputLayer = layerStruct.length - 1;
+		backend.pack(inputF, from, batchSize, layerStruct[0], workspace.layerInput[0]);
+		backend.pack(targetF, from, batchSize, layerStruct[outputLayer], workspace.error[outputLayer]);
+	}
+
+	/**
+	 * Computes the gradient of the nbrSets sets of training data given by packer,
+	 * split between the threads of the pool if the parallelism is above 1, and
+	 * updates the weights and biases with it.
+	 */
+	private void train(int nbrSets, BatchPacker packer) {
+		if (nbrSets == 1) {
+			trainSingle(packer);
+			return;
+		}
+		int nbrTasks = Math.min(parallelism, nbrSets / MIN_SETS_PER_TASK);
+		if (pool == null || nbrTasks < 2) {
+			computeGradient(packer, 0, nbrSets, workspace(0, nbrSets));
+		} else {
+			pool.invoke(new GradientTask(packer, nbrSets, 0, nbrTasks, nbrTasks));
+		}
+
+		Tensor[][] gradient = workspaces[0].gradient;
+		double step = -learningRate / nbrSets;
+		for (int layer = 0; layer < layerStruct.length - 1; layer++) {
+			network[layer].update(gradient[0][layer], gradient[1][layer], step);
+		}
+	}
+
+	/**
+	 * Returns the workspace at index, first replacing it if it can't hold
+	 * batchSize sets of training data.
+	 * 
+	 * @param index     index of the workspace (one per thread)
+	 * @param batchSize number of sets of training data the workspace must hold
+	 * @return a workspace with a capacity of at least batchSize
+	 */
+	private TrainingWorkspace workspace(int index, int batchSize) {
+		if (workspaces[index] == null || workspaces[index].capacity < batchSize) {
+			workspaces[index] = new TrainingWorkspace(backend, layerStruct, batchSize, true);
+		}
+		return workspaces[index];
+	}
+
+	/**
+	 * Backpropagates the sets of training data from (inclusive) to to (exclusive)
+	 * and stores the gradient of the weights and biases, summed over those sets,
+	 * in workspace.gradient. Only reads the weights and biases of the layers, so
+	 * it may be called by several threads at once given different workspaces.
+	 * 
+	 * @param packer    copies the training data into workspace
+	 * @param from      index of the first set of training data to use
+	 * @param to        index after the last set of training data to use
+	 * @param workspace buffers to use, with a capacity of at least to - from
+	 */
+	private void computeGradient(BatchPacker packer, int from, int to, TrainingWorkspace workspace) {
+		int batchSize = to - from;
+		int outputLayer = layerStruct.length - 1;
+		Tensor[] activation = workspace.activation;
+		Tensor[] derivative = workspace.derivative;
+		Tensor[] error = workspace.error;
+
+		computeOutputError(packer, from, batchSize, workspace);
+
+		for (int layer = outputLayer - 1; layer >= 0; layer--) {
+			network[layer].backwardBatch(activation[layer], error[layer + 1], workspace.gradient[0][layer],
+					workspace.gradient[1][layer], layer > 0 ? error[layer] : null, batchSize);
+			if (layer > 0) {
+				backend.multiply(error[layer], derivative[layer], layerStruct[layer] * batchSize);
+			}
+		}
+	}
+
+	/**
+	 * Backpropagates a single set of training data and updates the weights and
+	 * biases of every layer in place as soon as the error of the layer below has
+	 * been computed with them, so no gradient is stored.
+	 * 
+	 * @param packer copies the set of training data into the workspace
+	 */
+	private void trainSingle(BatchPacker packer) {
+		if (singleWorkspace == null) {
+			singleWorkspace = new TrainingWorkspace(backend, layerStruct, 1, false);
+		}
+		Tensor[] activation = singleWorkspace.activation;
+		Tensor[] derivative = singleWorkspace.derivative;
+		Tensor[] error = singleWorkspace.error;
+
+		computeOutputError(packer, 0, 1, singleWorkspace);
+
+		for (int layer = layerStruct.length - 2; layer >= 0; layer--) {
+			network[layer].backward(activation[layer], error[layer + 1], layer > 0 ? error[layer] : null,
+					-learningRate);
+			if (layer > 0) {
+				backend.multiply(error[layer], derivative[layer], layerStruct[layer]);
+			}
+		}
+	}
+
+	/**
+	 * Packs the sets of training data from to from + batchSize - 1 into
+	 * workspace, runs them forward through the network, recording the activation
+	 * and its derivative of every layer, and stores the error of the output layer
+	 * in workspace.error. A single set of training data is run forward with gemv.
+	 * 
+	 * @param packer    copies the training data into workspace
+	 * @param from      index of the first set of training data to use
+	 * @param batchSize number of sets of training data to use
+	 * @param workspace buffers to use, with a capacity of at least batchSize
+	 */
+	private void computeOutputError(BatchPacker packer, int from, int batchSize, TrainingWorkspace workspace) {
+		int outputLayer = layerStruct.length - 1;
+		Tensor[] layerInput = workspace.layerInput;
+		Tensor[] activation = workspace.activation;
+		Tensor[] derivative = workspace.derivative;
+		Tensor[] error = workspace.error;
+
+		packer.pack(workspace, from, batchSize);
+
+		// Softmax is paired with the cross-entropy error, whose error is the
+		// difference between output and target without any derivative
+		boolean isOutputDerived = network[outputLayer].getActivationFunction() != Activation.SOFTMAX;
+		for (int layer = 0; layer < outputLayer; layer++) {
+			if (batchSize == 1) {
+				network[layer].forward(activation[layer], layerInput[layer + 1], pool);
+			} else {
+				network[layer].forwardBatch(activation[layer], layerInput[layer + 1], batchSize, pool);
+			}
+			if (layer + 1 < outputLayer || isOutputDerived) {
+				network[layer + 1].activate(layerInput[layer + 1], activation[layer + 1], derivative[layer + 1],
+						batchSize);
+			} else {
+				network[layer + 1].activate(layerInput[layer + 1], activation[layer + 1], batchSize);
+			}
+		}
+
+		// The targets were packed into the error of the output layer
+		int nbrOutputValues = layerStruct[outputLayer] * batchSize;
+		backend.subtract(activation[outputLayer], error[outputLayer], error[outputLayer], nbrOutputValues);
+		if (isOutputDerived) {
+			backend.multiply(error[outputLayer], derivative[outputLayer], nbrOutputValues);
+		}
+	}
+
+	/**
+	 * Computes the gradient of a batch split into nbrTasks chunks, where this task
+	 * handles the chunks from firstTask (inclusive) to lastTask (exclusive). The
+	 * range is split in halves until a single chunk remains, which is
+	 * backpropagated into the workspace with the same index as the chunk. On the
+	 * way back up the gradient of the right half is added into the workspace of
+	 * the left half, so the gradient of the whole batch ends up in workspace 0.
+	 * Workspaces are (re)allocated by the thread running the chunk, so no two
+	 * threads write to the same buffers.
+	 */
+	@SuppressWarnings("serial")
+	private class GradientTask extends RecursiveAction {
+		private final BatchPacker packer;
+		private final int nbrSets;
+		private final int firstTask;
+		private final int lastTask;
+		private final int nbrTasks;
+
+		private GradientTask(BatchPacker packer, int nbrSets, int firstTask, int lastTask, int nbrTasks) {
+			this.packer = packer;
+			this.nbrSets = nbrSets;
+			this.firstTask = firstTask;
+			this.lastTask = lastTask;
+			this.nbrTasks = nbrTasks;
+		}
+
+		@Override
+		protected void compute() {
+			if (lastTask - firstTask == 1) {
+				int from = (int) ((long) nbrSets * firstTask / nbrTasks);
+				int to = (int) ((long) nbrSets * lastTask / nbrTasks);
+				computeGradient(packer, from, to, workspace(firstTask, to - from));
+				return;
+			}
+			int middle = (firstTask + lastTask) >>> 1;
+			GradientTask left = new GradientTask(packer, nbrSets, firstTask, middle, nbrTasks);
+			left.fork();
+			new GradientTask(packer, nbrSets, middle, lastTask, nbrTasks).compute();
+			left.join();
+			Tensor[][] result = workspaces[firstTask].gradient;
+			Tensor[][] right = workspaces[middle].gradient;
+			for (int i = 0; i < result.length; i++) {
+				for (int layer = 0; layer < result[i].length; layer++) {
+					backend.axpy(1.0, right[i][layer], result[i][layer]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a String representation of the NeuralNetwork.
+	 * 
+	 * @returns a String describing the NeuralNetwork
+	 */
+	public String toString() {
+		StringBuilder sb = new StringBuilder(
+				"==NeuralNetwork(" + backend.getBasicCalculationUnit() + ")==" + System.lineSeparator());
+		for (int i = 0; i < layerStruct.length; i++) {
+			sb.append(network[i].toString() + System.lineSeparator());
+		}
+		return sb.toString();
+	}
+
+}
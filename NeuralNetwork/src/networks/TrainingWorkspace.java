@@ -0,0 +1,83 @@
+package networks;
+
+import backend.Backend;
+import backend.Tensor;
+
+/**
+ * The buffers a TensorNetwork needs to backpropagate a batch of training data,
+ * sized once from the layerStruct of the network and a batch capacity so that
+ * they can be reused by every call to train. Matrices are stored as flat
+ * Tensors in row-major order with one column per set of training data, and only
+ * the first layerStruct[layer] x batchSize entries are used when the batch is
+ * smaller than the capacity.
+ * 
+ * @author OdinhengeT
+ * @see TensorNetwork
+ */
+class TrainingWorkspace {
+	/**
+	 * Largest number of sets of training data the buffers can hold.
+	 */
+	final int capacity;
+	/**
+	 * Input to each layer, layerStruct[layer] x capacity.
+	 */
+	final Tensor[] layerInput;
+	/**
+	 * Activation of each layer, layerStruct[layer] x capacity. The entry of the
+	 * input layer is the same Tensor as its layerInput.
+	 */
+	final Tensor[] activation;
+	/**
+	 * Derivative of the activation function at the input of each layer,
+	 * layerStruct[layer] x capacity, recorded during the forward pass. Unused for
+	 * the input layer and for an output layer using SOFTMAX.
+	 */
+	final Tensor[] derivative;
+	/**
+	 * Error of each layer, layerStruct[layer] x capacity, unused for the input
+	 * layer. The targets of the batch are packed into the error of the output
+	 * layer before it is computed.
+	 */
+	final Tensor[] error;
+	/**
+	 * Gradient of the weights and biases, first index is 0 for weights and 1 for
+	 * biases, second index is the layer. Null in a workspace for a single set of
+	 * training data, which updates the layers in place instead.
+	 */
+	final Tensor[][] gradient;
+
+	/**
+	 * Allocates the buffers for a network with the given layerStruct, trained on
+	 * at most capacity sets of training data at a time.
+	 * 
+	 * @param backend      the Backend of the network
+	 * @param layerStruct  number of neurons per layer of the network
+	 * @param capacity     largest number of sets of training data to hold
+	 * @param withGradient false to leave gradient null
+	 */
+	TrainingWorkspace(Backend backend, int[] layerStruct, int capacity, boolean withGradient) {
+		this.capacity = capacity;
+		layerInput = new Tensor[layerStruct.length];
+		activation = new Tensor[layerStruct.length];
+		derivative = new Tensor[layerStruct.length];
+		error = new Tensor[layerStruct.length];
+		gradient = withGradient ? new Tensor[2][layerStruct.length - 1] : null;
+		for (int layer = 0; layer < layerStruct.length; layer++) {
+			layerInput[layer] = backend.allocate(layerStruct[layer] * capacity);
+			if (layer > 0) {
+				activation[layer] = backend.allocate(layerStruct[layer] * capacity);
+				derivative[layer] = backend.allocate(layerStruct[layer] * capacity);
+				error[layer] = backend.allocate(layerStruct[layer] * capacity);
+			} else {
+				// The activation function is not applied to the inputs of the input layer
+				activation[layer] = layerInput[layer];
+			}
+			if (withGradient && layer < layerStruct.length - 1) {
+				gradient[0][layer] = backend.allocate(layerStruct[layer + 1] * layerStruct[layer]);
+				gradient[1][layer] = backend.allocate(layerStruct[layer + 1]);
+			}
+		}
+	}
+
+}
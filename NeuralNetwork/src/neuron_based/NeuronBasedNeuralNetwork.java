@@ -1,7 +1,6 @@
 package neuron_based;
 
-import java.util.function.Function;
-
+import layers.Activation;
 import neuron_based.layers.*;
 
 /**
@@ -32,15 +31,9 @@ public class NeuronBasedNeuralNetwork {
 	private NeuronLayer[] network;
 
 	/**
-	 * The Sigmoid function (Double to Double).
-	 */
-	protected static Function<Double, Double> sigmoidFunction = a -> 1.0 / (1.0 + Math.exp(-1 * a));
-
-	/**
-	 * Derivative of the Sigmoid function (Double to Double).
+	 * The Sigmoid function, whose derivative is used when backpropagating.
 	 */
-	protected static Function<Double, Double> derivedSigmoidFunction = a -> sigmoidFunction.apply(a)
-			* (1 - sigmoidFunction.apply(a));
+	protected static final Activation sigmoidFunction = Activation.SIGMOID;
 
 	/**
 	 * Creates a NeuronBasedNeuralNetwork with nbrLayers Layers with nbrLinks and
@@ -163,7 +156,7 @@ public class NeuronBasedNeuralNetwork {
 		double[] outdE = new double[target.length];
 
 		for (int neuron = 0; neuron < target.length; neuron++) {
-			double temp = derivedSigmoidFunction.apply(network[layerStruct.length - 1].getNeuronAt(neuron).getInput());
+			double temp = sigmoidFunction.derivative(network[layerStruct.length - 1].getNeuronAt(neuron).getInput());
 			outdE[neuron] = (result[neuron] - target[neuron]) * temp;
 		}
 
@@ -179,7 +172,7 @@ public class NeuronBasedNeuralNetwork {
 					dE[layer][neuron] += dE[layer + 1][link] * network[layer].getNeuronAt(neuron).getWeightTo(link);
 				}
 
-				dE[layer][neuron] *= derivedSigmoidFunction.apply(network[layer].getNeuronAt(neuron).getInput());
+				dE[layer][neuron] *= sigmoidFunction.derivative(network[layer].getNeuronAt(neuron).getInput());
 			}
 		}
 		return dE;
@@ -1,8 +1,9 @@
 package neuron_based.neurons;
 
-import java.util.function.Function;
 import java.util.Random;
 
+import layers.Activation;
+
 /**
  * This is a simple abstract class describing a Neuron in a
  * NeuronBasedNeuralNetwork, and has several subclasses with different Neurons.
@@ -20,7 +21,7 @@ public abstract class Neuron {
 	/**
 	 * Non-Linear function (Sigmoid function) applied on the inputs of neurons.
 	 */
-	protected static Function<Double, Double> sigFun = a -> 1.0 / (1.0 + Math.exp(-1 * a));
+	protected static final Activation sigFun = Activation.SIGMOID;
 
 	/**
 	 * Number of Neurons this Neuron links to in the next layer.
@@ -0,0 +1,279 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import networks.InferencePlan;
+import networks.ModelFile;
+import networks.NeuralNetwork;
+
+/**
+ * A small HTTP server, bound to localhost, that runs inputs through a trained
+ * NeuralNetwork (NeuralNetworkD or NeuralNetworkF), compiled into an
+ * InferencePlan. Concurrent requests are coalesced by a MicroBatcher into
+ * batches that are run with a single InferencePlan.runBatch call.
+ * <p>
+ * Endpoints:
+ * <ul>
+ * <li>POST /run, with the input values separated by commas or whitespace as
+ * body, answers with the output values separated by commas. Answers 400 for
+ * malformed input, 503 if the queue is full and 504 if the output wasn't ready
+ * within the timeout.</li>
+ * <li>GET /stats answers with the ServerStatistics and the current queue
+ * depth.</li>
+ * </ul>
+ * The server answers with the weights and biases the network had when the
+ * server was created, training the network afterwards doesn't change the
+ * plan. A network saved with ModelFile can be served from the command line
+ * through main.
+ * 
+ * @author OdinhengeT
+ * @see MicroBatcher
+ * @see ServerStatistics
+ * @see InferencePlan
+ */
+public class InferenceServer {
+
+	private final HttpServer httpServer;
+	private final ExecutorService handlers;
+	private final MicroBatcher batcher;
+	private final ServerStatistics statistics;
+	private final int nbrInputs;
+	private final long timeoutMillis;
+
+	/**
+	 * Constructor of InferenceServer, the server is started by start().
+	 * 
+	 * @param network           the trained NeuralNetwork to serve
+	 * @param port              port on localhost to listen to, 0 picks a free
+	 *                          port
+	 * @param maxBatchSize      largest number of requests run as one batch
+	 * @param maxWaitMicros     longest time a request waits for others to join
+	 *                          its batch, in microseconds
+	 * @param queueCapacity     largest number of requests waiting at once,
+	 *                          further requests are rejected
+	 * @param timeoutMillis     longest time a request waits for its output, in
+	 *                          milliseconds
+	 * @param nbrHandlerThreads number of threads handling HTTP requests
+	 * @throws IllegalArgumentException if any of the sizes or times isn't
+	 *                                  positive, or if network isn't a
+	 *                                  TensorNetwork
+	 * @throws IOException              if the server can't bind to the port
+	 */
+	public InferenceServer(NeuralNetwork network, int port, int maxBatchSize, long maxWaitMicros,
+			int queueCapacity, long timeoutMillis, int nbrHandlerThreads) throws IOException {
+		if (maxBatchSize < 1 || maxWaitMicros < 0 || queueCapacity < 1 || timeoutMillis < 1
+				|| nbrHandlerThreads < 1) {
+			throw new IllegalArgumentException("Batch size, queue capacity, timeout and threads must be positive");
+		}
+		this.nbrInputs = network.getLayerStruct()[0];
+		this.timeoutMillis = timeoutMillis;
+		this.statistics = new ServerStatistics();
+		this.batcher = new MicroBatcher(InferencePlan.compile(network), maxBatchSize, maxWaitMicros * 1000,
+				queueCapacity, statistics);
+		this.handlers = Executors.newFixedThreadPool(nbrHandlerThreads);
+		this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.httpServer.setExecutor(handlers);
+		this.httpServer.createContext("/run", this::handleRun);
+		this.httpServer.createContext("/stats", this::handleStats);
+	}
+
+	/**
+	 * Serves a network saved with ModelFile. Arguments: path to the model file,
+	 * and optionally the port (default 8080), max batch size (default 64) and max
+	 * wait in microseconds (default 1000).
+	 * 
+	 * @param args command line arguments
+	 * @throws IOException if the model can't be loaded or the port can't be bound
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: InferenceServer <model file> [port] [max batch size] [max wait micros]");
+			return;
+		}
+		NeuralNetwork network = ModelFile.load(Path.of(args[0]));
+		int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+		int maxBatchSize = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+		long maxWaitMicros = args.length > 3 ? Long.parseLong(args[3]) : 1000;
+		InferenceServer server = new InferenceServer(network, port, maxBatchSize, maxWaitMicros, 4096, 1000,
+				Runtime.getRuntime().availableProcessors() * 4);
+		server.start();
+		System.out.println("Serving " + args[0] + " on http://localhost:" + server.getPort() + "/run");
+	}
+
+	/**
+	 * Starts accepting requests.
+	 */
+	public void start() {
+		batcher.start();
+		httpServer.start();
+	}
+
+	/**
+	 * Stops accepting requests and fails the ones still waiting.
+	 */
+	public void stop() {
+		httpServer.stop(0);
+		batcher.stop();
+		handlers.shutdown();
+	}
+
+	/**
+	 * Returns the port the server listens to.
+	 * 
+	 * @return port on localhost
+	 */
+	public int getPort() {
+		return httpServer.getAddress().getPort();
+	}
+
+	/**
+	 * Returns the counters of the server.
+	 * 
+	 * @return this.statistics
+	 */
+	public ServerStatistics getStatistics() {
+		return statistics;
+	}
+
+	private void handleRun(HttpExchange exchange) throws IOException {
+		try {
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				respond(exchange, 405, "Use POST");
+				return;
+			}
+			statistics.requestReceived();
+			double[] input;
+			try {
+				input = parse(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.US_ASCII));
+			} catch (NumberFormatException e) {
+				statistics.requestFailed();
+				respond(exchange, 400, "Malformed input: " + e.getMessage());
+				return;
+			}
+			if (input.length != nbrInputs) {
+				statistics.requestFailed();
+				respond(exchange, 400, "Expected " + nbrInputs + " inputs, got " + input.length);
+				return;
+			}
+			PendingRequest request = new PendingRequest(input);
+			if (!batcher.offer(request)) {
+				statistics.requestRejected();
+				exchange.getResponseHeaders().set("Retry-After", "1");
+				respond(exchange, 503, "Queue is full");
+				return;
+			}
+			double[] output;
+			try {
+				output = awaitOutput(request);
+			} catch (TimeoutException | CancellationException e) {
+				statistics.requestTimedOut();
+				respond(exchange, 504, "Timed out");
+				return;
+			} catch (ExecutionException e) {
+				statistics.requestFailed();
+				respond(exchange, 500, String.valueOf(e.getCause().getMessage()));
+				return;
+			} catch (InterruptedException e) {
+				statistics.requestFailed();
+				respond(exchange, 503, "Interrupted");
+				return;
+			}
+			statistics.requestCompleted(System.nanoTime() - request.queuedAt);
+			respond(exchange, 200, format(output));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Waits up to timeoutMillis for the output of request, and cancels the request
+	 * if it isn't done by then. A request the MicroBatcher completes after the
+	 * wait gave up but before it could be cancelled still returns its output.
+	 * 
+	 * @param request the queued request to wait for
+	 * @return the output of the network for the request
+	 * @throws TimeoutException     if the request was cancelled after timing out
+	 * @throws ExecutionException   if running the batch of the request failed
+	 * @throws InterruptedException if the request was cancelled after the
+	 *                              calling thread was interrupted, whose
+	 *                              interrupt status is then set again
+	 */
+	private double[] awaitOutput(PendingRequest request)
+			throws TimeoutException, ExecutionException, InterruptedException {
+		try {
+			return request.output.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			if (request.output.cancel(false)) {
+				throw e;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			if (request.output.cancel(false)) {
+				throw e;
+			}
+		}
+		// Completed by the MicroBatcher before it could be cancelled, so this
+		// returns without waiting
+		return request.output.get();
+	}
+
+	private void handleStats(HttpExchange exchange) throws IOException {
+		try {
+			respond(exchange, 200,
+					statistics.toString() + "queueDepth: " + batcher.getQueueDepth() + System.lineSeparator());
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Parses numbers separated by commas and/or whitespace.
+	 */
+	private static double[] parse(String body) {
+		String trimmed = body.trim();
+		if (trimmed.isEmpty()) {
+			return new double[0];
+		}
+		String[] values = trimmed.split("[,\\s]+");
+		double[] parsed = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			parsed[i] = Double.parseDouble(values[i]);
+		}
+		return parsed;
+	}
+
+	private static String format(double[] values) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(values[i]);
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,189 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import networks.InferencePlan;
+
+/**
+ * Collects single inputs from many threads into a bounded queue and runs them
+ * through an InferencePlan in batches, on a single worker thread. A batch is
+ * started as soon as maxBatchSize requests are queued, or when the oldest
+ * request in it has waited maxWaitNanos, whichever comes first. Under load the
+ * queue fills up while the previous batch executes, so batches grow towards
+ * maxBatchSize without any extra waiting, while a lone request is delayed at
+ * most maxWaitNanos.
+ * 
+ * @author OdinhengeT
+ * @see InferenceServer
+ */
+final class MicroBatcher implements Runnable {
+
+	private final InferencePlan plan;
+	private final boolean floatBased;
+	private final int maxBatchSize;
+	private final long maxWaitNanos;
+	private final BlockingQueue<PendingRequest> queue;
+	private final ServerStatistics statistics;
+	private final Thread worker;
+	private volatile boolean running;
+	/**
+	 * Held while a request is queued and while running is cleared by stop(), so
+	 * that no request can be queued after stop() has drained the queue.
+	 */
+	private final Object offerLock = new Object();
+
+	/**
+	 * Constructor of MicroBatcher, the worker thread is started by start().
+	 * 
+	 * @param plan          the InferencePlan to run
+	 * @param maxBatchSize  largest number of requests run as one batch
+	 * @param maxWaitNanos  longest time a request waits for others to join its
+	 *                      batch
+	 * @param queueCapacity largest number of requests waiting at once
+	 * @param statistics    counters to update
+	 */
+	MicroBatcher(InferencePlan plan, int maxBatchSize, long maxWaitNanos, int queueCapacity,
+			ServerStatistics statistics) {
+		this.plan = plan;
+		this.floatBased = plan.getBasicCalculationUnit() == 'f';
+		this.maxBatchSize = maxBatchSize;
+		this.maxWaitNanos = maxWaitNanos;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.statistics = statistics;
+		this.worker = new Thread(this, "inference-batcher");
+		this.worker.setDaemon(true);
+	}
+
+	void start() {
+		running = true;
+		worker.start();
+	}
+
+	/**
+	 * Stops the worker thread and fails every request still in the queue.
+	 */
+	void stop() {
+		synchronized (offerLock) {
+			running = false;
+		}
+		worker.interrupt();
+		try {
+			worker.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		List<PendingRequest> remaining = new ArrayList<>();
+		queue.drainTo(remaining);
+		for (PendingRequest request : remaining) {
+			request.output.completeExceptionally(new IllegalStateException("The server was stopped"));
+		}
+	}
+
+	/**
+	 * Queues a request without blocking.
+	 * 
+	 * @param request the request to queue
+	 * @return false if the queue is full or the batcher is stopped, and the
+	 *         request was not queued
+	 */
+	boolean offer(PendingRequest request) {
+		synchronized (offerLock) {
+			return running && queue.offer(request);
+		}
+	}
+
+	/**
+	 * Returns the number of requests currently waiting to be batched.
+	 * 
+	 * @return queue depth
+	 */
+	int getQueueDepth() {
+		return queue.size();
+	}
+
+	@Override
+	public void run() {
+		List<PendingRequest> batch = new ArrayList<>(maxBatchSize);
+		while (running) {
+			try {
+				PendingRequest first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = first.queuedAt + maxWaitNanos;
+				while (batch.size() < maxBatchSize) {
+					queue.drainTo(batch, maxBatchSize - batch.size());
+					long remaining = deadline - System.nanoTime();
+					if (batch.size() == maxBatchSize || remaining <= 0) {
+						break;
+					}
+					PendingRequest next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				if (!running) {
+					for (PendingRequest request : batch) {
+						request.output.completeExceptionally(new IllegalStateException("The server was stopped"));
+					}
+					return;
+				}
+			}
+			execute(batch);
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Runs every request in batch that is still waiting as one forward pass, and
+	 * completes their futures. Requests that timed out while queued are skipped.
+	 */
+	private void execute(List<PendingRequest> batch) {
+		batch.removeIf(request -> request.output.isDone());
+		if (batch.isEmpty()) {
+			return;
+		}
+		statistics.batchExecuted(batch.size());
+		try {
+			if (floatBased) {
+				float[][] input = new float[batch.size()][];
+				for (int set = 0; set < input.length; set++) {
+					double[] single = batch.get(set).input;
+					input[set] = new float[single.length];
+					for (int i = 0; i < single.length; i++) {
+						input[set][i] = (float) single[i];
+					}
+				}
+				float[][] output = plan.runBatch(input);
+				for (int set = 0; set < output.length; set++) {
+					double[] single = new double[output[set].length];
+					for (int i = 0; i < single.length; i++) {
+						single[i] = output[set][i];
+					}
+					batch.get(set).output.complete(single);
+				}
+			} else {
+				double[][] input = new double[batch.size()][];
+				for (int set = 0; set < input.length; set++) {
+					input[set] = batch.get(set).input;
+				}
+				double[][] output = plan.runBatch(input);
+				for (int set = 0; set < output.length; set++) {
+					batch.get(set).output.complete(output[set]);
+				}
+			}
+		} catch (RuntimeException e) {
+			for (PendingRequest request : batch) {
+				request.output.completeExceptionally(e);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,39 @@
+package server;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A single input waiting in a MicroBatcher's queue, together with the future
+ * its output is delivered through.
+ * 
+ * @author OdinhengeT
+ * @see MicroBatcher
+ */
+final class PendingRequest {
+
+	/**
+	 * Input vector to run through the network.
+	 */
+	final double[] input;
+	/**
+	 * System.nanoTime() when the request was queued.
+	 */
+	final long queuedAt;
+	/**
+	 * Completed with the output of the network, or exceptionally if the batch
+	 * failed. Cancelled by the waiting handler if the request times out.
+	 */
+	final CompletableFuture<double[]> output;
+
+	/**
+	 * Constructor of PendingRequest
+	 * 
+	 * @param input input vector to run through the network
+	 */
+	PendingRequest(double[] input) {
+		this.input = input;
+		this.queuedAt = System.nanoTime();
+		this.output = new CompletableFuture<>();
+	}
+
+}
@@ -0,0 +1,190 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters kept by an InferenceServer: how many requests were received,
+ * answered, rejected and timed out, how large the executed batches were, and
+ * how long requests took from being queued until their output was ready.
+ * Latencies are recorded in a histogram with one bucket per power of two
+ * microseconds, so percentiles are reported as the upper bound of their bucket.
+ * All methods may be called from any thread.
+ * 
+ * @author OdinhengeT
+ * @see InferenceServer
+ */
+public class ServerStatistics {
+
+	private static final int NBR_BUCKETS = 40;
+
+	private final long startedAt = System.nanoTime();
+	private final LongAdder received = new LongAdder();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder timedOut = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder batchedRequests = new LongAdder();
+	private final LongAdder totalLatency = new LongAdder();
+	private final AtomicLong maxLatency = new AtomicLong();
+	private final AtomicLongArray latencyBuckets = new AtomicLongArray(NBR_BUCKETS);
+
+	void requestReceived() {
+		received.increment();
+	}
+
+	void requestRejected() {
+		rejected.increment();
+	}
+
+	void requestTimedOut() {
+		timedOut.increment();
+	}
+
+	void requestFailed() {
+		failed.increment();
+	}
+
+	/**
+	 * Records a request that was answered, latencyNanos after being queued.
+	 */
+	void requestCompleted(long latencyNanos) {
+		completed.increment();
+		totalLatency.add(latencyNanos);
+		maxLatency.accumulateAndGet(latencyNanos, Math::max);
+		long micros = latencyNanos / 1000;
+		int bucket = 64 - Long.numberOfLeadingZeros(micros);
+		latencyBuckets.incrementAndGet(Math.min(bucket, NBR_BUCKETS - 1));
+	}
+
+	/**
+	 * Records a batch of batchSize requests executed as one forward pass.
+	 */
+	void batchExecuted(int batchSize) {
+		batches.increment();
+		batchedRequests.add(batchSize);
+	}
+
+	public long getReceived() {
+		return received.sum();
+	}
+
+	public long getCompleted() {
+		return completed.sum();
+	}
+
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	public long getTimedOut() {
+		return timedOut.sum();
+	}
+
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	public long getBatches() {
+		return batches.sum();
+	}
+
+	/**
+	 * Returns the average number of requests per executed batch.
+	 * 
+	 * @return mean batch size, 0 if no batch has been executed
+	 */
+	public double getMeanBatchSize() {
+		long nbrBatches = batches.sum();
+		return nbrBatches == 0 ? 0 : (double) batchedRequests.sum() / nbrBatches;
+	}
+
+	/**
+	 * Returns the number of answered requests per second since the server
+	 * started.
+	 * 
+	 * @return throughput in requests per second
+	 */
+	public double getThroughput() {
+		double seconds = (System.nanoTime() - startedAt) / 1e9;
+		return seconds == 0 ? 0 : completed.sum() / seconds;
+	}
+
+	/**
+	 * Returns the mean latency of answered requests in microseconds.
+	 * 
+	 * @return mean latency, 0 if no request has been answered
+	 */
+	public double getMeanLatencyMicros() {
+		long nbrCompleted = completed.sum();
+		return nbrCompleted == 0 ? 0 : totalLatency.sum() / 1000.0 / nbrCompleted;
+	}
+
+	/**
+	 * Returns the largest latency of an answered request in microseconds.
+	 * 
+	 * @return max latency
+	 */
+	public long getMaxLatencyMicros() {
+		return maxLatency.get() / 1000;
+	}
+
+	/**
+	 * Returns an upper bound for the given percentile of the latency of answered
+	 * requests in microseconds.
+	 * 
+	 * @param percentile a number between 0 and 100
+	 * @return upper bound of the latency bucket holding the percentile, 0 if no
+	 *         request has been answered
+	 * @throws IllegalArgumentException if percentile is outside [0, 100]
+	 */
+	public long getLatencyPercentileMicros(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("percentile must be between 0 and 100");
+		}
+		long[] counts = new long[NBR_BUCKETS];
+		long total = 0;
+		for (int bucket = 0; bucket < NBR_BUCKETS; bucket++) {
+			counts[bucket] = latencyBuckets.get(bucket);
+			total += counts[bucket];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(percentile / 100 * total);
+		long seen = 0;
+		for (int bucket = 0; bucket < NBR_BUCKETS; bucket++) {
+			seen += counts[bucket];
+			if (seen >= rank && counts[bucket] > 0) {
+				return 1L << bucket;
+			}
+		}
+		return getMaxLatencyMicros();
+	}
+
+	/**
+	 * Returns a String listing all counters, one per line.
+	 * 
+	 * @returns a String describing the statistics
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("received: " + getReceived() + System.lineSeparator());
+		sb.append("completed: " + getCompleted() + System.lineSeparator());
+		sb.append("rejected: " + getRejected() + System.lineSeparator());
+		sb.append("timedOut: " + getTimedOut() + System.lineSeparator());
+		sb.append("failed: " + getFailed() + System.lineSeparator());
+		sb.append("batches: " + getBatches() + System.lineSeparator());
+		sb.append("meanBatchSize: " + getMeanBatchSize() + System.lineSeparator());
+		sb.append("throughputPerSecond: " + getThroughput() + System.lineSeparator());
+		sb.append("meanLatencyMicros: " + getMeanLatencyMicros() + System.lineSeparator());
+		sb.append("p50LatencyMicros: " + getLatencyPercentileMicros(50) + System.lineSeparator());
+		sb.append("p99LatencyMicros: " + getLatencyPercentileMicros(99) + System.lineSeparator());
+		sb.append("maxLatencyMicros: " + getMaxLatencyMicros() + System.lineSeparator());
+		return sb.toString();
+	}
+
+}
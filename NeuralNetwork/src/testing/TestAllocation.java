@@ -0,0 +1,60 @@
+package testing;
+
+import java.lang.management.ManagementFactory;
+
+import networks.*;
+import applications.xor_gate.*;
+
+/**
+ * Checks that NeuralNetworkD.train and NeuralNetworkF.train do not allocate
+ * once warmed up, by measuring the bytes allocated by the current thread over
+ * many calls with the same batch size, failing with an AssertionError if
+ * either does.
+ */
+public class TestAllocation {
+
+	public static void main(String[] args) {
+
+		int[] layers = { 2, 16, 16, 1 };
+		int nbrCalls = 10000;
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		// Each network is warmed up until its kernels are compiled by the JIT, the
+		// vectorized Backends allocating their vectors until then
+		NeuralNetworkD networkD = new NeuralNetworkD(layers, 0.8);
+		double[][] inputD = XorGateDataGenerator.generateInputD(32);
+		double[][] targetD = XorGateDataGenerator.generateTargetD(inputD);
+		for (int i = 0; i < 5 * nbrCalls; i++) {
+			networkD.train(inputD, targetD);
+		}
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < nbrCalls; i++) {
+			networkD.train(inputD, targetD);
+		}
+		long after = threadBean.getThreadAllocatedBytes(threadId);
+		long bytesD = (after - before) / nbrCalls;
+		System.out.println("NeuralNetworkD.train: " + bytesD + " bytes per call" + (bytesD == 0 ? " OK" : " FAILED"));
+
+		NeuralNetworkF networkF = new NeuralNetworkF(layers, 0.8f);
+		float[][] inputF = XorGateDataGenerator.generateInputF(32);
+		float[][] targetF = XorGateDataGenerator.generateTargetF(inputF);
+		for (int i = 0; i < 5 * nbrCalls; i++) {
+			networkF.train(inputF, targetF);
+		}
+		before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < nbrCalls; i++) {
+			networkF.train(inputF, targetF);
+		}
+		after = threadBean.getThreadAllocatedBytes(threadId);
+		long bytesF = (after - before) / nbrCalls;
+		System.out.println("NeuralNetworkF.train: " + bytesF + " bytes per call" + (bytesF == 0 ? " OK" : " FAILED"));
+
+		if (bytesD > 0 || bytesF > 0) {
+			throw new AssertionError("train allocates once warmed up");
+		}
+
+	}
+
+}
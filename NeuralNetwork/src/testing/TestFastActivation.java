@@ -0,0 +1,45 @@
+package testing;
+
+import layers.Activation;
+
+/**
+ * Measures the largest difference between FAST_SIGMOID/FAST_TANH and
+ * SIGMOID/TANH over [-40, 40], and at the inputs closest to the ends of the
+ * lookup table, for double and float, and checks it against the bounds
+ * documented in Activation.
+ */
+public class TestFastActivation {
+
+	private static final double[] EDGES_D = { Math.nextDown(16.0), Math.nextUp(-16.0), Math.nextDown(8.0),
+			Math.nextUp(-8.0), 16.0, -16.0, 8.0, -8.0 };
+	private static final float[] EDGES_F = { Math.nextDown(16.0f), Math.nextUp(-16.0f), Math.nextDown(8.0f),
+			Math.nextUp(-8.0f), 16.0f, -16.0f, 8.0f, -8.0f };
+
+	public static void main(String[] args) {
+
+		check(Activation.FAST_SIGMOID, Activation.SIGMOID, 5e-6, 1e-5);
+		check(Activation.FAST_TANH, Activation.TANH, 1e-5, 2e-5);
+
+	}
+
+	private static void check(Activation fast, Activation exact, double boundD, double boundF) {
+		double maxErrorD = 0.0;
+		double maxErrorF = 0.0;
+		for (int i = -4000000; i <= 4000000; i++) {
+			double input = i * 1e-5;
+			maxErrorD = Math.max(maxErrorD, Math.abs(fast.apply(input) - exact.apply(input)));
+			maxErrorF = Math.max(maxErrorF, Math.abs(fast.apply((float) input) - exact.apply(input)));
+		}
+		// The sweep steps over the inputs closest to the ends of the table, where the
+		// position in the table may round to its last entry
+		for (double input : EDGES_D) {
+			maxErrorD = Math.max(maxErrorD, Math.abs(fast.apply(input) - exact.apply(input)));
+		}
+		for (float input : EDGES_F) {
+			maxErrorF = Math.max(maxErrorF, Math.abs(fast.apply(input) - exact.apply((double) input)));
+		}
+		System.out.println(fast + " (double): max error " + maxErrorD + (maxErrorD < boundD ? " OK" : " FAILED"));
+		System.out.println(fast + " (float):  max error " + maxErrorF + (maxErrorF < boundF ? " OK" : " FAILED"));
+	}
+
+}
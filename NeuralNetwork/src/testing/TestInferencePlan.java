@@ -0,0 +1,118 @@
+package testing;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import layers.Activation;
+import networks.*;
+
+/**
+ * Compiles a NeuralNetworkD and a NeuralNetworkF into InferencePlans and checks
+ * that the plans give exactly the same outputs as the networks, for single
+ * inputs and for batches, from several threads at once, and still after the
+ * networks have been trained further. Also times run on the network and on
+ * the plan for an MNIST-sized network.
+ */
+public class TestInferencePlan {
+
+	private static final int[] LAYERS = { 784, 512, 512, 10 };
+	private static final Activation[] ACTIVATIONS = { Activation.RELU, Activation.TANH, Activation.SOFTMAX };
+
+	public static void main(String[] args) throws Exception {
+
+		Random random = new Random(1);
+		double[][] input = new double[200][784];
+		float[][] inputF = new float[200][784];
+		for (int set = 0; set < input.length; set++) {
+			for (int i = 0; i < 784; i++) {
+				input[set][i] = random.nextDouble();
+				inputF[set][i] = (float) input[set][i];
+			}
+		}
+
+		NeuralNetworkD networkD = new NeuralNetworkD(LAYERS, ACTIVATIONS, 0.1);
+		InferencePlan planD = InferencePlan.compile(networkD);
+		// The vectorized Backends round some activation functions differently
+		// before their kernels are compiled by the JIT, so compare warm kernels
+		for (int round = 0; round < 20; round++) {
+			networkD.runBatch(input);
+			planD.runBatch(input);
+		}
+		boolean same = Arrays.deepEquals(networkD.runBatch(input), planD.runBatch(input));
+		for (double[] set : input) {
+			same &= Arrays.equals(networkD.run(set), planD.run(set));
+		}
+		same &= concurrent(planD, input);
+		double[][] before = planD.runBatch(input);
+		networkD.train(input, planD.runBatch(input));
+		same &= Arrays.deepEquals(before, planD.runBatch(input));
+		System.out.println(planD.getBackend() + ": " + (same ? "same output as the network OK" : "different FAILED"));
+
+		NeuralNetworkF networkF = new NeuralNetworkF(LAYERS, ACTIVATIONS, 0.1f);
+		InferencePlan planF = InferencePlan.compile(networkF);
+		for (int round = 0; round < 20; round++) {
+			networkF.runBatch(inputF);
+			planF.runBatch(inputF);
+		}
+		same = Arrays.deepEquals(networkF.runBatch(inputF), planF.runBatch(inputF));
+		for (float[] set : inputF) {
+			same &= Arrays.equals(networkF.run(set), planF.run(set));
+		}
+		same &= concurrent(planF, input);
+		float[][] beforeF = planF.runBatch(inputF);
+		networkF.train(inputF, planF.runBatch(inputF));
+		same &= Arrays.deepEquals(beforeF, planF.runBatch(inputF));
+		System.out.println(planF.getBackend() + ": " + (same ? "same output as the network OK" : "different FAILED"));
+
+		long[] nanos = new long[2];
+		for (int round = 0; round < 2000; round++) {
+			long start = System.nanoTime();
+			networkF.run(inputF[round % inputF.length]);
+			long middle = System.nanoTime();
+			planF.run(inputF[round % inputF.length]);
+			long end = System.nanoTime();
+			nanos[0] = round == 0 ? Long.MAX_VALUE : Math.min(nanos[0], middle - start);
+			nanos[1] = round == 0 ? Long.MAX_VALUE : Math.min(nanos[1], end - middle);
+		}
+		System.out.println("run 784-512-512-10 (float): " + nanos[0] / 1000 + " us on the network, " + nanos[1] / 1000
+				+ " us on the plan");
+
+	}
+
+	/**
+	 * Runs plan on four threads at once, each one going through all of input both
+	 * as a batch and one set at a time, and checks that every thread gets the
+	 * outputs of the calling thread.
+	 */
+	private static boolean concurrent(InferencePlan plan, double[][] input) throws Exception {
+		double[][] expected = plan.runBatch(input);
+		double[][] expectedSingle = new double[input.length][];
+		for (int set = 0; set < input.length; set++) {
+			expectedSingle[set] = plan.run(input[set]);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		Future<?>[] futures = new Future<?>[4];
+		boolean[] same = new boolean[futures.length];
+		for (int thread = 0; thread < futures.length; thread++) {
+			int index = thread;
+			futures[thread] = executor.submit(() -> {
+				boolean result = Arrays.deepEquals(expected, plan.runBatch(input));
+				for (int set = 0; set < input.length; set++) {
+					result &= Arrays.equals(expectedSingle[set], plan.run(input[set]));
+				}
+				same[index] = result;
+			});
+		}
+		boolean result = true;
+		for (int thread = 0; thread < futures.length; thread++) {
+			futures[thread].get();
+			result &= same[thread];
+		}
+		executor.shutdown();
+		return result;
+	}
+
+}
@@ -0,0 +1,75 @@
+package testing;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import networks.*;
+import server.*;
+import applications.xor_gate.*;
+
+/**
+ * Load-tests an InferenceServer on localhost serving a NeuralNetworkD trained
+ * on the XOR gate, and checks that every answer matches NeuralNetworkD.run
+ * (up to rounding, as batches sum in another order).
+ */
+public class TestInferenceServer {
+
+	public static void main(String[] args) throws Exception {
+
+		NeuralNetworkD network = new NeuralNetworkD(new int[] { 2, 4, 1 }, 0.8);
+		for (int i = 0; i < 2000; i++) {
+			double[][] input = XorGateDataGenerator.generateInputD(32);
+			network.train(input, XorGateDataGenerator.generateTargetD(input));
+		}
+
+		InferenceServer server = new InferenceServer(network, 0, 64, 500, 1024, 1000, 64);
+		server.start();
+		URI run = URI.create("http://localhost:" + server.getPort() + "/run");
+		URI stats = URI.create("http://localhost:" + server.getPort() + "/stats");
+		HttpClient client = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(8)).build();
+
+		int nbrClients = 32;
+		int requestsPerClient = 500;
+		AtomicInteger mismatches = new AtomicInteger();
+		AtomicInteger errors = new AtomicInteger();
+		ExecutorService clients = Executors.newFixedThreadPool(nbrClients);
+		long start = System.nanoTime();
+		for (int c = 0; c < nbrClients; c++) {
+			clients.execute(() -> {
+				for (int r = 0; r < requestsPerClient; r++) {
+					double[] input = { Math.random() < 0.5 ? 0 : 1, Math.random() < 0.5 ? 0 : 1 };
+					HttpRequest request = HttpRequest.newBuilder(run)
+							.POST(HttpRequest.BodyPublishers.ofString(input[0] + "," + input[1])).build();
+					try {
+						HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+						if (response.statusCode() != 200) {
+							errors.incrementAndGet();
+						} else if (Math.abs(Double.parseDouble(response.body()) - network.run(input)[0]) > 1e-12) {
+							mismatches.incrementAndGet();
+						}
+					} catch (Exception e) {
+						errors.incrementAndGet();
+					}
+				}
+			});
+		}
+		clients.shutdown();
+		clients.awaitTermination(5, TimeUnit.MINUTES);
+		long elapsed = System.nanoTime() - start;
+
+		System.out.println(nbrClients * requestsPerClient + " requests in " + elapsed / 1000000 + " ms, "
+				+ mismatches.get() + " mismatches, " + errors.get() + " errors");
+		System.out.println(client.send(HttpRequest.newBuilder(stats).build(), HttpResponse.BodyHandlers.ofString())
+				.body());
+		server.stop();
+		System.exit(0);
+
+	}
+
+}
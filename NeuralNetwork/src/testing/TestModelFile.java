@@ -0,0 +1,64 @@
+package testing;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import layers.Activation;
+import networks.*;
+
+/**
+ * Saves a NeuralNetworkD and a NeuralNetworkF with ModelFile, loads them back,
+ * and checks that the loaded networks give the same outputs. Also reports how
+ * long it takes to load an MNIST-sized network.
+ */
+public class TestModelFile {
+
+	public static void main(String[] args) throws Exception {
+
+		int[] layers = { 784, 512, 512, 10 };
+		Activation[] activations = { Activation.RELU, Activation.TANH, Activation.SOFTMAX };
+		float[] inputF = new float[784];
+		double[] inputD = new double[784];
+		for (int i = 0; i < 784; i++) {
+			inputD[i] = Math.random();
+			inputF[i] = (float) inputD[i];
+		}
+
+		Path fileD = Files.createTempFile("model", ".nnmf");
+		NeuralNetworkD networkD = new NeuralNetworkD(layers, activations, 0.1);
+		ModelFile.save(networkD, fileD);
+		for (int i = 0; i < 10; i++) {
+			ModelFile.loadD(fileD);
+		}
+		long start = System.nanoTime();
+		NeuralNetworkD loadedD = ModelFile.loadD(fileD);
+		long elapsed = System.nanoTime() - start;
+		System.out.println("NeuralNetworkD: " + Files.size(fileD) + " bytes loaded in " + elapsed / 1000 + " us, "
+				+ (Arrays.equals(networkD.run(inputD), loadedD.run(inputD)) ? "same" : "DIFFERENT")
+				+ " output");
+
+		Path fileF = Files.createTempFile("model", ".nnmf");
+		NeuralNetworkF networkF = new NeuralNetworkF(layers, activations, 0.1f);
+		ModelFile.save(networkF, fileF);
+		for (int i = 0; i < 10; i++) {
+			ModelFile.loadF(fileF);
+		}
+		start = System.nanoTime();
+		NeuralNetworkF loadedF = ModelFile.loadF(fileF);
+		elapsed = System.nanoTime() - start;
+		System.out.println("NeuralNetworkF: " + Files.size(fileF) + " bytes loaded in " + elapsed / 1000 + " us, "
+				+ (Arrays.equals(networkF.run(inputF), loadedF.run(inputF)) ? "same" : "DIFFERENT")
+				+ " output");
+
+		start = System.nanoTime();
+		new NeuralNetworkD(layers, activations, 0.1);
+		elapsed = System.nanoTime() - start;
+		System.out.println("(creating a random NeuralNetworkD takes " + elapsed / 1000 + " us)");
+
+		Files.delete(fileD);
+		Files.delete(fileF);
+
+	}
+
+}
@@ -0,0 +1,133 @@
+package testing;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import backend.Backend;
+import backend.Tensor;
+import layers.Activation;
+
+/**
+ * Checks that gemm and gemv, and their fused variants with every activation
+ * function, give exactly the same result when split between the threads of a
+ * ForkJoinPool as when computed on the calling thread (and, for the scalar
+ * Backends, that the fused kernels equal the separate ones) and with their
+ * operands at an offset in a larger buffer, for both the scalar and (if
+ * enabled) the vectorized Backends, on shapes above
+ * MatrixOperations.PARALLEL_THRESHOLD whose rows and columns don't divide
+ * evenly into blocks, and times a wide layer both ways.
+ */
+public class TestParallelGemm {
+
+	private static final int[][] SHAPES = { { 1000, 300, 3 }, { 7, 500, 333 }, { 129, 257, 130 }, { 4096, 4096, 1 } };
+
+	public static void main(String[] args) {
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for (char unit : new char[] { 'f', 'd' }) {
+			check(Backend.of(unit), pool);
+			if (Backend.preferred(unit) != Backend.of(unit)) {
+				check(Backend.preferred(unit), pool);
+			}
+		}
+		time(Backend.preferred('f'), pool, 4096, 4096);
+		pool.shutdown();
+
+	}
+
+	private static void check(Backend backend, ForkJoinPool pool) {
+		Random random = new Random(1);
+		boolean same = true;
+		for (int[] shape : SHAPES) {
+			int rows = shape[0], inner = shape[1], cols = shape[2];
+			Tensor m1 = random(backend, rows * inner, random);
+			Tensor m2 = random(backend, inner * cols, random);
+			Tensor bias = random(backend, rows, random);
+			Tensor sequential = backend.allocate(rows * cols);
+			Tensor parallel = backend.allocate(rows * cols);
+			backend.gemm(m1, m2, sequential, rows, inner, cols);
+			backend.gemm(m1, m2, parallel, rows, inner, cols, pool);
+			same &= equal(sequential, parallel);
+			Tensor sequentialV = backend.allocate(rows);
+			Tensor parallelV = backend.allocate(rows);
+			backend.gemv(m1, m2, bias, sequentialV, rows, inner);
+			backend.gemv(m1, m2, bias, parallelV, rows, inner, pool);
+			same &= equal(sequentialV, parallelV);
+
+			for (Activation function : Activation.values()) {
+				backend.gemmActivate(function, m1, m2, bias, sequential, rows, inner, cols, null);
+				backend.gemmActivate(function, m1, m2, bias, parallel, rows, inner, cols, pool);
+				same &= equal(sequential, parallel);
+				backend.gemvActivate(function, m1, m2, bias, sequentialV, rows, inner, null);
+				backend.gemvActivate(function, m1, m2, bias, parallelV, rows, inner, pool);
+				same &= equal(sequentialV, parallelV);
+				if (backend == Backend.of(backend.getBasicCalculationUnit())) {
+					// The scalar kernels fuse the same operations as the separate kernels
+					backend.gemm(m1, m2, parallel, rows, inner, cols);
+					backend.addBias(parallel, bias, rows, cols);
+					backend.activate(function, parallel, parallel, rows, cols);
+					same &= equal(sequential, parallel);
+					backend.gemv(m1, m2, bias, parallelV, rows, inner);
+					backend.activate(function, parallelV, parallelV, rows, 1);
+					same &= equal(sequentialV, parallelV);
+				}
+			}
+
+			// The same product read from m1 and bias placed at an offset in one buffer
+			Tensor packed = backend.allocate(5 + rows * inner + rows);
+			for (int i = 0; i < rows * inner; i++) {
+				packed.set(5 + i, m1.get(i));
+			}
+			for (int i = 0; i < rows; i++) {
+				packed.set(5 + rows * inner + i, bias.get(i));
+			}
+			backend.gemmActivate(Activation.TANH, m1, m2, bias, sequential, rows, inner, cols, null);
+			backend.gemmActivate(Activation.TANH, packed, 5, m2, packed, 5 + rows * inner, parallel, rows, inner, cols,
+					pool);
+			same &= equal(sequential, parallel);
+			backend.gemvActivate(Activation.TANH, m1, m2, bias, sequentialV, rows, inner, null);
+			backend.gemvActivate(Activation.TANH, packed, 5, m2, packed, 5 + rows * inner, parallelV, rows, inner,
+					pool);
+			same &= equal(sequentialV, parallelV);
+		}
+		System.out.println(backend + ": " + (same ? "same result in parallel OK" : "different result FAILED"));
+	}
+
+	private static void time(Backend backend, ForkJoinPool pool, int rows, int cols) {
+		Random random = new Random(1);
+		Tensor m = random(backend, rows * cols, random);
+		Tensor v = random(backend, cols, random);
+		Tensor result = backend.allocate(rows);
+		long[] nanos = new long[2];
+		for (int round = 0; round < 200; round++) {
+			for (int i = 0; i < 2; i++) {
+				long start = System.nanoTime();
+				backend.gemv(m, v, null, result, rows, cols, i == 0 ? null : pool);
+				nanos[i] = round == 0 ? Long.MAX_VALUE : Math.min(nanos[i], System.nanoTime() - start);
+			}
+		}
+		System.out.println(backend + " gemv " + rows + "x" + cols + ": " + nanos[0] / 1000 + " us on one thread, "
+				+ nanos[1] / 1000 + " us on " + pool.getParallelism() + " threads ("
+				+ Runtime.getRuntime().availableProcessors() + " cores)");
+	}
+
+	private static Tensor random(Backend backend, int size, Random random) {
+		Tensor tensor = backend.allocate(size);
+		for (int i = 0; i < size; i++) {
+			tensor.set(i, random.nextGaussian());
+		}
+		return tensor;
+	}
+
+	private static boolean equal(Tensor expected, Tensor actual) {
+		double[] a = new double[expected.size()];
+		double[] b = new double[actual.size()];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = expected.get(i);
+			b[i] = actual.get(i);
+		}
+		return Arrays.equals(a, b);
+	}
+
+}
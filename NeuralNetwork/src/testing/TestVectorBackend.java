@@ -0,0 +1,163 @@
+package testing;
+
+import java.util.Random;
+
+import backend.Backend;
+import backend.Tensor;
+import layers.Activation;
+
+/**
+ * Compares every kernel of the Vector API backends with FloatBackend and
+ * DoubleBackend on random matrices of a few shapes, some of them narrower than
+ * a vector and some not a multiple of its length, and checks the product of
+ * two transposes and the outer product against plain gemm. Must be run with
+ * --add-modules jdk.incubator.vector, otherwise there is nothing to compare.
+ */
+public class TestVectorBackend {
+
+	private static final int[][] SHAPES = { { 1, 1, 1 }, { 3, 2, 1 }, { 5, 1, 33 }, { 10, 37, 70 },
+			{ 17, 64, 129 }, { 64, 200, 128 } };
+
+	public static void main(String[] args) {
+
+		check('f', 1e-4);
+		check('d', 1e-12);
+
+	}
+
+	private static void check(char unit, double bound) {
+		Backend scalar = Backend.of(unit);
+		Backend vector = Backend.preferred(unit);
+		if (vector == scalar) {
+			System.out.println(unit + ": no vectorized Backend available");
+			return;
+		}
+		Random random = new Random(1);
+		double maxError = 0.0;
+		for (int[] shape : SHAPES) {
+			int rows = shape[0], inner = shape[1], cols = shape[2];
+			Tensor m1 = random(scalar, rows * inner, random);
+			Tensor m2 = random(scalar, inner * cols, random);
+			Tensor m1T = random(scalar, inner * rows, random);
+			Tensor m2T = random(scalar, cols * inner, random);
+			Tensor v = random(scalar, inner, random);
+			Tensor bias = random(scalar, rows, random);
+			Tensor expected = scalar.allocate(rows * cols);
+			Tensor actual = scalar.allocate(rows * cols);
+
+			scalar.gemm(m1, m2, expected, rows, inner, cols);
+			vector.gemm(m1, m2, actual, rows, inner, cols);
+			maxError = Math.max(maxError, error(expected, actual));
+			scalar.gemmTransposeM1(m1T, m2, expected, rows, inner, cols);
+			vector.gemmTransposeM1(m1T, m2, actual, rows, inner, cols);
+			maxError = Math.max(maxError, error(expected, actual));
+			scalar.gemmTransposeM2(m1, m2T, expected, rows, inner, cols);
+			vector.gemmTransposeM2(m1, m2T, actual, rows, inner, cols);
+			maxError = Math.max(maxError, error(expected, actual));
+
+			// Both transposed, against m1 * m2 of the untransposed matrices
+			Tensor m1Transposed = transpose(scalar, m1, rows, inner);
+			Tensor m2Transposed = transpose(scalar, m2, inner, cols);
+			scalar.gemm(m1, m2, expected, rows, inner, cols);
+			scalar.gemm(true, true, m1Transposed, m2Transposed, actual, rows, inner, cols);
+			maxError = Math.max(maxError, error(expected, actual));
+			vector.gemm(true, true, m1Transposed, m2Transposed, actual, rows, inner, cols);
+			maxError = Math.max(maxError, error(expected, actual));
+			scalar.gemm(true, false, m1T, m2, expected, rows, inner, cols);
+			vector.gemm(true, false, m1T, m2, actual, rows, inner, cols);
+			maxError = Math.max(maxError, error(expected, actual));
+
+			Tensor x = random(scalar, rows, random);
+			Tensor y = random(scalar, cols, random);
+			Tensor expectedOuter = copy(scalar, expected);
+			Tensor actualOuter = copy(scalar, expected);
+			scalar.ger(-0.3, x, y, expectedOuter, rows, cols);
+			vector.ger(-0.3, x, y, actualOuter, rows, cols);
+			maxError = Math.max(maxError, error(expectedOuter, actualOuter));
+			scalar.gemmTransposeM2(x, y, expected, rows, 1, cols);
+			scalar.axpy(-0.3, expected, actual);
+			maxError = Math.max(maxError, error(actual, actualOuter));
+
+			Tensor expectedV = scalar.allocate(rows);
+			Tensor actualV = scalar.allocate(rows);
+			scalar.gemv(m1, v, bias, expectedV, rows, inner);
+			vector.gemv(m1, v, bias, actualV, rows, inner);
+			maxError = Math.max(maxError, error(expectedV, actualV));
+			scalar.gemv(m1, v, null, expectedV, rows, inner);
+			vector.gemv(m1, v, null, actualV, rows, inner);
+			maxError = Math.max(maxError, error(expectedV, actualV));
+			scalar.sumRows(m1, expectedV, rows, inner);
+			vector.sumRows(m1, actualV, rows, inner);
+			maxError = Math.max(maxError, error(expectedV, actualV));
+
+			Tensor expectedM = copy(scalar, m1);
+			Tensor actualM = copy(scalar, m1);
+			scalar.addBias(expectedM, bias, rows, inner);
+			vector.addBias(actualM, bias, rows, inner);
+			maxError = Math.max(maxError, error(expectedM, actualM));
+			scalar.axpy(-0.3, m1, expectedM);
+			vector.axpy(-0.3, m1, actualM);
+			maxError = Math.max(maxError, error(expectedM, actualM));
+			scalar.multiply(expectedM, m1, rows * inner);
+			vector.multiply(actualM, m1, rows * inner);
+			maxError = Math.max(maxError, error(expectedM, actualM));
+			scalar.subtract(expectedM, m1, expectedM, rows * inner);
+			vector.subtract(actualM, m1, actualM, rows * inner);
+			maxError = Math.max(maxError, error(expectedM, actualM));
+
+			for (Activation function : Activation.values()) {
+				scalar.activate(function, m1, expectedM, rows, inner);
+				vector.activate(function, m1, actualM, rows, inner);
+				maxError = Math.max(maxError, error(expectedM, actualM));
+				scalar.gemmActivate(function, m1, m2, bias, expected, rows, inner, cols, null);
+				vector.gemmActivate(function, m1, m2, bias, actual, rows, inner, cols, null);
+				maxError = Math.max(maxError, error(expected, actual));
+				scalar.gemvActivate(function, m1, v, bias, expectedV, rows, inner, null);
+				vector.gemvActivate(function, m1, v, bias, actualV, rows, inner, null);
+				maxError = Math.max(maxError, error(expectedV, actualV));
+			}
+		}
+		System.out.println(
+				vector + " vs " + scalar + ": max error " + maxError + (maxError < bound ? " OK" : " FAILED"));
+	}
+
+	private static Tensor random(Backend backend, int size, Random random) {
+		Tensor tensor = backend.allocate(size);
+		for (int i = 0; i < size; i++) {
+			tensor.set(i, 4 * random.nextDouble() - 2);
+		}
+		return tensor;
+	}
+
+	private static Tensor copy(Backend backend, Tensor source) {
+		Tensor tensor = backend.allocate(source.size());
+		for (int i = 0; i < source.size(); i++) {
+			tensor.set(i, source.get(i));
+		}
+		return tensor;
+	}
+
+	private static Tensor transpose(Backend backend, Tensor matrix, int rows, int cols) {
+		Tensor tensor = backend.allocate(rows * cols);
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				tensor.set(col * rows + row, matrix.get(row * cols + col));
+			}
+		}
+		return tensor;
+	}
+
+	/**
+	 * Returns the largest difference between expected and actual, relative to the
+	 * magnitude of expected where it is above 1.
+	 */
+	private static double error(Tensor expected, Tensor actual) {
+		double max = 0.0;
+		for (int i = 0; i < expected.size(); i++) {
+			double difference = Math.abs(expected.get(i) - actual.get(i));
+			max = Math.max(max, difference / Math.max(1.0, Math.abs(expected.get(i))));
+		}
+		return max;
+	}
+
+}
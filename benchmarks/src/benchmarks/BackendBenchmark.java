@@ -0,0 +1,143 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import backend.Backend;
+import backend.Tensor;
+import layers.Activation;
+
+/**
+ * Benchmarks the scalar Backends (FloatBackend and DoubleBackend) against the
+ * ones built on the Vector API, for the kernels that dominate a forward pass:
+ * gemm for a batch, gemv for a single input, and the sigmoid activation, at the
+ * same "rows x inner x cols" shapes as MatrixBenchmark (gemv and activate use
+ * the rows x inner matrix). forwardBatchSeparate and forwardBatchFused compare
+ * the forward pass of a sigmoid layer as gemm, addBias and activate against
+ * the single gemmActivate kernel. With threads above 1 gemm and gemv are split
+ * between the threads of a ForkJoinPool, as they are for a network whose
+ * parallelism is set, when the product is above
+ * MatrixOperations.PARALLEL_THRESHOLD. The forked JVM is started with the
+ * jdk.incubator.vector module, which needs JDK 17 or later.
+ * 
+ * @author OdinhengeT
+ * @see Backend#preferred(char)
+ * @see MatrixBenchmark
+ * @see layers.MatrixOperations#forEachBlock
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class BackendBenchmark {
+
+	@Param({ "3x2x1", "512x784x128", "10x512x128", "256x256x256" })
+	public String shape;
+
+	@Param({ "f", "d" })
+	public char precision;
+
+	@Param({ "scalar", "vector" })
+	public String kernels;
+
+	@Param({ "1" })
+	public int threads;
+
+	private Backend backend;
+	private ForkJoinPool pool;
+	private int rows;
+	private int inner;
+	private int cols;
+	private Tensor m1;
+	private Tensor m2;
+	private Tensor v;
+	private Tensor bias;
+	private Tensor result;
+	private Tensor resultV;
+	private Tensor activation;
+
+	@Setup
+	public void setup() {
+		backend = kernels.equals("vector") ? Backend.preferred(precision) : Backend.of(precision);
+		if (kernels.equals("vector") && backend == Backend.of(precision)) {
+			throw new IllegalStateException("The Vector API backends are not available");
+		}
+		pool = threads > 1 ? new ForkJoinPool(threads) : null;
+		String[] dimensions = shape.split("x");
+		rows = Integer.parseInt(dimensions[0]);
+		inner = Integer.parseInt(dimensions[1]);
+		cols = Integer.parseInt(dimensions[2]);
+		Random random = new Random(42);
+		m1 = random(rows * inner, random);
+		m2 = random(inner * cols, random);
+		v = random(inner, random);
+		bias = random(rows, random);
+		result = backend.allocate(rows * cols);
+		resultV = backend.allocate(rows);
+		activation = backend.allocate(rows * inner);
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	private Tensor random(int size, Random random) {
+		Tensor tensor = backend.allocate(size);
+		for (int i = 0; i < size; i++) {
+			tensor.set(i, random.nextGaussian());
+		}
+		return tensor;
+	}
+
+	@Benchmark
+	public Tensor gemm() {
+		backend.gemm(m1, m2, result, rows, inner, cols, pool);
+		return result;
+	}
+
+	@Benchmark
+	public Tensor gemv() {
+		backend.gemv(m1, v, bias, resultV, rows, inner, pool);
+		return resultV;
+	}
+
+	@Benchmark
+	public Tensor forwardBatchSeparate() {
+		backend.gemm(m1, m2, result, rows, inner, cols, pool);
+		backend.addBias(result, bias, rows, cols);
+		backend.activate(Activation.SIGMOID, result, result, rows, cols);
+		return result;
+	}
+
+	@Benchmark
+	public Tensor forwardBatchFused() {
+		backend.gemmActivate(Activation.SIGMOID, m1, m2, bias, result, rows, inner, cols, pool);
+		return result;
+	}
+
+	@Benchmark
+	public Tensor activateSigmoid() {
+		backend.activate(Activation.SIGMOID, m1, activation, rows, inner);
+		return activation;
+	}
+
+}
@@ -0,0 +1,48 @@
+package benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class of benchmarks.jar, runs the benchmarks like the JMH Main class
+ * (taking the same command line options) but writes the results as JSON to
+ * jmh-result.json unless another format or file is given with -rf or -rff, so
+ * that the results of different releases can be compared.
+ * 
+ * @author OdinhengeT
+ * @see MatrixBenchmark
+ * @see LayerBenchmark
+ * @see NetworkBenchmark
+ * @see MnistFileReaderBenchmark
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * File the results are written to if no other is given.
+	 */
+	public static final String RESULT_FILE = "jmh-result.json";
+
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp()) {
+			commandLine.showHelp();
+			return;
+		}
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+		if (!commandLine.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!commandLine.getResult().hasValue()) {
+			options.result(RESULT_FILE);
+		}
+		new Runner(options.build()).run();
+	}
+
+}
@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import backend.DoubleBackend;
+import backend.FloatBackend;
+import backend.Tensor;
+import layers.Activation;
+import layers.Layer;
+
+/**
+ * Benchmarks computing the output of a single input through a Layer, that is
+ * activating the input of the layer and multiplying it with the weights (Layer
+ * activate and forward), with both FloatBackend and DoubleBackend, for the
+ * layers of a 784-512-512-10 network given as "nbrNeurons-nbrLinks".
+ * 
+ * @author OdinhengeT
+ * @see Layer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayerBenchmark {
+
+	@Param({ "2-3", "784-512", "512-512", "512-10" })
+	public String layer;
+
+	private Layer layerD;
+	private Layer layerF;
+	private Tensor inputD;
+	private Tensor inputF;
+	private Tensor activationD;
+	private Tensor activationF;
+	private Tensor outputD;
+	private Tensor outputF;
+
+	@Setup
+	public void setup() {
+		String[] dimensions = layer.split("-");
+		int nbrNeurons = Integer.parseInt(dimensions[0]);
+		int nbrLinks = Integer.parseInt(dimensions[1]);
+		layerD = new Layer(DoubleBackend.INSTANCE, nbrNeurons, nbrLinks, Activation.RELU);
+		layerF = new Layer(FloatBackend.INSTANCE, nbrNeurons, nbrLinks, Activation.RELU);
+		inputD = DoubleBackend.INSTANCE.allocate(nbrNeurons);
+		inputF = FloatBackend.INSTANCE.allocate(nbrNeurons);
+		Random random = new Random(42);
+		for (int neuron = 0; neuron < nbrNeurons; neuron++) {
+			double value = random.nextGaussian();
+			inputD.set(neuron, value);
+			inputF.set(neuron, value);
+		}
+		activationD = DoubleBackend.INSTANCE.allocate(nbrNeurons);
+		activationF = FloatBackend.INSTANCE.allocate(nbrNeurons);
+		outputD = DoubleBackend.INSTANCE.allocate(nbrLinks);
+		outputF = FloatBackend.INSTANCE.allocate(nbrLinks);
+	}
+
+	@Benchmark
+	public Tensor getOutputD() {
+		layerD.activate(inputD, activationD, 1);
+		layerD.forward(activationD, outputD);
+		return outputD;
+	}
+
+	@Benchmark
+	public Tensor getOutputF() {
+		layerF.activate(inputF, activationF, 1);
+		layerF.forward(activationF, outputF);
+		return outputF;
+	}
+
+}
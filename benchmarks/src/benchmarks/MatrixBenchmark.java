@@ -0,0 +1,113 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import layers.MatrixOperations;
+
+/**
+ * Benchmarks the matrix multiplications of MatrixOperations, both on double[][]
+ * / float[][] and on the flat row-major arrays used by the layers, for a few
+ * shapes "rows x inner x cols" taken from the networks: a single XOR input, a
+ * batch through the first and last layer of a 784-512-512-10 network, and a
+ * square matrix.
+ * 
+ * @author OdinhengeT
+ * @see MatrixOperations
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+
+	@Param({ "3x2x1", "512x784x128", "10x512x128", "256x256x256" })
+	public String shape;
+
+	private int rows;
+	private int inner;
+	private int cols;
+
+	private double[][] m1D;
+	private double[][] m2D;
+	private float[][] m1F;
+	private float[][] m2F;
+	private double[] flat1D;
+	private double[] flat2D;
+	private double[] resultD;
+	private float[] flat1F;
+	private float[] flat2F;
+	private float[] resultF;
+
+	@Setup
+	public void setup() {
+		String[] dimensions = shape.split("x");
+		rows = Integer.parseInt(dimensions[0]);
+		inner = Integer.parseInt(dimensions[1]);
+		cols = Integer.parseInt(dimensions[2]);
+		Random random = new Random(42);
+		m1D = new double[rows][inner];
+		m1F = new float[rows][inner];
+		flat1D = new double[rows * inner];
+		flat1F = new float[rows * inner];
+		for (int row = 0; row < rows; row++) {
+			for (int i = 0; i < inner; i++) {
+				m1D[row][i] = random.nextGaussian();
+				m1F[row][i] = (float) m1D[row][i];
+				flat1D[row * inner + i] = m1D[row][i];
+				flat1F[row * inner + i] = m1F[row][i];
+			}
+		}
+		m2D = new double[inner][cols];
+		m2F = new float[inner][cols];
+		flat2D = new double[inner * cols];
+		flat2F = new float[inner * cols];
+		for (int i = 0; i < inner; i++) {
+			for (int col = 0; col < cols; col++) {
+				m2D[i][col] = random.nextGaussian();
+				m2F[i][col] = (float) m2D[i][col];
+				flat2D[i * cols + col] = m2D[i][col];
+				flat2F[i * cols + col] = m2F[i][col];
+			}
+		}
+		resultD = new double[rows * cols];
+		resultF = new float[rows * cols];
+	}
+
+	@Benchmark
+	public double[][] matMultD() {
+		return MatrixOperations.matMultD(m1D, m2D);
+	}
+
+	@Benchmark
+	public float[][] matMultF() {
+		return MatrixOperations.matMultF(m1F, m2F);
+	}
+
+	@Benchmark
+	public double[] gemmD() {
+		MatrixOperations.gemmD(flat1D, flat2D, resultD, rows, inner, cols);
+		return resultD;
+	}
+
+	@Benchmark
+	public float[] gemmF() {
+		MatrixOperations.gemmF(flat1F, flat2F, resultF, rows, inner, cols);
+		return resultF;
+	}
+
+}
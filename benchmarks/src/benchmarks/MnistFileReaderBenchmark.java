@@ -0,0 +1,113 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import applications.mnist.MnistDataset;
+import applications.mnist.MnistFileReader;
+
+/**
+ * Benchmarks loading the Mnist training set: opening the files with
+ * MnistFileReader and reading them as float[][], double[][] or bytes, and
+ * creating a MnistDataset. The images aren't part of the repository, so files
+ * of the same size as the Mnist training set (60000 random 28 x 28 images and
+ * their labels) are written to a temporary directory first.
+ * 
+ * @author OdinhengeT
+ * @see MnistFileReader
+ * @see MnistDataset
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MnistFileReaderBenchmark {
+
+	public static final int NBR_IMAGES = 60000;
+	public static final int IMAGE_SIDE = 28;
+
+	private Path directory;
+	private String imageFile;
+	private String labelFile;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("mnist-benchmark");
+		Random random = new Random(42);
+		byte[] pixels = new byte[NBR_IMAGES * IMAGE_SIDE * IMAGE_SIDE];
+		random.nextBytes(pixels);
+		byte[] labels = new byte[NBR_IMAGES];
+		for (int i = 0; i < NBR_IMAGES; i++) {
+			labels[i] = (byte) random.nextInt(10);
+		}
+		imageFile = write("images.idx3-ubyte", ByteBuffer.allocate(16).putInt(0x00000803).putInt(NBR_IMAGES)
+				.putInt(IMAGE_SIDE).putInt(IMAGE_SIDE), pixels);
+		labelFile = write("labels.idx1-ubyte", ByteBuffer.allocate(8).putInt(0x00000801).putInt(NBR_IMAGES),
+				labels);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(Path.of(imageFile));
+		Files.deleteIfExists(Path.of(labelFile));
+		Files.deleteIfExists(directory);
+	}
+
+	@Benchmark
+	public float[][] readImagesF() throws IOException {
+		return new MnistFileReader(imageFile).readF();
+	}
+
+	@Benchmark
+	public double[][] readImagesD() throws IOException {
+		return new MnistFileReader(imageFile).readD();
+	}
+
+	@Benchmark
+	public byte[] readImagesBytes() throws IOException {
+		return new MnistFileReader(imageFile).readBytes();
+	}
+
+	@Benchmark
+	public float[][] readLabelsF() throws IOException {
+		return new MnistFileReader(labelFile).readF();
+	}
+
+	@Benchmark
+	public MnistDataset loadDataset() throws IOException {
+		return new MnistDataset(imageFile, labelFile, 1.0);
+	}
+
+	/**
+	 * Writes an idx file of the given header (big-endian, as ByteBuffer is by
+	 * default) followed by data.
+	 */
+	private String write(String name, ByteBuffer header, byte[] data) throws IOException {
+		Path file = directory.resolve(name);
+		try (OutputStream out = Files.newOutputStream(file)) {
+			out.write(header.array());
+			out.write(data);
+		}
+		return file.toString();
+	}
+
+}
@@ -0,0 +1,126 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import networks.NeuralNetwork;
+import networks.NeuralNetworkD;
+import networks.NeuralNetworkF;
+
+/**
+ * Benchmarks NeuralNetwork.run on one input and NeuralNetwork.train on one
+ * batch, for the XOR topology 2-3-1 and the Mnist sized 784-512-512-10, with
+ * both NeuralNetworkD ("d") and NeuralNetworkF ("f") so the two precisions can
+ * be compared. The network is recreated every iteration, as train changes its
+ * weights.
+ * 
+ * @author OdinhengeT
+ * @see NeuralNetworkD
+ * @see NeuralNetworkF
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkBenchmark {
+
+	/**
+	 * Number of sets of training data given to train at once.
+	 */
+	public static final int TRAINING_BATCH = 32;
+
+	@Param({ "2-3-1", "784-512-512-10" })
+	public String topology;
+
+	@Param({ "d", "f" })
+	public char precision;
+
+	private NeuralNetwork network;
+	private double[] inputD;
+	private float[] inputF;
+	private double[][] trainingInputD;
+	private double[][] trainingTargetD;
+	private float[][] trainingInputF;
+	private float[][] trainingTargetF;
+
+	@Setup(Level.Trial)
+	public void setupData() {
+		int[] layerStruct = getLayerStruct();
+		int nbrInputs = layerStruct[0];
+		int nbrOutputs = layerStruct[layerStruct.length - 1];
+		Random random = new Random(42);
+		inputD = new double[nbrInputs];
+		inputF = new float[nbrInputs];
+		for (int i = 0; i < nbrInputs; i++) {
+			inputD[i] = random.nextDouble();
+			inputF[i] = (float) inputD[i];
+		}
+		trainingInputD = new double[TRAINING_BATCH][nbrInputs];
+		trainingTargetD = new double[TRAINING_BATCH][nbrOutputs];
+		trainingInputF = new float[TRAINING_BATCH][nbrInputs];
+		trainingTargetF = new float[TRAINING_BATCH][nbrOutputs];
+		for (int set = 0; set < TRAINING_BATCH; set++) {
+			for (int i = 0; i < nbrInputs; i++) {
+				trainingInputD[set][i] = random.nextDouble();
+				trainingInputF[set][i] = (float) trainingInputD[set][i];
+			}
+			int label = random.nextInt(nbrOutputs);
+			trainingTargetD[set][label] = 1.0;
+			trainingTargetF[set][label] = 1.0f;
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void setupNetwork() {
+		if (precision == 'f') {
+			network = new NeuralNetworkF(getLayerStruct(), 0.01f);
+		} else {
+			network = new NeuralNetworkD(getLayerStruct(), 0.01);
+		}
+	}
+
+	@Benchmark
+	public Object run() {
+		if (precision == 'f') {
+			return network.run(inputF);
+		}
+		return network.run(inputD);
+	}
+
+	@Benchmark
+	public void train() {
+		if (precision == 'f') {
+			network.train(trainingInputF, trainingTargetF);
+		} else {
+			network.train(trainingInputD, trainingTargetD);
+		}
+	}
+
+	/**
+	 * Parses topology, e.g. "2-3-1" into { 2, 3, 1 }.
+	 */
+	private int[] getLayerStruct() {
+		String[] layers = topology.split("-");
+		int[] layerStruct = new int[layers.length];
+		for (int i = 0; i < layers.length; i++) {
+			layerStruct[i] = Integer.parseInt(layers[i]);
+		}
+		return layerStruct;
+	}
+
+}